@@ -39,7 +39,7 @@ dependencies {
 }
 
 jmh {
-    include = listOf("HashingAlgorithmsBenchmark")
+    include = listOf("HashingAlgorithmsBenchmark", "FileHashingBenchmark")
 }
 
 val buildReceiptPackage = "/org/gradle/"
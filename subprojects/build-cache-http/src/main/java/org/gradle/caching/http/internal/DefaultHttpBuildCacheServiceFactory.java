@@ -27,6 +27,7 @@
 import org.gradle.internal.deprecation.DeprecationLogger;
 import org.gradle.internal.resource.transport.http.DefaultHttpSettings;
 import org.gradle.internal.resource.transport.http.HttpClientHelper;
+import org.gradle.internal.resource.transport.http.HttpConnectionPools;
 import org.gradle.internal.resource.transport.http.SslContextFactory;
 import org.gradle.internal.verifier.HttpRedirectVerifier;
 import org.gradle.internal.verifier.HttpRedirectVerifierFactory;
@@ -44,11 +45,13 @@ public class DefaultHttpBuildCacheServiceFactory implements BuildCacheServiceFac
 
     private final SslContextFactory sslContextFactory;
     private final HttpBuildCacheRequestCustomizer requestCustomizer;
+    private final HttpConnectionPools connectionPools;
 
     @Inject
-    public DefaultHttpBuildCacheServiceFactory(SslContextFactory sslContextFactory, HttpBuildCacheRequestCustomizer requestCustomizer) {
+    public DefaultHttpBuildCacheServiceFactory(SslContextFactory sslContextFactory, HttpBuildCacheRequestCustomizer requestCustomizer, HttpConnectionPools connectionPools) {
         this.sslContextFactory = sslContextFactory;
         this.requestCustomizer = requestCustomizer;
+        this.connectionPools = connectionPools;
     }
 
     @Override
@@ -88,7 +91,7 @@ public BuildCacheService createBuildCacheService(HttpBuildCache configuration, D
         } else {
             builder.withSslContextFactory(sslContextFactory);
         }
-        HttpClientHelper httpClientHelper = new HttpClientHelper(builder.build());
+        HttpClientHelper httpClientHelper = new HttpClientHelper(builder.build(), connectionPools);
 
         describer.type("HTTP")
             .config("url", noUserInfoUrl.toASCIIString())
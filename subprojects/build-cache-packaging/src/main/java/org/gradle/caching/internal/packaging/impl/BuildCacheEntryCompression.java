@@ -0,0 +1,90 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The compressions supported for build cache entries.
+ *
+ * All of them produce gzip streams, so entries created with any of them can be loaded by every Gradle version,
+ * regardless of the compression it is configured to use. The compression is not part of the cache key.
+ */
+public enum BuildCacheEntryCompression {
+    /**
+     * Compresses entries with the default gzip compression level.
+     */
+    GZIP(Deflater.DEFAULT_COMPRESSION),
+
+    /**
+     * Compresses entries with the fastest gzip compression level.
+     * Entries are somewhat larger, but packing takes considerably less CPU time. Unpacking is as fast as for {@link #GZIP}.
+     */
+    FAST_GZIP(Deflater.BEST_SPEED);
+
+    private final int level;
+
+    BuildCacheEntryCompression(int level) {
+        this.level = level;
+    }
+
+    /**
+     * Returns the compression with the given name, like {@code gzip} or {@code fast-gzip}.
+     *
+     * @throws IllegalArgumentException when there is no compression with the given name.
+     */
+    public static BuildCacheEntryCompression forName(String name) {
+        for (BuildCacheEntryCompression compression : values()) {
+            if (compression.getName().equalsIgnoreCase(name.trim())) {
+                return compression;
+            }
+        }
+        StringBuilder names = new StringBuilder();
+        for (BuildCacheEntryCompression compression : values()) {
+            if (names.length() > 0) {
+                names.append(", ");
+            }
+            names.append(compression.getName());
+        }
+        throw new IllegalArgumentException(String.format("Unknown build cache entry compression '%s'. Supported compressions are: %s.", name, names));
+    }
+
+    /**
+     * The name used to select this compression, like {@code fast-gzip}.
+     */
+    public String getName() {
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    public OutputStream compress(OutputStream output) throws IOException {
+        return new GZIPOutputStream(output) {
+            {
+                def.setLevel(level);
+            }
+        };
+    }
+
+    public InputStream decompress(InputStream input) throws IOException {
+        return new GZIPInputStream(input);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl
+
+import org.gradle.caching.internal.CacheableEntity
+import org.gradle.caching.internal.origin.OriginReader
+import org.gradle.caching.internal.origin.OriginWriter
+import org.gradle.caching.internal.packaging.BuildCacheEntryPacker
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class CompressingBuildCacheEntryPackerTest extends Specification {
+    def entity = Stub(CacheableEntity)
+    def writeOrigin = Stub(OriginWriter)
+    def readOrigin = Stub(OriginReader)
+    def delegate = Mock(BuildCacheEntryPacker)
+    def content = ("entry content " * 1000).bytes
+
+    @Unroll
+    def "entries packed with #packCompression can be unpacked when configured to use #unpackCompression"() {
+        def output = new ByteArrayOutputStream()
+        byte[] unpackedContent = null
+
+        when:
+        new CompressingBuildCacheEntryPacker(delegate, packCompression).pack(entity, [:], output, writeOrigin)
+
+        then:
+        1 * delegate.pack(entity, [:], _, writeOrigin) >> { args ->
+            (args[2] as OutputStream).write(content)
+            new BuildCacheEntryPacker.PackResult(1)
+        }
+        output.size() < content.length
+
+        when:
+        new CompressingBuildCacheEntryPacker(delegate, unpackCompression).unpack(entity, new ByteArrayInputStream(output.toByteArray()), readOrigin)
+
+        then:
+        1 * delegate.unpack(entity, _, readOrigin) >> { args ->
+            unpackedContent = (args[1] as InputStream).bytes
+            null
+        }
+        unpackedContent == content
+
+        where:
+        packCompression                      | unpackCompression
+        BuildCacheEntryCompression.GZIP      | BuildCacheEntryCompression.GZIP
+        BuildCacheEntryCompression.GZIP      | BuildCacheEntryCompression.FAST_GZIP
+        BuildCacheEntryCompression.FAST_GZIP | BuildCacheEntryCompression.GZIP
+        BuildCacheEntryCompression.FAST_GZIP | BuildCacheEntryCompression.FAST_GZIP
+    }
+    @Unroll
+    def "finds compression by name '#name'"() {
+        expect:
+        BuildCacheEntryCompression.forName(name) == compression
+
+        where:
+        name        | compression
+        "gzip"      | BuildCacheEntryCompression.GZIP
+        "fast-gzip" | BuildCacheEntryCompression.FAST_GZIP
+        "FAST-GZIP" | BuildCacheEntryCompression.FAST_GZIP
+    }
+
+    def "reports supported compressions for unknown name"() {
+        when:
+        BuildCacheEntryCompression.forName("zstd")
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message == "Unknown build cache entry compression 'zstd'. Supported compressions are: gzip, fast-gzip."
+    }
+}
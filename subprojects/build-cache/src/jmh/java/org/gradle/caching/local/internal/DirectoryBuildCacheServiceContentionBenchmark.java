@@ -0,0 +1,234 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.local.internal;
+
+import com.google.common.util.concurrent.Striped;
+import org.apache.commons.io.FileUtils;
+import org.gradle.api.Action;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.cache.PersistentIndexedCacheParameters;
+import org.gradle.caching.BuildCacheEntryReader;
+import org.gradle.caching.BuildCacheEntryWriter;
+import org.gradle.caching.BuildCacheKey;
+import org.gradle.internal.Factory;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.resource.local.DefaultPathKeyFileStore;
+import org.gradle.internal.resource.local.FileAccessTracker;
+import org.gradle.internal.serialize.Serializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stores and loads entries of different keys in a directory build cache from 32 threads at once.
+ *
+ * The {@code global} lock mode guards all entries with a single lock, as the cache did before entries were locked per key,
+ * and is the baseline to compare the {@code perKey} mode against.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Threads(32)
+@State(Scope.Benchmark)
+public class DirectoryBuildCacheServiceContentionBenchmark {
+    private static final int ENTRY_SIZE = 16 * 1024;
+    private static final int LOADED_ENTRY_COUNT = 1024;
+
+    @Param({"perKey", "global"})
+    String lockMode;
+
+    File cacheDir;
+    DirectoryBuildCacheService service;
+    AtomicLong counter;
+    byte[] content;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws IOException {
+        cacheDir = Files.createTempDirectory("build-cache-contention-benchmark").toFile();
+        service = new DirectoryBuildCacheService(
+            new DefaultPathKeyFileStore(null, cacheDir),
+            new DirectoryPersistentCache(cacheDir),
+            new DefaultBuildCacheTempFileStore(cacheDir),
+            new IgnoringFileAccessTracker(),
+            ".failed",
+            null,
+            lockMode.equals("global") ? Striped.readWriteLock(1) : DirectoryBuildCacheService.createEntryLocks()
+        );
+        counter = new AtomicLong();
+        content = new byte[ENTRY_SIZE];
+        ThreadLocalRandom.current().nextBytes(content);
+        for (int i = 0; i < LOADED_ENTRY_COUNT; i++) {
+            store(new Key(i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws IOException {
+        FileUtils.forceDelete(cacheDir);
+    }
+
+    @Benchmark
+    public void store() {
+        store(new Key(LOADED_ENTRY_COUNT + counter.incrementAndGet()));
+    }
+
+    @Benchmark
+    public void load(Blackhole blackhole) {
+        Key key = new Key(ThreadLocalRandom.current().nextInt(LOADED_ENTRY_COUNT));
+        blackhole.consume(service.load(key, new BuildCacheEntryReader() {
+            @Override
+            public void readFrom(InputStream input) throws IOException {
+                byte[] buffer = new byte[8192];
+                while (input.read(buffer) >= 0) {
+                    blackhole.consume(buffer);
+                }
+            }
+        }));
+    }
+
+    private void store(Key key) {
+        service.store(key, new BuildCacheEntryWriter() {
+            @Override
+            public void writeTo(OutputStream output) throws IOException {
+                output.write(content);
+            }
+
+            @Override
+            public long getSize() {
+                return content.length;
+            }
+        });
+    }
+
+    private static class Key implements BuildCacheKey {
+        private final String hashCode;
+
+        Key(long value) {
+            this.hashCode = String.format("%016x", value);
+        }
+
+        @Override
+        public String getHashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public byte[] toByteArray() {
+            return HashCode.fromString(hashCode).toByteArray();
+        }
+
+        @Override
+        public String getDisplayName() {
+            return hashCode;
+        }
+    }
+
+    private static class IgnoringFileAccessTracker implements FileAccessTracker {
+        @Override
+        public void markAccessed(File file) {
+        }
+
+        @Override
+        public void markAccessed(Collection<File> files) {
+        }
+    }
+
+    /**
+     * Runs actions without any cross-process locking, so only the locking done by the service itself is measured.
+     */
+    private static class DirectoryPersistentCache implements PersistentCache {
+        private final File baseDir;
+
+        DirectoryPersistentCache(File baseDir) {
+            this.baseDir = baseDir;
+        }
+
+        @Override
+        public File getBaseDir() {
+            return baseDir;
+        }
+
+        @Override
+        public Collection<File> getReservedCacheFiles() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "benchmark build cache";
+        }
+
+        @Override
+        public <K, V> PersistentIndexedCache<K, V> createCache(PersistentIndexedCacheParameters<K, V> parameters) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <K, V> PersistentIndexedCache<K, V> createCache(String name, Class<K> keyType, Serializer<V> valueSerializer) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <K, V> boolean cacheExists(PersistentIndexedCacheParameters<K, V> parameters) {
+            return false;
+        }
+
+        @Override
+        public <T> T useCache(Factory<? extends T> action) {
+            return action.create();
+        }
+
+        @Override
+        public void useCache(Runnable action) {
+            action.run();
+        }
+
+        @Override
+        public <T> T withFileLock(Factory<? extends T> action) {
+            return action.create();
+        }
+
+        @Override
+        public void withFileLock(Runnable action) {
+            action.run();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
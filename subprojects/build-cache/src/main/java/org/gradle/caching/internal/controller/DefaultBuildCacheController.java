@@ -17,6 +17,7 @@
 package org.gradle.caching.internal.controller;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.io.ByteStreams;
 import com.google.common.io.Closer;
 import org.gradle.api.Action;
 import org.gradle.api.GradleException;
@@ -40,6 +41,7 @@
 import org.gradle.caching.local.internal.DefaultBuildCacheTempFileStore;
 import org.gradle.caching.local.internal.LocalBuildCacheService;
 import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.operations.BuildOperationContext;
 import org.gradle.internal.operations.BuildOperationDescriptor;
 import org.gradle.internal.operations.BuildOperationExecutor;
@@ -49,10 +51,13 @@
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.util.Optional;
+import java.util.concurrent.Callable;
 
 public class DefaultBuildCacheController implements BuildCacheController {
 
@@ -65,6 +70,9 @@ public class DefaultBuildCacheController implements BuildCacheController {
     private final BuildCacheTempFileStore tmp;
     private final BuildOperationExecutor buildOperationExecutor;
     private final boolean emitDebugLogging;
+    private final boolean streamRemoteLoads;
+    @Nullable
+    private final RemoteStoreQueue remoteStoreQueue;
 
     private boolean closed;
 
@@ -74,12 +82,35 @@ public DefaultBuildCacheController(
         File gradleUserHomeDir,
         boolean logStackTraces,
         boolean emitDebugLogging
+    ) {
+        this(config, buildOperationExecutor, gradleUserHomeDir, logStackTraces, emitDebugLogging, null, false);
+    }
+
+    /**
+     * Creates a controller which stores entries in the remote cache in the background when given an executor factory.
+     * Storing an entry then only waits for the local cache, and the controller waits for the remote stores when closed.
+     *
+     * When {@code streamRemoteLoads} is set, entries from the remote cache are unpacked while they are downloaded.
+     * A failure while doing so fails the load, since the outputs have been changed already.
+     */
+    public DefaultBuildCacheController(
+        BuildCacheServicesConfiguration config,
+        BuildOperationExecutor buildOperationExecutor,
+        File gradleUserHomeDir,
+        boolean logStackTraces,
+        boolean emitDebugLogging,
+        @Nullable ExecutorFactory remoteStoreExecutorFactory,
+        boolean streamRemoteLoads
     ) {
         this.buildOperationExecutor = buildOperationExecutor;
         this.emitDebugLogging = emitDebugLogging;
+        this.streamRemoteLoads = streamRemoteLoads;
         this.local = toLocalHandle(config.getLocal(), config.isLocalPush());
         this.remote = toRemoteHandle(config.getRemote(), config.isRemotePush(), buildOperationExecutor, logStackTraces);
         this.tmp = toTempFileStore(config.getLocal(), gradleUserHomeDir);
+        this.remoteStoreQueue = remoteStoreExecutorFactory != null && remote.canStore()
+            ? new RemoteStoreQueue(remote, new File(gradleUserHomeDir, "build-cache-tmp/remote-store-queue"), remoteStoreExecutorFactory)
+            : null;
     }
 
     @Override
@@ -108,7 +139,17 @@ public <T> Optional<T> load(BuildCacheLoadCommand<T> command) {
             }
         }
 
-        if (remote.canLoad()) {
+        if (remote.canLoad() && streamRemoteLoads) {
+            tmp.withTempFile(command.getKey(), file -> {
+                UnpackingLoadTarget loadTarget = new UnpackingLoadTarget(file, unpack);
+                remote.load(command.getKey(), loadTarget);
+                loadTarget.rethrowFailure(command.getKey());
+
+                if (loadTarget.isLoaded() && local.canStore()) {
+                    local.store(command.getKey(), file);
+                }
+            });
+        } else if (remote.canLoad()) {
             tmp.withTempFile(command.getKey(), file -> {
                 LoadTarget loadTarget = new LoadTarget(file);
                 remote.load(command.getKey(), loadTarget);
@@ -143,13 +184,30 @@ private Unpack(BuildCacheLoadCommand<T> command) {
 
         @Override
         public void execute(File file) {
+            unpack(file.length(), () -> {
+                try (InputStream input = new FileInputStream(file)) {
+                    return command.load(input);
+                }
+            });
+        }
+
+        /**
+         * Unpacks an entry which is still being downloaded, so its size is not known yet.
+         */
+        public void execute(InputStream input) {
+            unpack(-1, () -> command.load(input));
+        }
+
+        private void unpack(long archiveSize, Callable<BuildCacheLoadCommand.Result<T>> load) {
             buildOperationExecutor.run(new RunnableBuildOperation() {
                 @Override
                 public void run(BuildOperationContext context) {
-                    try (InputStream input = new FileInputStream(file)) {
-                        result = command.load(input);
+                    try {
+                        result = load.call();
                     } catch (IOException e) {
                         throw new UncheckedIOException(e);
+                    } catch (Exception e) {
+                        throw UncheckedException.throwAsUncheckedException(e);
                     }
                     context.setResult(new UnpackOperationResult(
                         result.getArtifactEntryCount()
@@ -159,13 +217,121 @@ public void run(BuildOperationContext context) {
                 @Override
                 public BuildOperationDescriptor.Builder description() {
                     return BuildOperationDescriptor.displayName("Unpack build cache entry " + command.getKey().getHashCode())
-                        .details(new UnpackOperationDetails(command.getKey(), file.length()))
+                        .details(new UnpackOperationDetails(command.getKey(), archiveSize))
                         .progressDisplayName("Unpacking build cache entry");
                 }
             });
         }
     }
 
+    /**
+     * Unpacks an entry from the remote cache while it is downloaded, and writes it to the given file at the same time,
+     * so it can be added to the local cache without reading it again.
+     *
+     * The remaining bytes are only copied to the file when unpacking succeeded, so an invalid entry never reaches the local cache.
+     */
+    private static class UnpackingLoadTarget extends LoadTarget {
+        private final Unpack<?> unpack;
+        private Exception unpackFailure;
+        private IOException downloadFailure;
+
+        UnpackingLoadTarget(File file, Unpack<?> unpack) {
+            super(file);
+            this.unpack = unpack;
+        }
+
+        @Override
+        protected void load(InputStream input, File file) throws IOException {
+            try (OutputStream output = new FileOutputStream(file)) {
+                TeeInputStream tee = new TeeInputStream(input, output);
+                try {
+                    unpack.execute(tee);
+                } catch (Exception e) {
+                    if (tee.readFailure != null) {
+                        downloadFailure = tee.readFailure;
+                        throw tee.readFailure;
+                    }
+                    unpackFailure = e;
+                    return;
+                }
+                ByteStreams.copy(input, output);
+            }
+        }
+
+        /**
+         * Throws when the outputs have been partially unpacked, since we can neither use them nor fall back to a cache miss then.
+         */
+        void rethrowFailure(BuildCacheKey key) {
+            if (unpackFailure != null) {
+                throw new GradleException("Build cache entry " + key.getHashCode() + " from remote build cache is invalid", unpackFailure);
+            }
+            if (downloadFailure != null) {
+                throw new GradleException("Build cache entry " + key.getHashCode() + " from remote build cache could not be downloaded while unpacking it", downloadFailure);
+            }
+        }
+    }
+
+    /**
+     * Copies everything read from the remote cache to the given output, and remembers when reading from the remote cache failed.
+     */
+    private static class TeeInputStream extends FilterInputStream {
+        private final OutputStream copy;
+        private IOException readFailure;
+
+        TeeInputStream(InputStream input, OutputStream copy) {
+            super(input);
+            this.copy = copy;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b;
+            try {
+                b = in.read();
+            } catch (IOException e) {
+                readFailure = e;
+                throw e;
+            }
+            if (b >= 0) {
+                copy.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int count;
+            try {
+                count = in.read(b, off, len);
+            } catch (IOException e) {
+                readFailure = e;
+                throw e;
+            }
+            if (count > 0) {
+                copy.write(b, off, count);
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Skipped bytes still need to be copied
+            byte[] buffer = new byte[(int) Math.min(n, 8192)];
+            int count = read(buffer, 0, buffer.length);
+            return Math.max(count, 0);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+            // The rest of the entry is copied after unpacking, and the remote cache closes its stream itself
+        }
+    }
+
     @Override
     public void store(BuildCacheStoreCommand command) {
         if (!local.canStore() && !remote.canStore()) {
@@ -178,7 +344,7 @@ public void store(BuildCacheStoreCommand command) {
         tmp.withTempFile(command.getKey(), file -> {
             pack.execute(file);
 
-            if (remote.canStore()) {
+            if (remote.canStore() && (remoteStoreQueue == null || !remoteStoreQueue.offer(key, file))) {
                 remote.store(key, new StoreTarget(file));
             }
 
@@ -229,6 +395,10 @@ public void close() throws IOException {
             Closer closer = Closer.create();
             closer.register(local);
             closer.register(remote);
+            if (remoteStoreQueue != null) {
+                // Closed first, so queued entries are stored before the remote cache is closed
+                closer.register(remoteStoreQueue);
+            }
             closer.close();
         }
     }
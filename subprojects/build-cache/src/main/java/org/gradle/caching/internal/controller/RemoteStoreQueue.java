@@ -0,0 +1,147 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.controller;
+
+import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.internal.controller.service.BuildCacheServiceHandle;
+import org.gradle.caching.internal.controller.service.StoreTarget;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stores entries in the remote build cache in the background, so the work producing an entry does not wait for the upload.
+ *
+ * Queued entries are copied to a spool directory, since the packed entry is removed or moved to the local cache once it has been stored.
+ * Spooled entries left behind by a process which died before storing them are deleted when a queue is created.
+ * The number and total size of queued entries is limited. An entry which does not fit into the queue is not queued,
+ * and the caller stores it synchronously instead. Closing the queue waits for all queued entries to be stored.
+ *
+ * Failures are handled by the {@link BuildCacheServiceHandle}, which reports them and disables the remote cache without failing the build.
+ */
+class RemoteStoreQueue implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RemoteStoreQueue.class);
+
+    static final int MAX_QUEUED_ENTRIES = 64;
+    static final long MAX_QUEUED_BYTES = 512L * 1024 * 1024;
+    private static final int UPLOAD_THREADS = 4;
+    /**
+     * Spooled entries older than this are left over from a process which died, since queued entries are stored within a build.
+     * The spool directory is shared by all daemons using the same Gradle user home, so younger entries may still be queued by another daemon.
+     */
+    static final long STALE_ENTRY_AGE_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private final BuildCacheServiceHandle remote;
+    private final File spoolDir;
+    private final ManagedExecutor executor;
+    private final int maxQueuedEntries;
+    private final long maxQueuedBytes;
+
+    private int queuedEntries;
+    private long queuedBytes;
+
+    RemoteStoreQueue(BuildCacheServiceHandle remote, File spoolDir, ExecutorFactory executorFactory) {
+        this(remote, spoolDir, executorFactory, MAX_QUEUED_ENTRIES, MAX_QUEUED_BYTES);
+    }
+
+    RemoteStoreQueue(BuildCacheServiceHandle remote, File spoolDir, ExecutorFactory executorFactory, int maxQueuedEntries, long maxQueuedBytes) {
+        this.remote = remote;
+        this.spoolDir = spoolDir;
+        this.executor = executorFactory.create("Build cache remote store", UPLOAD_THREADS);
+        this.maxQueuedEntries = maxQueuedEntries;
+        this.maxQueuedBytes = maxQueuedBytes;
+        deleteStaleEntries();
+    }
+
+    private void deleteStaleEntries() {
+        File[] entries = spoolDir.listFiles();
+        if (entries == null) {
+            return;
+        }
+        long staleBefore = System.currentTimeMillis() - STALE_ENTRY_AGE_MILLIS;
+        for (File entry : entries) {
+            if (entry.isFile() && entry.lastModified() < staleBefore && !entry.delete()) {
+                LOGGER.debug("Could not delete stale queued build cache entry {}.", entry);
+            }
+        }
+    }
+
+    /**
+     * Queues the given packed entry to be stored in the remote cache.
+     *
+     * @return whether the entry has been queued. If not, the caller needs to store the entry itself.
+     */
+    public boolean offer(BuildCacheKey key, File entry) {
+        long size = entry.length();
+        if (!reserve(size)) {
+            return false;
+        }
+        File queuedEntry;
+        try {
+            Files.createDirectories(spoolDir.toPath());
+            queuedEntry = File.createTempFile("entry", ".bin", spoolDir);
+            Files.copy(entry.toPath(), queuedEntry.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LOGGER.debug("Could not queue entry {} for remote build cache, storing it directly.", key.getDisplayName(), e);
+            release(size);
+            return false;
+        }
+        executor.execute(() -> {
+            try {
+                if (remote.canStore()) {
+                    remote.store(key, new StoreTarget(queuedEntry));
+                }
+            } finally {
+                if (!queuedEntry.delete()) {
+                    LOGGER.debug("Could not delete queued build cache entry {}.", queuedEntry);
+                }
+                release(size);
+            }
+        });
+        return true;
+    }
+
+    private synchronized boolean reserve(long size) {
+        if (queuedEntries >= maxQueuedEntries || queuedBytes + size > maxQueuedBytes) {
+            return false;
+        }
+        queuedEntries++;
+        queuedBytes += size;
+        return true;
+    }
+
+    private synchronized void release(long size) {
+        queuedEntries--;
+        queuedBytes -= size;
+    }
+
+    /**
+     * Waits for all queued entries to be stored.
+     */
+    @Override
+    public void close() {
+        executor.stop();
+    }
+}
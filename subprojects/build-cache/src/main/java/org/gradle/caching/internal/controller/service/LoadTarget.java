@@ -41,7 +41,7 @@ public void readFrom(InputStream input) throws IOException {
             if (loaded) {
                 throw new IllegalStateException("Build cache entry has already been read");
             }
-            Files.asByteSink(file).writeFrom(input);
+            load(input, file);
             loaded = true;
         } catch (Exception e) {
             throw closer.rethrow(e);
@@ -50,6 +50,13 @@ public void readFrom(InputStream input) throws IOException {
         }
     }
 
+    /**
+     * Reads the entry from the given input into the given file.
+     */
+    protected void load(InputStream input, File file) throws IOException {
+        Files.asByteSink(file).writeFrom(input);
+    }
+
     public boolean isLoaded() {
         return loaded;
     }
@@ -29,6 +29,9 @@ public interface Details {
          */
         String getCacheKey();
 
+        /**
+         * The size of the archive, or -1 when it is unpacked while it is downloaded.
+         */
         long getArchiveSize();
 
     }
@@ -16,7 +16,9 @@
 
 package org.gradle.caching.local.internal;
 
+import com.google.common.base.Throwables;
 import com.google.common.io.Closer;
+import com.google.common.util.concurrent.Striped;
 import org.gradle.api.Action;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.cache.PersistentCache;
@@ -32,12 +34,13 @@
 import org.gradle.util.GFileUtils;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class DirectoryBuildCacheService implements LocalBuildCacheService, BuildCacheService {
 
@@ -46,14 +49,29 @@ public class DirectoryBuildCacheService implements LocalBuildCacheService, Build
     private final BuildCacheTempFileStore tempFileStore;
     private final FileAccessTracker fileAccessTracker;
     private final String failedFileSuffix;
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final DirectoryBuildCacheSizeIndex sizeIndex;
+    // Entries are independent of each other, so only loads, stores and removals of the same key need to exclude each other
+    private final Striped<ReadWriteLock> locks;
 
     public DirectoryBuildCacheService(PathKeyFileStore fileStore, PersistentCache persistentCache, BuildCacheTempFileStore tempFileStore, FileAccessTracker fileAccessTracker, String failedFileSuffix) {
+        this(fileStore, persistentCache, tempFileStore, fileAccessTracker, failedFileSuffix, null, createEntryLocks());
+    }
+
+    public DirectoryBuildCacheService(PathKeyFileStore fileStore, PersistentCache persistentCache, BuildCacheTempFileStore tempFileStore, FileAccessTracker fileAccessTracker, String failedFileSuffix, @Nullable DirectoryBuildCacheSizeIndex sizeIndex, Striped<ReadWriteLock> locks) {
         this.fileStore = fileStore;
         this.persistentCache = persistentCache;
         this.tempFileStore = tempFileStore;
         this.fileAccessTracker = fileAccessTracker;
         this.failedFileSuffix = failedFileSuffix;
+        this.sizeIndex = sizeIndex;
+        this.locks = locks;
+    }
+
+    /**
+     * Creates the locks guarding the entries of a cache directory, keyed by the hash code of the entry's cache key, which is also the entry's file name.
+     */
+    static Striped<ReadWriteLock> createEntryLocks() {
+        return Striped.readWriteLock(Runtime.getRuntime().availableProcessors() * 4);
     }
 
     private static class LoadAction implements Action<File> {
@@ -94,6 +112,7 @@ public void loadLocally(final BuildCacheKey key, final Action<? super File> read
         persistentCache.withFileLock(new Runnable() {
             @Override
             public void run() {
+                ReadWriteLock lock = locks.get(key.getHashCode());
                 lock.readLock().lock();
                 try {
                     loadInsideLock(key, reader);
@@ -116,12 +135,19 @@ private void loadInsideLock(BuildCacheKey key, Action<? super File> reader) {
         try {
             reader.execute(file);
         } catch (Exception e) {
+            if (Throwables.getRootCause(e) instanceof FileNotFoundException && !file.exists()) {
+                // Removed while storing an entry with a different key pushed the cache over its maximum size
+                return;
+            }
             // Try to move the file out of the way in case its permanently corrupt
             // Don't delete, so that it can be potentially used for debugging
             File failedFile = new File(file.getAbsolutePath() + failedFileSuffix);
             GFileUtils.deleteQuietly(failedFile);
             //noinspection ResultOfMethodCallIgnored
             file.renameTo(failedFile);
+            if (sizeIndex != null) {
+                sizeIndex.removed(file);
+            }
 
             throw UncheckedException.throwAsUncheckedException(e);
         }
@@ -155,6 +181,7 @@ public void storeLocally(final BuildCacheKey key, final File file) {
         persistentCache.withFileLock(new Runnable() {
             @Override
             public void run() {
+                ReadWriteLock lock = locks.get(key.getHashCode());
                 lock.writeLock().lock();
                 try {
                     storeInsideLock(key, file);
@@ -168,6 +195,9 @@ public void run() {
     private void storeInsideLock(BuildCacheKey key, File file) {
         LocallyAvailableResource resource = fileStore.move(key.getHashCode(), file);
         fileAccessTracker.markAccessed(resource.getFile());
+        if (sizeIndex != null) {
+            sizeIndex.stored(resource.getFile());
+        }
     }
 
     @Override
@@ -182,6 +212,9 @@ public void run() {
 
     @Override
     public void close() {
+        if (sizeIndex != null) {
+            sizeIndex.close();
+        }
         persistentCache.close();
     }
 }
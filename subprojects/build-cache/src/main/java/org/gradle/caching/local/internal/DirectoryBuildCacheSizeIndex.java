@@ -0,0 +1,234 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.local.internal;
+
+import com.google.common.util.concurrent.Striped;
+import org.gradle.cache.PersistentCache;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.file.FileAccessTimeJournal;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps a directory build cache below a maximum size by removing entries in the background as new entries are stored.
+ *
+ * The size of the entries is kept in an index, which is updated as entries are stored and moved away.
+ * The index is built by listing the cache directory in the background when the first entry is stored.
+ * The directory is listed again from time to time to pick up entries stored or removed by other processes using the same directory.
+ *
+ * When the cache grows over its maximum size, entries are removed in the background until it is back below 90% of it.
+ * Entries costing the most, by their size times the time since they have last been used, are removed first.
+ * Listing the directory and removing entries only hold the cache's cross-process lock, so storing an entry never waits for them.
+ * An entry is removed while holding its write lock, so it is never removed while it is being loaded.
+ */
+class DirectoryBuildCacheSizeIndex implements Closeable {
+    private static final double LOW_WATER_MARK = 0.9;
+    private static final long RESCAN_INTERVAL = TimeUnit.MINUTES.toMillis(10);
+    private static final Pattern ENTRY_NAME = Pattern.compile("[0-9a-f]+");
+
+    private final File cacheDir;
+    private final long maxSize;
+    private final FileAccessTimeJournal journal;
+    private final PersistentCache persistentCache;
+    private final ManagedExecutor executor;
+    private final Striped<ReadWriteLock> entryLocks;
+
+    private final Map<File, Long> entrySizes = new HashMap<>();
+    private long totalSize;
+    private long lastScan = -1;
+    private boolean cleanupScheduled;
+    // Changes made while the directory is being listed, which the listing may or may not include
+    private Map<File, Long> storedDuringScan;
+    private Set<File> removedDuringScan;
+
+    DirectoryBuildCacheSizeIndex(File cacheDir, long maxSize, FileAccessTimeJournal journal, PersistentCache persistentCache, ExecutorFactory executorFactory, Striped<ReadWriteLock> entryLocks) {
+        this.cacheDir = cacheDir;
+        this.maxSize = maxSize;
+        this.journal = journal;
+        this.persistentCache = persistentCache;
+        this.executor = executorFactory.create("Build cache size limit");
+        this.entryLocks = entryLocks;
+    }
+
+    /**
+     * Records a newly stored entry, and starts removing entries in the background if the cache is too large now.
+     */
+    public void stored(File entry) {
+        long size = entry.length();
+        boolean scheduleCleanup;
+        synchronized (this) {
+            add(entry, size);
+            if (storedDuringScan != null) {
+                storedDuringScan.put(entry, size);
+                removedDuringScan.remove(entry);
+            }
+            scheduleCleanup = !cleanupScheduled && (needsScan(System.currentTimeMillis()) || totalSize > maxSize);
+            cleanupScheduled |= scheduleCleanup;
+        }
+        if (scheduleCleanup) {
+            executor.execute(() -> persistentCache.withFileLock(this::cleanup));
+        }
+    }
+
+    /**
+     * Records that an entry has been moved out of the cache.
+     */
+    public synchronized void removed(File entry) {
+        Long size = entrySizes.remove(entry);
+        if (size != null) {
+            totalSize -= size;
+        }
+        if (removedDuringScan != null) {
+            storedDuringScan.remove(entry);
+            removedDuringScan.add(entry);
+        }
+    }
+
+    synchronized long getTotalSize() {
+        return totalSize;
+    }
+
+    /**
+     * Waits for a running cleanup to finish.
+     */
+    @Override
+    public void close() {
+        executor.stop();
+    }
+
+    private boolean needsScan(long now) {
+        return lastScan < 0 || now - lastScan > RESCAN_INTERVAL;
+    }
+
+    private void cleanup() {
+        try {
+            long now = System.currentTimeMillis();
+            boolean scan;
+            synchronized (this) {
+                scan = needsScan(now);
+                if (scan) {
+                    storedDuringScan = new HashMap<>();
+                    removedDuringScan = new HashSet<>();
+                }
+            }
+            if (scan) {
+                scan(now);
+            }
+            removeEntries(now);
+        } finally {
+            synchronized (this) {
+                storedDuringScan = null;
+                removedDuringScan = null;
+                cleanupScheduled = false;
+            }
+        }
+    }
+
+    private void scan(long now) {
+        Map<File, Long> scannedSizes = new HashMap<>();
+        File[] files = cacheDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (ENTRY_NAME.matcher(file.getName()).matches() && file.isFile()) {
+                    scannedSizes.put(file, file.length());
+                }
+            }
+        }
+        synchronized (this) {
+            scannedSizes.putAll(storedDuringScan);
+            scannedSizes.keySet().removeAll(removedDuringScan);
+            entrySizes.clear();
+            totalSize = 0;
+            for (Map.Entry<File, Long> entry : scannedSizes.entrySet()) {
+                add(entry.getKey(), entry.getValue());
+            }
+            lastScan = now;
+        }
+    }
+
+    private void add(File entry, long size) {
+        Long previousSize = entrySizes.put(entry, size);
+        totalSize += size - (previousSize == null ? 0 : previousSize);
+    }
+
+    private void removeEntries(long now) {
+        Map<File, Long> sizes;
+        synchronized (this) {
+            if (totalSize <= maxSize) {
+                return;
+            }
+            sizes = new HashMap<>(entrySizes);
+        }
+        long targetSize = (long) (maxSize * LOW_WATER_MARK);
+        for (File entry : entriesByCost(sizes, now)) {
+            if (getTotalSize() <= targetSize) {
+                break;
+            }
+            if (delete(entry)) {
+                journal.deleteLastAccessTime(entry);
+                removed(entry);
+            }
+        }
+    }
+
+    private boolean delete(File entry) {
+        ReadWriteLock lock = entryLocks.get(entry.getName());
+        lock.writeLock().lock();
+        try {
+            // An entry removed by another process is gone all the same
+            return entry.delete() || !entry.exists();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<File> entriesByCost(Map<File, Long> sizes, long now) {
+        List<RemovalCandidate> candidates = new ArrayList<>(sizes.size());
+        for (Map.Entry<File, Long> entry : sizes.entrySet()) {
+            long unusedTime = Math.max(1, now - journal.getLastAccessTime(entry.getKey()));
+            candidates.add(new RemovalCandidate(entry.getKey(), (double) entry.getValue() * unusedTime));
+        }
+        candidates.sort(Comparator.comparingDouble((RemovalCandidate candidate) -> candidate.cost).reversed());
+        List<File> entries = new ArrayList<>(candidates.size());
+        for (RemovalCandidate candidate : candidates) {
+            entries.add(candidate.entry);
+        }
+        return entries;
+    }
+
+    private static class RemovalCandidate {
+        private final File entry;
+        private final double cost;
+
+        RemovalCandidate(File entry, double cost) {
+            this.entry = entry;
+            this.cost = cost;
+        }
+    }
+}
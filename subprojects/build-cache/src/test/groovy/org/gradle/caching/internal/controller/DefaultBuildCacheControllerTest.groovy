@@ -17,17 +17,22 @@
 package org.gradle.caching.internal.controller
 
 import org.gradle.api.Action
+import org.gradle.api.GradleException
 import org.gradle.caching.BuildCacheEntryReader
 import org.gradle.caching.BuildCacheEntryWriter
 import org.gradle.caching.BuildCacheKey
 import org.gradle.caching.BuildCacheService
 import org.gradle.caching.internal.controller.service.BuildCacheServicesConfiguration
 import org.gradle.caching.local.internal.LocalBuildCacheService
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.internal.operations.TestBuildOperationExecutor
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import spock.lang.Specification
 import org.junit.Rule
 
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.atomic.AtomicBoolean
+
 class DefaultBuildCacheControllerTest extends Specification {
 
     def key = Mock(BuildCacheKey) {
@@ -98,6 +103,18 @@ class DefaultBuildCacheControllerTest extends Specification {
         )
     }
 
+    BuildCacheController getStreamingController() {
+        new DefaultBuildCacheController(
+            new BuildCacheServicesConfiguration(local, localPush, remote, remotePush),
+            operations,
+            tmpDir.file("dir"),
+            false,
+            false,
+            null,
+            true
+        )
+    }
+
     def "does suppress exceptions from load"() {
         given:
         1 * remote.load(key, _) >> { throw new RuntimeException() }
@@ -124,6 +141,72 @@ class DefaultBuildCacheControllerTest extends Specification {
         1 * local.storeLocally(key, _)
     }
 
+    def "stores to remote in the background when enabled"() {
+        given:
+        def executorFactory = new DefaultExecutorFactory()
+        def controller = new DefaultBuildCacheController(
+            new BuildCacheServicesConfiguration(local, localPush, remote, remotePush),
+            operations,
+            tmpDir.file("dir"),
+            false,
+            false,
+            executorFactory,
+            false
+        )
+        def uploadAllowed = new CountDownLatch(1)
+        def uploaded = new AtomicBoolean()
+        remote.store(key, _) >> { BuildCacheKey key, BuildCacheEntryWriter writer ->
+            uploadAllowed.await()
+            writer.writeTo(new ByteArrayOutputStream())
+            uploaded.set(true)
+        }
+
+        when:
+        controller.store(storeCommand)
+
+        then:
+        1 * local.storeLocally(key, _)
+        !uploaded.get()
+
+        when:
+        uploadAllowed.countDown()
+        controller.close()
+
+        then:
+        uploaded.get()
+        tmpDir.file("dir/build-cache-tmp/remote-store-queue").list().length == 0
+
+        cleanup:
+        executorFactory.stop()
+    }
+
+    def "deletes stale queued entries when storing to remote in the background"() {
+        given:
+        def executorFactory = new DefaultExecutorFactory()
+        def staleEntry = tmpDir.file("dir/build-cache-tmp/remote-store-queue/stale.bin").createFile()
+        staleEntry.lastModified = System.currentTimeMillis() - RemoteStoreQueue.STALE_ENTRY_AGE_MILLIS - 60_000
+        def recentEntry = tmpDir.file("dir/build-cache-tmp/remote-store-queue/recent.bin").createFile()
+
+        when:
+        def controller = new DefaultBuildCacheController(
+            new BuildCacheServicesConfiguration(local, localPush, remote, remotePush),
+            operations,
+            tmpDir.file("dir"),
+            false,
+            false,
+            executorFactory,
+            false
+        )
+
+        then:
+        !staleEntry.exists()
+        recentEntry.exists()
+
+        cleanup:
+        controller?.close()
+        executorFactory.stop()
+    }
+
     def "does not store to local if local push is disabled"() {
         given:
         localPush = false
@@ -176,6 +259,88 @@ class DefaultBuildCacheControllerTest extends Specification {
         1 * local.storeLocally(key, _)
     }
 
+    def "streaming remote load unpacks while downloading and stores the whole entry to local"() {
+        given:
+        def unpacked = null
+        def loadCommand = Stub(BuildCacheLoadCommand) {
+            getKey() >> key
+            load(_ as InputStream) >> { InputStream input ->
+                unpacked = new String([input.read(), input.read()] as byte[])
+                input.close()
+                Stub(BuildCacheLoadCommand.Result) {
+                    getMetadata() >> loadmetadata
+                }
+            }
+        }
+        1 * local.loadLocally(key, _) // miss
+        1 * remote.load(key, _) >> { BuildCacheKey key, BuildCacheEntryReader reader ->
+            reader.readFrom(new ByteArrayInputStream("foobar".bytes))
+            true
+        }
+
+        when:
+        def result = streamingController.load(loadCommand)
+
+        then:
+        result.get() == loadmetadata
+        unpacked == "fo"
+        1 * local.storeLocally(key, _) >> { BuildCacheKey key, File file ->
+            assert file.text == "foobar"
+        }
+    }
+
+    def "streaming remote load does not store invalid entry to local"() {
+        given:
+        def loadCommand = Stub(BuildCacheLoadCommand) {
+            getKey() >> key
+            load(_ as InputStream) >> { InputStream input ->
+                input.read()
+                throw new IOException("corrupt")
+            }
+        }
+        1 * local.loadLocally(key, _) // miss
+        1 * remote.load(key, _) >> { BuildCacheKey key, BuildCacheEntryReader reader ->
+            reader.readFrom(new ByteArrayInputStream("foo".bytes))
+            true
+        }
+
+        when:
+        streamingController.load(loadCommand)
+
+        then:
+        def e = thrown(GradleException)
+        e.message == "Build cache entry key from remote build cache is invalid"
+        0 * local.storeLocally(key, _)
+    }
+
+    def "streaming remote load fails when download fails while unpacking"() {
+        given:
+        def loadCommand = Stub(BuildCacheLoadCommand) {
+            getKey() >> key
+            load(_ as InputStream) >> { InputStream input ->
+                input.read()
+                input.read()
+            }
+        }
+        1 * local.loadLocally(key, _) // miss
+        1 * remote.load(key, _) >> { BuildCacheKey key, BuildCacheEntryReader reader ->
+            def input = Stub(InputStream) {
+                read() >>> [1] >> { throw new IOException("connection reset") }
+            }
+            reader.readFrom(input)
+            true
+        }
+
+        when:
+        streamingController.load(loadCommand)
+
+        then:
+        def e = thrown(GradleException)
+        e.message == "Build cache entry key from remote build cache could not be downloaded while unpacking it"
+        e.cause.message == "connection reset"
+        0 * local.storeLocally(key, _)
+    }
+
     def "remote load does not store to local if local is disabled"() {
         given:
         local = null
@@ -16,6 +16,8 @@
 
 package org.gradle.caching.local.internal
 
+import org.gradle.api.Action
+import org.gradle.api.UncheckedIOException
 import org.gradle.cache.PersistentCache
 import org.gradle.caching.BuildCacheEntryReader
 import org.gradle.caching.BuildCacheEntryWriter
@@ -29,6 +31,9 @@ import org.gradle.util.UsesNativeServices
 import org.junit.Rule
 import spock.lang.Specification
 
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
 @UsesNativeServices
 @CleanupTestDirectory
 class DirectoryBuildCacheServiceTest extends Specification {
@@ -133,4 +138,144 @@ class DirectoryBuildCacheServiceTest extends Specification {
         1 * fileAccessTracker.markAccessed(cachedFile)
         loaded
     }
+
+    def "treats entry removed while loading it as a miss"() {
+        given:
+        service.storeLocally(key, createEntry("foo"))
+
+        when:
+        service.loadLocally(key, { File file ->
+            // Removed by another store pushing the cache over its maximum size
+            assert file.delete()
+            new FileInputStream(file)
+        } as Action<File>)
+
+        then:
+        noExceptionThrown()
+        !cacheDir.file("${hashCode}.failed").exists()
+    }
+
+    def "moves entry which cannot be read out of the way"() {
+        given:
+        service.storeLocally(key, createEntry("foo"))
+
+        when:
+        service.loadLocally(key, { File file ->
+            throw new FileNotFoundException(file.path)
+        } as Action<File>)
+
+        then:
+        def e = thrown(UncheckedIOException)
+        e.cause instanceof FileNotFoundException
+        !cacheDir.file(hashCode).exists()
+        cacheDir.file("${hashCode}.failed").exists()
+    }
+
+    def "stores entry while an entry with another key is being loaded"() {
+        given:
+        def otherKey = keyWithOtherLock()
+        service.storeLocally(key, createEntry("foo"))
+        def loader = new BlockingLoader(key)
+        def stored = new CountDownLatch(1)
+
+        when:
+        loader.start()
+        def storer = Thread.start {
+            service.storeLocally(otherKey, createEntry("bar"))
+            stored.countDown()
+        }
+
+        then:
+        stored.await(10, TimeUnit.SECONDS)
+
+        cleanup:
+        loader.finish()
+        storer?.join()
+    }
+
+    def "waits for loading an entry to finish before storing an entry with the same key"() {
+        given:
+        service.storeLocally(key, createEntry("foo"))
+        def loader = new BlockingLoader(key)
+        def stored = new CountDownLatch(1)
+
+        when:
+        loader.start()
+        def storer = Thread.start {
+            service.storeLocally(key, createEntry("bar"))
+            stored.countDown()
+        }
+
+        then:
+        !stored.await(200, TimeUnit.MILLISECONDS)
+        loader.finish() == "foo"
+        stored.await(10, TimeUnit.SECONDS)
+
+        cleanup:
+        loader.finish()
+        storer?.join()
+    }
+
+    def "loads an entry while it is being loaded by another thread"() {
+        given:
+        service.storeLocally(key, createEntry("foo"))
+        def loader = new BlockingLoader(key)
+        String loaded = null
+
+        when:
+        loader.start()
+        service.loadLocally(key, { File file -> loaded = file.text } as Action<File>)
+
+        then:
+        loaded == "foo"
+
+        cleanup:
+        loader.finish()
+    }
+
+    private File createEntry(String content) {
+        def file = temporaryFolder.createFile("entry-${UUID.randomUUID()}")
+        file.text = content
+        return file
+    }
+
+    private BuildCacheKey keyWithOtherLock() {
+        def lock = service.locks.get(hashCode)
+        def otherHashCode = (0..1000).collect { String.format("%08x", it) }.find { service.locks.get(it) != lock }
+        return Stub(BuildCacheKey) {
+            getHashCode() >> otherHashCode
+        }
+    }
+
+    /**
+     * Loads an entry on another thread, and keeps it locked until finished.
+     */
+    private class BlockingLoader {
+        private final BuildCacheKey key
+        private final CountDownLatch loading = new CountDownLatch(1)
+        private final CountDownLatch release = new CountDownLatch(1)
+        private Thread thread
+        private String content
+
+        BlockingLoader(BuildCacheKey key) {
+            this.key = key
+        }
+
+        void start() {
+            thread = Thread.start {
+                service.loadLocally(key, { File file ->
+                    content = file.text
+                    loading.countDown()
+                    release.await(10, TimeUnit.SECONDS)
+                } as Action<File>)
+            }
+            assert loading.await(10, TimeUnit.SECONDS)
+        }
+
+        String finish() {
+            release.countDown()
+            thread.join()
+            return content
+        }
+    }
 }
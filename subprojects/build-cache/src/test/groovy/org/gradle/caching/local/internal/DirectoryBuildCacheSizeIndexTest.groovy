@@ -0,0 +1,212 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.local.internal
+
+import org.gradle.cache.PersistentCache
+import org.gradle.internal.concurrent.ExecutorFactory
+import org.gradle.internal.concurrent.ManagedExecutor
+import org.gradle.internal.file.FileAccessTimeJournal
+import org.gradle.test.fixtures.file.CleanupTestDirectory
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+@CleanupTestDirectory
+class DirectoryBuildCacheSizeIndexTest extends Specification {
+    @Rule TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider(getClass())
+    def cacheDir = temporaryFolder.createDir("cache")
+    def accessTimes = [:]
+    def journal = Mock(FileAccessTimeJournal) {
+        getLastAccessTime(_) >> { File file -> accessTimes[file.name] ?: 0L }
+    }
+    def scheduledCleanups = []
+    def executorFactory = Stub(ExecutorFactory) {
+        create(_) >> Stub(ManagedExecutor) {
+            execute(_) >> { Runnable cleanup -> scheduledCleanups << cleanup }
+        }
+    }
+    def persistentCache = Stub(PersistentCache) {
+        withFileLock(_ as Runnable) >> { Runnable action -> action.run() }
+    }
+    def entryLocks = DirectoryBuildCacheService.createEntryLocks()
+    def index = new DirectoryBuildCacheSizeIndex(cacheDir, 1000, journal, persistentCache, executorFactory, entryLocks)
+
+    def "counts existing entries when the first entry is stored"() {
+        entry("aaaa", 100)
+        entry("bbbb", 200)
+        cacheDir.file("cccc.failed") << "x" * 300
+        cacheDir.file("gc.properties") << "x" * 300
+
+        when:
+        store(entry("dddd", 50))
+
+        then:
+        index.totalSize == 350
+    }
+
+    def "does not remove entries while the cache is small enough"() {
+        when:
+        store(entry("aaaa", 600))
+        store(entry("bbbb", 400))
+
+        then:
+        index.totalSize == 1000
+        cacheDir.list() as Set == ["aaaa", "bbbb"] as Set
+    }
+
+    def "removes the most costly entries until the cache is below its low water mark"() {
+        def now = System.currentTimeMillis()
+        accessTimes["aaaa"] = now - 1000
+        accessTimes["bbbb"] = now - 100_000
+        accessTimes["cccc"] = now - 10_000
+        accessTimes["dddd"] = now
+
+        store(entry("aaaa", 300))
+        store(entry("bbbb", 300))
+        store(entry("cccc", 300))
+
+        when:
+        store(entry("dddd", 300))
+
+        then:
+        index.totalSize == 900
+        cacheDir.list() as Set == ["aaaa", "cccc", "dddd"] as Set
+    }
+
+    def "prefers removing large entries over recently used small ones"() {
+        def now = System.currentTimeMillis()
+        accessTimes["aaaa"] = now - 10_000
+        accessTimes["bbbb"] = now - 5_000
+        accessTimes["cccc"] = now
+
+        store(entry("aaaa", 100))
+        store(entry("bbbb", 800))
+
+        when:
+        store(entry("cccc", 200))
+
+        then:
+        index.totalSize == 300
+        cacheDir.list() as Set == ["aaaa", "cccc"] as Set
+    }
+
+    def "does not count entries that have been moved away"() {
+        def corrupt = entry("aaaa", 600)
+        store(corrupt)
+        corrupt.renameTo(cacheDir.file("aaaa.failed"))
+
+        when:
+        index.removed(corrupt)
+        store(entry("bbbb", 600))
+
+        then:
+        index.totalSize == 600
+        cacheDir.file("bbbb").exists()
+    }
+
+    def "keeps counting entries that cannot be deleted"() {
+        def now = System.currentTimeMillis()
+        accessTimes["aaaa"] = now - 100_000
+        store(entry("bbbb", 100))
+        def undeletable = new File(entry("aaaa", 600).path) {
+            @Override
+            boolean delete() {
+                return false
+            }
+        }
+        store(undeletable)
+
+        when:
+        store(entry("cccc", 600))
+
+        then:
+        index.totalSize == 600
+        cacheDir.list() as Set == ["aaaa"] as Set
+        0 * journal.deleteLastAccessTime(undeletable)
+    }
+
+    def "does not remove an entry while it is being loaded"() {
+        def now = System.currentTimeMillis()
+        accessTimes["aaaa"] = now - 100_000
+        accessTimes["bbbb"] = now
+        store(entry("aaaa", 600))
+        def loadLock = entryLocks.get("aaaa").readLock()
+        loadLock.lock()
+        index.stored(entry("bbbb", 600))
+        def cleanup = new Thread(scheduledCleanups.remove(0) as Runnable)
+
+        when:
+        cleanup.start()
+        cleanup.join(100)
+
+        then:
+        cleanup.alive
+        cacheDir.file("aaaa").exists()
+
+        when:
+        loadLock.unlock()
+        cleanup.join()
+
+        then:
+        index.totalSize == 600
+        cacheDir.list() as Set == ["bbbb"] as Set
+    }
+
+    def "does not list the directory or remove entries while storing"() {
+        entry("aaaa", 600)
+
+        when:
+        index.stored(entry("bbbb", 600))
+
+        then:
+        index.totalSize == 600
+        cacheDir.list() as Set == ["aaaa", "bbbb"] as Set
+        scheduledCleanups.size() == 1
+
+        when:
+        index.stored(entry("cccc", 100))
+
+        then:
+        index.totalSize == 700
+        scheduledCleanups.size() == 1
+
+        when:
+        runCleanups()
+
+        then:
+        index.totalSize <= 900
+        cacheDir.list().length < 3
+    }
+
+    private void store(TestFile entry) {
+        index.stored(entry)
+        runCleanups()
+    }
+
+    private void runCleanups() {
+        while (!scheduledCleanups.empty) {
+            scheduledCleanups.remove(0).run()
+        }
+    }
+
+    private TestFile entry(String name, int size) {
+        def file = cacheDir.file(name)
+        file.bytes = new byte[size]
+        return file
+    }
+}
@@ -16,6 +16,7 @@
 
 package org.gradle.caching.local;
 
+import org.gradle.api.Incubating;
 import org.gradle.caching.configuration.AbstractBuildCache;
 
 import javax.annotation.Nullable;
@@ -29,6 +30,7 @@
 public class DirectoryBuildCache extends AbstractBuildCache {
     private Object directory;
     private int removeUnusedEntriesAfterDays = 7;
+    private Long maxSizeInMegabytes;
 
     /**
      * Returns the directory to use to store the build cache.
@@ -69,4 +71,33 @@ public void setRemoveUnusedEntriesAfterDays(int removeUnusedEntriesAfterDays) {
         }
         this.removeUnusedEntriesAfterDays = removeUnusedEntriesAfterDays;
     }
+
+    /**
+     * Returns the maximum size of the cache in megabytes, or {@code null} if the size is not limited. Defaults to {@code null}.
+     *
+     * When the cache grows larger than this, the least valuable entries are removed in the background.
+     * Unused entries are garbage collected regardless of this limit.
+     *
+     * @since 6.5
+     */
+    @Incubating
+    @Nullable
+    public Long getMaxSizeInMegabytes() {
+        return maxSizeInMegabytes;
+    }
+
+    /**
+     * Sets the maximum size of the cache in megabytes, or {@code null} to not limit the size.
+     *
+     * Must be at least 1 megabyte.
+     *
+     * @since 6.5
+     */
+    @Incubating
+    public void setMaxSizeInMegabytes(@Nullable Long maxSizeInMegabytes) {
+        if (maxSizeInMegabytes != null && maxSizeInMegabytes < 1) {
+            throw new IllegalArgumentException("Directory build cache needs a maximum size of at least 1 megabyte.");
+        }
+        this.maxSizeInMegabytes = maxSizeInMegabytes;
+    }
 }
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.gradle.api.Action;
+import org.gradle.api.Project;
+import org.gradle.internal.resources.ResourceLock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes a synthetic graph of many short independent nodes and a few long chains of dependent nodes on a fixed number of workers.
+ *
+ * Like {@link DefaultExecutionPlan}, the workers always start the first ready node of the execution queue.
+ * In plan order, the short nodes come first and the long chains start late.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class CriticalPathSchedulingBenchmark {
+    private static final int WORKERS = 4;
+    private static final long SHORT_NODE_WORK = 10_000;
+    private static final long LONG_NODE_WORK = 100_000;
+
+    @Param({"plan-order", "critical-path"})
+    String strategy;
+
+    @Param({"200"})
+    int width;
+
+    @Param({"20"})
+    int depth;
+
+    @Param({"2"})
+    int chains;
+
+    private ExecutorService workers;
+    private List<SyntheticNode> nodes;
+    private LinkedList<Node> executionQueue;
+
+    @Setup(Level.Trial)
+    public void createWorkers() {
+        workers = Executors.newFixedThreadPool(WORKERS);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopWorkers() {
+        workers.shutdownNow();
+    }
+
+    @Setup(Level.Invocation)
+    public void createGraph() {
+        nodes = new ArrayList<>();
+        List<Node> plan = new ArrayList<>();
+        for (int i = 0; i < width; i++) {
+            plan.add(node(SHORT_NODE_WORK));
+        }
+        for (int chain = 0; chain < chains; chain++) {
+            SyntheticNode previous = null;
+            for (int i = 0; i < depth; i++) {
+                SyntheticNode node = node(LONG_NODE_WORK);
+                if (previous != null) {
+                    node.addDependencySuccessor(previous);
+                }
+                plan.add(node);
+                previous = node;
+            }
+        }
+        executionQueue = new LinkedList<>(plan);
+        NodeSchedulingStrategy schedulingStrategy = strategy.equals("critical-path")
+            ? new CriticalPathNodeSchedulingStrategy(new SyntheticExecutionTimeHistory())
+            : NodeSchedulingStrategy.PLAN_ORDER;
+        schedulingStrategy.prioritize(executionQueue);
+    }
+
+    @Benchmark
+    public void execute() throws Exception {
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < WORKERS; i++) {
+            results.add(workers.submit(this::work));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+    }
+
+    private void work() {
+        SyntheticNode node;
+        while ((node = selectNext()) != null) {
+            Blackhole.consumeCPU(node.work);
+            synchronized (this) {
+                node.complete = true;
+                notifyAll();
+            }
+        }
+    }
+
+    @Nullable
+    private synchronized SyntheticNode selectNext() {
+        while (!executionQueue.isEmpty()) {
+            for (Iterator<Node> iterator = executionQueue.iterator(); iterator.hasNext(); ) {
+                SyntheticNode node = (SyntheticNode) iterator.next();
+                if (node.isReady()) {
+                    iterator.remove();
+                    return node;
+                }
+            }
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return null;
+    }
+
+    private SyntheticNode node(long work) {
+        SyntheticNode node = new SyntheticNode(nodes.size(), work);
+        nodes.add(node);
+        return node;
+    }
+
+    private static class SyntheticExecutionTimeHistory implements NodeExecutionTimeHistory {
+        @Override
+        public long getExecutionTime(Node node) {
+            return ((SyntheticNode) node).work;
+        }
+
+        @Override
+        public void recordExecutionTime(Node node, long executionTimeMillis) {
+        }
+    }
+
+    private static class SyntheticNode extends Node {
+        private final int id;
+        private final long work;
+        private boolean complete;
+
+        SyntheticNode(int id, long work) {
+            this.id = id;
+            this.work = work;
+        }
+
+        @Override
+        public boolean isReady() {
+            for (Node dependency : getDependencySuccessors()) {
+                if (!((SyntheticNode) dependency).complete) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Nullable
+        @Override
+        public Throwable getNodeFailure() {
+            return null;
+        }
+
+        @Override
+        public void rethrowNodeFailure() {
+        }
+
+        @Override
+        public void prepareForExecution() {
+        }
+
+        @Override
+        public void resolveDependencies(TaskDependencyResolver dependencyResolver, Action<Node> processHardSuccessor) {
+        }
+
+        @Override
+        public Set<Node> getFinalizers() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public void resolveMutations() {
+        }
+
+        @Override
+        public boolean isPublicNode() {
+            return false;
+        }
+
+        @Override
+        public boolean requiresMonitoring() {
+            return false;
+        }
+
+        @Nullable
+        @Override
+        public Project getProjectToLock() {
+            return null;
+        }
+
+        @Nullable
+        @Override
+        public Project getOwningProject() {
+            return null;
+        }
+
+        @Override
+        public List<? extends ResourceLock> getResourcesToLock() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public String toString() {
+            return "node " + id;
+        }
+
+        @Override
+        public int compareTo(Node other) {
+            return Integer.compare(id, ((SyntheticNode) other).id);
+        }
+    }
+}
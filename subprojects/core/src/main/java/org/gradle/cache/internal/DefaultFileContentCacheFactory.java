@@ -65,7 +65,7 @@ public void close() throws IOException {
     @Override
     public <V> FileContentCache<V> newCache(String name, int normalizedCacheSize, final Calculator<? extends V> calculator, Serializer<V> serializer) {
         PersistentIndexedCacheParameters<HashCode, V> parameters = PersistentIndexedCacheParameters.of(name, hashCodeSerializer, serializer)
-            .withCacheDecorator(inMemoryCacheDecoratorFactory.decorator(normalizedCacheSize, true));
+            .withCacheDecorator(inMemoryCacheDecoratorFactory.immutableEntriesDecorator(normalizedCacheSize, true));
         PersistentIndexedCache<HashCode, V> store = cache.createCache(parameters);
 
         DefaultFileContentCache<V> cache = (DefaultFileContentCache<V>) caches.get(name);
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal;
+
+import org.gradle.internal.operations.BuildOperationType;
+
+/**
+ * Reports how long a build waited for file locks held by other processes, like other daemons sharing the Gradle user home.
+ *
+ * Fired at the end of the root build, and only when at least one lock was contended during the build.
+ */
+public final class FileLockContentionBuildOperationType implements BuildOperationType<FileLockContentionBuildOperationType.Details, FileLockContentionBuildOperationType.Result> {
+
+    public interface Details {
+    }
+
+    public interface Result {
+
+        /**
+         * The number of file locks the build could not acquire right away.
+         */
+        long getContendedLockCount();
+
+        /**
+         * The total time the build spent waiting for contended file locks.
+         */
+        long getWaitTimeMillis();
+
+    }
+
+    static final Details DETAILS = new Details() {
+    };
+
+    private FileLockContentionBuildOperationType() {
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal;
+
+import org.gradle.api.internal.GradleInternal;
+import org.gradle.initialization.RootBuildLifecycleListener;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.RunnableBuildOperation;
+
+/**
+ * Emits a {@link FileLockContentionBuildOperationType} operation with the file lock contention of each root build.
+ */
+public class FileLockContentionReporter implements RootBuildLifecycleListener {
+    private final FileLockContentionStatistics statistics;
+    private final BuildOperationExecutor buildOperationExecutor;
+    private long contendedLocksAtStart;
+    private long waitTimeMillisAtStart;
+
+    public FileLockContentionReporter(FileLockContentionStatistics statistics, BuildOperationExecutor buildOperationExecutor) {
+        this.statistics = statistics;
+        this.buildOperationExecutor = buildOperationExecutor;
+    }
+
+    @Override
+    public void afterStart(GradleInternal gradle) {
+        contendedLocksAtStart = statistics.getContendedLocks();
+        waitTimeMillisAtStart = statistics.getWaitTimeMillis();
+    }
+
+    @Override
+    public void beforeComplete(GradleInternal gradle) {
+        final long contendedLocks = statistics.getContendedLocks() - contendedLocksAtStart;
+        final long waitTimeMillis = statistics.getWaitTimeMillis() - waitTimeMillisAtStart;
+        if (contendedLocks == 0) {
+            return;
+        }
+        buildOperationExecutor.run(new RunnableBuildOperation() {
+            @Override
+            public void run(BuildOperationContext context) {
+                context.setResult(new FileLockContentionBuildOperationType.Result() {
+                    @Override
+                    public long getContendedLockCount() {
+                        return contendedLocks;
+                    }
+
+                    @Override
+                    public long getWaitTimeMillis() {
+                        return waitTimeMillis;
+                    }
+                });
+                context.setStatus(contendedLocks + " contended file locks, waited " + waitTimeMillis + "ms");
+            }
+
+            @Override
+            public BuildOperationDescriptor.Builder description() {
+                return BuildOperationDescriptor.displayName("Report file lock contention")
+                    .details(FileLockContentionBuildOperationType.DETAILS);
+            }
+        });
+    }
+}
@@ -17,6 +17,7 @@
 package org.gradle.caching.internal;
 
 import org.gradle.StartParameter;
+import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.internal.GradleInternal;
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.logging.configuration.ShowStacktrace;
@@ -30,9 +31,10 @@
 import org.gradle.caching.internal.controller.impl.DefaultBuildCacheCommandFactory;
 import org.gradle.caching.internal.origin.OriginMetadataFactory;
 import org.gradle.caching.internal.packaging.BuildCacheEntryPacker;
+import org.gradle.caching.internal.packaging.impl.BuildCacheEntryCompression;
+import org.gradle.caching.internal.packaging.impl.CompressingBuildCacheEntryPacker;
 import org.gradle.caching.internal.packaging.impl.DefaultTarPackerFileSystemSupport;
 import org.gradle.caching.internal.packaging.impl.FilePermissionAccess;
-import org.gradle.caching.internal.packaging.impl.GZipBuildCacheEntryPacker;
 import org.gradle.caching.internal.packaging.impl.TarBuildCacheEntryPacker;
 import org.gradle.caching.internal.packaging.impl.TarPackerFileSystemSupport;
 import org.gradle.caching.internal.services.BuildCacheControllerFactory;
@@ -40,6 +42,7 @@
 import org.gradle.caching.local.internal.DirectoryBuildCacheFileStoreFactory;
 import org.gradle.caching.local.internal.DirectoryBuildCacheServiceFactory;
 import org.gradle.internal.SystemProperties;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.file.Deleter;
 import org.gradle.internal.file.FileException;
 import org.gradle.internal.hash.ChecksumService;
@@ -60,6 +63,7 @@
 import org.gradle.util.GradleVersion;
 import org.gradle.util.Path;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.util.List;
 
@@ -67,6 +71,20 @@
  * Build scoped services for build cache usage.
  */
 public final class BuildCacheServices extends AbstractPluginServiceRegistry {
+    /**
+     * The compression used for new build cache entries, {@code gzip} or {@code fast-gzip}. Defaults to {@code gzip}.
+     */
+    public static final String COMPRESSION_PROPERTY = "org.gradle.unsafe.build-cache.compression";
+
+    /**
+     * Whether entries are stored in the remote build cache in the background, instead of by the work producing them.
+     */
+    public static final String ASYNC_REMOTE_STORE_PROPERTY = "org.gradle.unsafe.build-cache.async-remote-store";
+
+    /**
+     * Whether entries from the remote build cache are unpacked while they are downloaded, instead of after they have been downloaded to a temporary file.
+     */
+    public static final String STREAM_REMOTE_LOADS_PROPERTY = "org.gradle.unsafe.build-cache.stream-remote-loads";
 
     @Override
     public void registerBuildTreeServices(ServiceRegistration registration) {
@@ -118,10 +136,22 @@ BuildCacheEntryPacker createResultPacker(
                 TarPackerFileSystemSupport fileSystemSupport,
                 FileSystem fileSystem,
                 StreamHasher fileHasher,
-                StringInterner stringInterner
+                StringInterner stringInterner,
+                GradleInternal gradle
             ) {
-                return new GZipBuildCacheEntryPacker(
-                    new TarBuildCacheEntryPacker(fileSystemSupport, new FilePermissionsAccessAdapter(fileSystem), fileHasher, stringInterner));
+                String compressionName = getSystemProperty(COMPRESSION_PROPERTY, gradle.getStartParameter());
+                if (compressionName == null) {
+                    compressionName = BuildCacheEntryCompression.GZIP.getName();
+                }
+                BuildCacheEntryCompression compression;
+                try {
+                    compression = BuildCacheEntryCompression.forName(compressionName);
+                } catch (IllegalArgumentException e) {
+                    throw new InvalidUserDataException(String.format("Invalid value for system property '%s'. %s", COMPRESSION_PROPERTY, e.getMessage()), e);
+                }
+                return new CompressingBuildCacheEntryPacker(
+                    new TarBuildCacheEntryPacker(fileSystemSupport, new FilePermissionsAccessAdapter(fileSystem), fileHasher, stringInterner),
+                    compression);
             }
 
             OriginMetadataFactory createOriginMetadataFactory(
@@ -186,6 +216,9 @@ private BuildCacheController doCreateBuildCacheController(ServiceRegistry servic
                 BuildCacheControllerFactory.RemoteAccessMode remoteAccessMode = startParameter.isOffline() ? BuildCacheControllerFactory.RemoteAccessMode.OFFLINE : BuildCacheControllerFactory.RemoteAccessMode.ONLINE;
                 boolean logStackTraces = startParameter.getShowStacktrace() != ShowStacktrace.INTERNAL_EXCEPTIONS;
                 boolean emitDebugLogging = startParameter.isBuildCacheDebugLogging();
+                ExecutorFactory remoteStoreExecutorFactory = isSystemPropertyEnabled(ASYNC_REMOTE_STORE_PROPERTY, startParameter)
+                    ? serviceRegistry.get(ExecutorFactory.class)
+                    : null;
 
                 return BuildCacheControllerFactory.create(
                     buildOperationExecutor,
@@ -196,12 +229,23 @@ private BuildCacheController doCreateBuildCacheController(ServiceRegistry servic
                     remoteAccessMode,
                     logStackTraces,
                     emitDebugLogging,
-                    instantiatorFactory.inject(serviceRegistry)
+                    instantiatorFactory.inject(serviceRegistry),
+                    remoteStoreExecutorFactory,
+                    isSystemPropertyEnabled(STREAM_REMOTE_LOADS_PROPERTY, startParameter)
                 );
             }
         });
     }
 
+    private static boolean isSystemPropertyEnabled(String systemProperty, StartParameter startParameter) {
+        return Boolean.parseBoolean(getSystemProperty(systemProperty, startParameter));
+    }
+
+    @Nullable
+    private static String getSystemProperty(String systemProperty, StartParameter startParameter) {
+        return startParameter.getSystemPropertiesArgs().getOrDefault(systemProperty, System.getProperty(systemProperty));
+    }
+
     private static final class FilePermissionsAccessAdapter implements FilePermissionAccess {
 
         private final FileSystem fileSystem;
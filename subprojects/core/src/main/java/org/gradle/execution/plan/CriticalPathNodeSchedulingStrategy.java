@@ -0,0 +1,92 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import com.google.common.collect.Maps;
+
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+
+/**
+ * Starts the ready nodes with the longest chain of work depending on them first,
+ * so long chains of dependent nodes do not start late because short independent nodes occupy the workers.
+ *
+ * The length of a chain is the sum of the execution times the nodes in it usually have, as recorded in earlier builds.
+ * Nodes without a known execution time are assumed to take as long as the average node with a known one.
+ */
+public class CriticalPathNodeSchedulingStrategy implements NodeSchedulingStrategy {
+    /**
+     * Boolean system property to schedule nodes on the critical path first.
+     */
+    public static final String ENABLED_PROPERTY = "org.gradle.unsafe.critical-path-scheduling";
+
+    private final NodeExecutionTimeHistory history;
+
+    public CriticalPathNodeSchedulingStrategy(NodeExecutionTimeHistory history) {
+        this.history = history;
+    }
+
+    public static boolean isEnabled(Map<String, String> systemPropertiesArgs) {
+        String value = systemPropertiesArgs.getOrDefault(ENABLED_PROPERTY, System.getProperty(ENABLED_PROPERTY));
+        return value != null && !"false".equalsIgnoreCase(value);
+    }
+
+    @Override
+    public void prioritize(List<Node> executionQueue) {
+        Map<Node, Long> executionTimes = Maps.newIdentityHashMap();
+        long knownExecutionTime = 0;
+        int knownNodes = 0;
+        for (Node node : executionQueue) {
+            long executionTime = history.getExecutionTime(node);
+            if (executionTime != NodeExecutionTimeHistory.UNKNOWN) {
+                executionTimes.put(node, executionTime);
+                knownExecutionTime += executionTime;
+                knownNodes++;
+            }
+        }
+        long defaultExecutionTime = knownNodes == 0 ? 1 : knownExecutionTime / knownNodes;
+
+        // The queue is in execution order, so every node comes after the nodes it has to wait for.
+        // Walking it backwards sees all nodes waiting for a node before the node itself.
+        Map<Node, Long> remainingTimes = Maps.newIdentityHashMap();
+        Map<Node, Long> waitingTimes = Maps.newIdentityHashMap();
+        ListIterator<Node> iterator = executionQueue.listIterator(executionQueue.size());
+        while (iterator.hasPrevious()) {
+            Node node = iterator.previous();
+            // Zero weights would leave a node tied with the nodes waiting for it, so count every node
+            long remainingTime = Math.max(1, executionTimes.getOrDefault(node, defaultExecutionTime)) + waitingTimes.getOrDefault(node, 0L);
+            remainingTimes.put(node, remainingTime);
+            for (Node successor : node.getAllSuccessorsInReverseOrder()) {
+                waitingTimes.merge(successor, remainingTime, Math::max);
+            }
+        }
+
+        // A node always has a longer remaining time than the nodes waiting for it, so sorting keeps the execution order valid
+        executionQueue.sort((first, second) -> Long.compare(remainingTimes.get(second), remainingTimes.get(first)));
+    }
+
+    @Override
+    public boolean usesExecutionTimes() {
+        return true;
+    }
+
+    @Override
+    public void nodeExecuted(Node node, long executionTimeMillis) {
+        history.recordExecutionTime(node, executionTimeMillis);
+    }
+}
@@ -74,11 +74,13 @@ public class DefaultExecutionPlan implements ExecutionPlan {
     private final FailureCollector failureCollector = new FailureCollector();
     private final TaskNodeFactory taskNodeFactory;
     private final TaskDependencyResolver dependencyResolver;
+    private final NodeSchedulingStrategy schedulingStrategy;
     private Spec<? super Task> filter = Specs.satisfyAll();
 
     private boolean continueOnFailure;
 
     private final Set<Node> runningNodes = Sets.newIdentityHashSet();
+    private final Map<Node, Long> executionStartTimes = Maps.newIdentityHashMap();
     private final Set<Node> filteredNodes = Sets.newIdentityHashSet();
     private final Set<Node> producedButNotYetConsumed = Sets.newIdentityHashSet();
     private final Map<Pair<Node, Node>, Boolean> reachableCache = Maps.newHashMap();
@@ -89,9 +91,14 @@ public class DefaultExecutionPlan implements ExecutionPlan {
     private boolean buildCancelled;
 
     public DefaultExecutionPlan(GradleInternal gradle, TaskNodeFactory taskNodeFactory, TaskDependencyResolver dependencyResolver) {
+        this(gradle, taskNodeFactory, dependencyResolver, NodeSchedulingStrategy.PLAN_ORDER);
+    }
+
+    public DefaultExecutionPlan(GradleInternal gradle, TaskNodeFactory taskNodeFactory, TaskDependencyResolver dependencyResolver, NodeSchedulingStrategy schedulingStrategy) {
         this.gradle = gradle;
         this.taskNodeFactory = taskNodeFactory;
         this.dependencyResolver = dependencyResolver;
+        this.schedulingStrategy = schedulingStrategy;
     }
 
     @Override
@@ -328,6 +335,7 @@ public NodeInVisitingSegment apply(Node node) {
         executionQueue.clear();
         dependencyResolver.clear();
         Iterables.addAll(executionQueue, nodeMapping);
+        schedulingStrategy.prioritize(executionQueue);
         for (Node node : executionQueue) {
             maybeNodesReady |= node.updateAllDependenciesComplete() && node.isReady();
         }
@@ -475,6 +483,7 @@ public void clear() {
         reachableCache.clear();
         dependenciesWhichRequireMonitoring.clear();
         runningNodes.clear();
+        executionStartTimes.clear();
     }
 
     @Override
@@ -732,6 +741,9 @@ private static String getOverLappedPath(String firstPath, String secondPath) {
 
     private void recordNodeExecutionStarted(Node node) {
         runningNodes.add(node);
+        if (schedulingStrategy.usesExecutionTimes()) {
+            executionStartTimes.put(node, System.currentTimeMillis());
+        }
     }
 
     private void recordNodeCompleted(Node node) {
@@ -765,6 +777,10 @@ public void finishedExecuting(Node node) {
                 }
 
                 runningNodes.remove(node);
+                Long startTime = executionStartTimes.remove(node);
+                if (startTime != null && !node.isFailed()) {
+                    schedulingStrategy.nodeExecuted(node, System.currentTimeMillis() - startTime);
+                }
                 node.finishExecution(this::recordNodeCompleted);
             } else {
                 LOGGER.debug("Already completed node {} reported as finished executing", node);
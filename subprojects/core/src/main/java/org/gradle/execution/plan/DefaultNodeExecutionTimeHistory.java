@@ -0,0 +1,71 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.tasks.TaskExecutionOutcome;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.cache.PersistentIndexedCacheParameters;
+import org.gradle.internal.execution.history.ExecutionHistoryCacheAccess;
+
+/**
+ * Keeps the execution times of local tasks in the execution history cache of the build, keyed by their identity path.
+ *
+ * Only tasks whose actions ran are recorded, so up-to-date, skipped and from-cache tasks do not replace the time a task takes to run.
+ * The recorded time is a moving average, so a single unusually slow or fast run does not change the scheduling much.
+ * Other nodes are not tracked.
+ */
+public class DefaultNodeExecutionTimeHistory implements NodeExecutionTimeHistory {
+    private static final int MAX_TIMES_IN_MEMORY = 10_000;
+    private static final double NEW_TIME_WEIGHT = 0.3;
+
+    private final PersistentIndexedCache<String, Long> executionTimes;
+
+    public DefaultNodeExecutionTimeHistory(ExecutionHistoryCacheAccess cacheAccess) {
+        this.executionTimes = cacheAccess.createCache(PersistentIndexedCacheParameters.of("taskExecutionTimes", String.class, Long.class), MAX_TIMES_IN_MEMORY, true);
+    }
+
+    @Override
+    public long getExecutionTime(Node node) {
+        if (!(node instanceof LocalTaskNode)) {
+            return UNKNOWN;
+        }
+        Long executionTime = executionTimes.get(keyFor(((LocalTaskNode) node).getTask()));
+        return executionTime == null ? UNKNOWN : executionTime;
+    }
+
+    @Override
+    public void recordExecutionTime(Node node, long executionTimeMillis) {
+        if (!(node instanceof LocalTaskNode)) {
+            return;
+        }
+        TaskInternal task = ((LocalTaskNode) node).getTask();
+        if (task.getState().getOutcome() != TaskExecutionOutcome.EXECUTED) {
+            return;
+        }
+        String key = keyFor(task);
+        Long previousTime = executionTimes.get(key);
+        long executionTime = previousTime == null
+            ? executionTimeMillis
+            : Math.round(NEW_TIME_WEIGHT * executionTimeMillis + (1 - NEW_TIME_WEIGHT) * previousTime);
+        executionTimes.put(key, executionTime);
+    }
+
+    private static String keyFor(TaskInternal task) {
+        return task.getIdentityPath().getPath();
+    }
+}
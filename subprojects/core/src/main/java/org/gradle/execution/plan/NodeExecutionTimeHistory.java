@@ -0,0 +1,34 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+/**
+ * Remembers how long nodes took to execute in earlier builds.
+ */
+public interface NodeExecutionTimeHistory {
+    long UNKNOWN = -1;
+
+    /**
+     * Returns how long the node usually takes to execute, or {@link #UNKNOWN}.
+     */
+    long getExecutionTime(Node node);
+
+    /**
+     * Records how long the node took to execute. Implementations may ignore nodes which did not actually do their work.
+     */
+    void recordExecutionTime(Node node, long executionTimeMillis);
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import java.util.List;
+
+/**
+ * Decides which of the nodes that are ready to execute are started first by a {@link DefaultExecutionPlan}.
+ */
+public interface NodeSchedulingStrategy {
+    /**
+     * Starts ready nodes in the order they have been added to the execution plan.
+     */
+    NodeSchedulingStrategy PLAN_ORDER = new NodeSchedulingStrategy() {
+        @Override
+        public void prioritize(List<Node> executionQueue) {
+        }
+
+        @Override
+        public boolean usesExecutionTimes() {
+            return false;
+        }
+
+        @Override
+        public void nodeExecuted(Node node, long executionTimeMillis) {
+        }
+    };
+
+    /**
+     * Reorders the execution queue so the nodes which should be started first come first.
+     *
+     * The new order must keep every node after the nodes it depends on or must or should run after.
+     */
+    void prioritize(List<Node> executionQueue);
+
+    /**
+     * Whether the strategy needs to be told how long nodes took to execute. When not, the execution plan does not measure it.
+     */
+    boolean usesExecutionTimes();
+
+    /**
+     * Called after a node has been executed successfully, when {@link #usesExecutionTimes()}.
+     */
+    void nodeExecuted(Node node, long executionTimeMillis);
+}
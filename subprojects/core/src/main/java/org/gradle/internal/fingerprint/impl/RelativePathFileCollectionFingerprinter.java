@@ -24,7 +24,11 @@
 public class RelativePathFileCollectionFingerprinter extends AbstractFileCollectionFingerprinter {
 
     public RelativePathFileCollectionFingerprinter(StringInterner stringInterner, FileCollectionSnapshotter fileCollectionSnapshotter) {
-        super(new RelativePathFingerprintingStrategy(stringInterner), fileCollectionSnapshotter);
+        this(new RelativePathFingerprintingStrategy(stringInterner), fileCollectionSnapshotter);
+    }
+
+    public RelativePathFileCollectionFingerprinter(RelativePathFingerprintingStrategy fingerprintingStrategy, FileCollectionSnapshotter fileCollectionSnapshotter) {
+        super(fingerprintingStrategy, fileCollectionSnapshotter);
     }
 
     @Override
@@ -32,6 +32,7 @@
 import org.gradle.cache.internal.CacheRepositoryServices;
 import org.gradle.cache.internal.CacheScopeMapping;
 import org.gradle.cache.internal.CleanupActionFactory;
+import org.gradle.cache.internal.FileLockContentionReportingServices;
 import org.gradle.cache.internal.InMemoryCacheDecoratorFactory;
 import org.gradle.cache.internal.VersionStrategy;
 import org.gradle.deployment.internal.DefaultDeploymentRegistry;
@@ -100,6 +101,7 @@ public BuildSessionScopeServices(final ServiceRegistry parent, CrossBuildSession
 
         // Must be no higher than this scope as needs cache repository services.
         addProvider(new ScopeIdsServices());
+        addProvider(new FileLockContentionReportingServices());
     }
 
     PendingChangesManager createPendingChangesManager(ListenerManager listenerManager) {
@@ -60,9 +60,12 @@
 import org.gradle.execution.TaskSelector;
 import org.gradle.execution.commandline.CommandLineTaskConfigurer;
 import org.gradle.execution.commandline.CommandLineTaskParser;
+import org.gradle.execution.plan.CriticalPathNodeSchedulingStrategy;
+import org.gradle.execution.plan.DefaultNodeExecutionTimeHistory;
 import org.gradle.execution.plan.DependencyResolver;
 import org.gradle.execution.plan.LocalTaskNodeExecutor;
 import org.gradle.execution.plan.NodeExecutor;
+import org.gradle.execution.plan.NodeSchedulingStrategy;
 import org.gradle.execution.plan.PlanExecutor;
 import org.gradle.execution.plan.TaskDependencyResolver;
 import org.gradle.execution.plan.TaskNodeDependencyResolver;
@@ -82,6 +85,7 @@
 import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.event.ListenerBroadcast;
 import org.gradle.internal.event.ListenerManager;
+import org.gradle.internal.execution.history.ExecutionHistoryCacheAccess;
 import org.gradle.internal.id.UniqueId;
 import org.gradle.internal.instantiation.InstantiatorFactory;
 import org.gradle.internal.isolation.IsolatableFactory;
@@ -240,12 +244,19 @@ TaskExecutionGraphInternal createTaskExecutionGraph(
         GradleInternal gradleInternal,
         TaskNodeFactory taskNodeFactory,
         TaskDependencyResolver dependencyResolver,
+        NodeSchedulingStrategy schedulingStrategy,
         ListenerBroadcast<TaskExecutionListener> taskListeners,
         ListenerBroadcast<TaskExecutionGraphListener> graphListeners,
         ProjectStateRegistry projectStateRegistry,
         ServiceRegistry gradleScopedServices
     ) {
-        return new DefaultTaskExecutionGraph(planExecutor, nodeExecutors, buildOperationExecutor, listenerBuildOperationDecorator, coordinationService, gradleInternal, taskNodeFactory, dependencyResolver, graphListeners, taskListeners, projectStateRegistry, gradleScopedServices);
+        return new DefaultTaskExecutionGraph(planExecutor, nodeExecutors, buildOperationExecutor, listenerBuildOperationDecorator, coordinationService, gradleInternal, taskNodeFactory, dependencyResolver, schedulingStrategy, graphListeners, taskListeners, projectStateRegistry, gradleScopedServices);
+    }
+
+    NodeSchedulingStrategy createNodeSchedulingStrategy(GradleInternal gradleInternal, ExecutionHistoryCacheAccess executionHistoryCacheAccess) {
+        return CriticalPathNodeSchedulingStrategy.isEnabled(gradleInternal.getStartParameter().getSystemPropertiesArgs())
+            ? new CriticalPathNodeSchedulingStrategy(new DefaultNodeExecutionTimeHistory(executionHistoryCacheAccess))
+            : NodeSchedulingStrategy.PLAN_ORDER;
     }
 
     ServiceRegistryFactory createServiceRegistryFactory(final ServiceRegistry services) {
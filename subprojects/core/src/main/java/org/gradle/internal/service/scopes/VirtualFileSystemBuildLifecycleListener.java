@@ -23,6 +23,7 @@
 import org.gradle.api.internal.file.FileResolver;
 import org.gradle.initialization.RootBuildLifecycleListener;
 import org.gradle.internal.file.PathToFileResolver;
+import org.gradle.internal.vfs.PersistedVirtualFileSystemState;
 import org.gradle.internal.vfs.WatchingAwareVirtualFileSystem;
 import org.gradle.util.IncubationLogger;
 import org.slf4j.Logger;
@@ -31,6 +32,8 @@
 import javax.annotation.Nullable;
 import java.io.File;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -46,21 +49,35 @@ public interface StartParameterValue {
         String getValue(StartParameter startParameter);
     }
 
+    public interface RootDirectoryLocator {
+        File getRootDirectory(StartParameter startParameter);
+    }
+
     private final WatchingAwareVirtualFileSystem virtualFileSystem;
     private final StartParameterSwitch vfsRetention;
     private final StartParameterSwitch dropVfs;
     private final StartParameterValue changedPathsSinceLastBuildParameter;
+    private final StartParameterSwitch vfsPersistence;
+    private final RootDirectoryLocator rootDirectoryLocator;
+    private final PersistedVirtualFileSystemState persistedState;
+    private final Set<File> restoredRootDirectories = ConcurrentHashMap.newKeySet();
 
     public VirtualFileSystemBuildLifecycleListener(
         WatchingAwareVirtualFileSystem virtualFileSystem,
         StartParameterSwitch vfsRetention,
         StartParameterSwitch dropVfs,
-        StartParameterValue changedPathsSinceLastBuildParameter
+        StartParameterValue changedPathsSinceLastBuildParameter,
+        StartParameterSwitch vfsPersistence,
+        RootDirectoryLocator rootDirectoryLocator,
+        PersistedVirtualFileSystemState persistedState
     ) {
         this.virtualFileSystem = virtualFileSystem;
         this.vfsRetention = vfsRetention;
         this.dropVfs = dropVfs;
         this.changedPathsSinceLastBuildParameter = changedPathsSinceLastBuildParameter;
+        this.vfsPersistence = vfsPersistence;
+        this.rootDirectoryLocator = rootDirectoryLocator;
+        this.persistedState = persistedState;
     }
 
     @Override
@@ -87,6 +104,15 @@ public void afterStart(GradleInternal gradle) {
             }
         }
         virtualFileSystem.afterBuildStarted(vfsRetentionEnabled);
+        if (vfsRetentionEnabled
+            && vfsPersistence.isEnabled(startParameter)
+            && !dropVfs.isEnabled(startParameter)) {
+            File rootDirectory = rootDirectoryLocator.getRootDirectory(startParameter);
+            // Only the first build of a root project in a daemon starts without retained state for it
+            if (restoredRootDirectories.add(rootDirectory)) {
+                persistedState.restore(virtualFileSystem, rootDirectory);
+            }
+        }
         gradle.settingsEvaluated(settings -> virtualFileSystem.updateMustWatchDirectories(ImmutableList.of(settings.getRootDir())));
     }
 
@@ -102,6 +128,11 @@ private static List<File> getChangedPathsSinceLastBuild(PathToFileResolver resol
 
     @Override
     public void beforeComplete(GradleInternal gradle) {
-        virtualFileSystem.beforeBuildFinished(vfsRetention.isEnabled(gradle.getStartParameter()));
+        StartParameter startParameter = gradle.getStartParameter();
+        boolean vfsRetentionEnabled = vfsRetention.isEnabled(startParameter);
+        virtualFileSystem.beforeBuildFinished(vfsRetentionEnabled);
+        if (vfsRetentionEnabled && vfsPersistence.isEnabled(startParameter)) {
+            persistedState.persist(virtualFileSystem, rootDirectoryLocator.getRootDirectory(startParameter));
+        }
     }
 }
@@ -39,8 +39,12 @@
 import org.gradle.cache.internal.InMemoryCacheDecoratorFactory;
 import org.gradle.cache.internal.VersionStrategy;
 import org.gradle.initialization.RootBuildLifecycleListener;
+import org.gradle.initialization.layout.BuildLayoutConfiguration;
+import org.gradle.initialization.layout.BuildLayoutFactory;
 import org.gradle.initialization.layout.ProjectCacheDir;
 import org.gradle.internal.classloader.ClasspathHasher;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ParallelismConfigurationManager;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.execution.OutputChangeListener;
 import org.gradle.internal.file.Stat;
@@ -60,7 +64,9 @@
 import org.gradle.internal.fingerprint.impl.NameOnlyFileCollectionFingerprinter;
 import org.gradle.internal.fingerprint.impl.OutputFileCollectionFingerprinter;
 import org.gradle.internal.fingerprint.impl.RelativePathFileCollectionFingerprinter;
+import org.gradle.internal.fingerprint.impl.RelativePathFingerprintingStrategy;
 import org.gradle.internal.hash.DefaultFileHasher;
+import org.gradle.internal.hash.FileContentHashFunction;
 import org.gradle.internal.hash.FileHasher;
 import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.hash.StreamHasher;
@@ -71,7 +77,9 @@
 import org.gradle.internal.snapshot.SnapshotHierarchy;
 import org.gradle.internal.vfs.AdditiveCacheLocations;
 import org.gradle.internal.vfs.DarwinFileWatcherRegistry;
+import org.gradle.internal.vfs.FileHashingExecutor;
 import org.gradle.internal.vfs.LinuxFileWatcherRegistry;
+import org.gradle.internal.vfs.PersistedVirtualFileSystemState;
 import org.gradle.internal.vfs.RoutingVirtualFileSystem;
 import org.gradle.internal.vfs.VirtualFileSystem;
 import org.gradle.internal.vfs.WatchingAwareVirtualFileSystem;
@@ -81,6 +89,7 @@
 import org.gradle.internal.vfs.impl.NonWatchingVirtualFileSystem;
 import org.gradle.internal.vfs.impl.WatchingVirtualFileSystem;
 import org.gradle.internal.vfs.watch.FileWatcherRegistryFactory;
+import org.gradle.internal.work.WorkerLeaseService;
 
 import javax.annotation.Nullable;
 import java.io.File;
@@ -122,6 +131,25 @@ public class VirtualFileSystemServices extends AbstractPluginServiceRegistry {
      */
     public static final String VFS_DROP_PROPERTY = "org.gradle.unsafe.vfs.drop";
 
+    /**
+     * When retention is enabled, this system property can be used to persist the retained VFS state
+     * at the end of each build, so it can be reused by the first build of the next daemon.
+     *
+     * @see #VFS_RETENTION_ENABLED_PROPERTY
+     */
+    public static final String VFS_PERSISTENCE_ENABLED_PROPERTY = "org.gradle.unsafe.vfs.persistence";
+
+    /**
+     * Boolean system property to hash the files of a directory concurrently while snapshotting it.
+     */
+    public static final String CONCURRENT_HASHING_ENABLED_PROPERTY = "org.gradle.unsafe.vfs.concurrent-hashing";
+
+    /**
+     * Long system property to hash files of at least the given size in bytes by memory mapping them,
+     * instead of streaming their contents through the heap.
+     */
+    public static final String MEMORY_MAPPED_HASHING_THRESHOLD_PROPERTY = "org.gradle.unsafe.hashing.memory-mapping-threshold";
+
     public static boolean isPartialInvalidationEnabled(Map<String, String> systemPropertiesArgs) {
         return isSystemPropertyEnabled(VFS_PARTIAL_INVALIDATION_ENABLED_PROPERTY, systemPropertiesArgs)
             || isRetentionEnabled(systemPropertiesArgs);
@@ -136,6 +164,27 @@ private static boolean isSystemPropertyEnabled(String systemProperty, Map<String
         return value != null && !"false".equalsIgnoreCase(value);
     }
 
+    private static long getMemoryMappingThreshold(Map<String, String> systemPropertiesArgs) {
+        String value = getSystemProperty(MEMORY_MAPPED_HASHING_THRESHOLD_PROPERTY, systemPropertiesArgs);
+        if (value == null) {
+            return DefaultFileHasher.NO_MEMORY_MAPPING;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return DefaultFileHasher.NO_MEMORY_MAPPING;
+        }
+    }
+
+    /**
+     * File hashes created by different content hash functions are kept in separate caches.
+     */
+    private static String fileHashesCacheName(FileContentHashFunction contentHashFunction) {
+        return contentHashFunction.isDefault()
+            ? "fileHashes"
+            : "fileHashes-" + contentHashFunction.getId();
+    }
+
     @Nullable
     private static String getSystemProperty(String systemProperty, Map<String, String> systemPropertiesArgs) {
         return systemPropertiesArgs.getOrDefault(systemProperty, System.getProperty(systemProperty));
@@ -158,19 +207,55 @@ CrossBuildFileHashCache createCrossBuildFileHashCache(CacheRepository cacheRepos
             return new CrossBuildFileHashCache(null, cacheRepository, inMemoryCacheDecoratorFactory, CrossBuildFileHashCache.Kind.FILE_HASHES);
         }
 
-        FileHasher createCachingFileHasher(StringInterner stringInterner, CrossBuildFileHashCache fileStore, FileSystem fileSystem, GlobalScopeFileTimeStampInspector fileTimeStampInspector, StreamHasher streamHasher) {
-            CachingFileHasher fileHasher = new CachingFileHasher(new DefaultFileHasher(streamHasher), fileStore, stringInterner, fileTimeStampInspector, "fileHashes", fileSystem);
+        FileHasher createCachingFileHasher(StringInterner stringInterner, CrossBuildFileHashCache fileStore, FileSystem fileSystem, GlobalScopeFileTimeStampInspector fileTimeStampInspector, StreamHasher streamHasher, FileContentHashFunction contentHashFunction, ListenerManager listenerManager) {
+            DefaultFileHasher contentHasher = new DefaultFileHasher(streamHasher);
+            // The hasher outlives a single build, so each build applies its own memory mapping threshold
+            listenerManager.addListener(new RootBuildLifecycleListener() {
+                @Override
+                public void afterStart(GradleInternal gradle) {
+                    contentHasher.setMemoryMappingThreshold(getMemoryMappingThreshold(gradle.getStartParameter().getSystemPropertiesArgs()));
+                }
+
+                @Override
+                public void beforeComplete(GradleInternal gradle) {
+                }
+            });
+            CachingFileHasher fileHasher = new CachingFileHasher(contentHasher, fileStore, stringInterner, fileTimeStampInspector, fileHashesCacheName(contentHashFunction), fileSystem);
             fileTimeStampInspector.attach(fileHasher);
             return fileHasher;
         }
 
+        FileHashingExecutor createFileHashingExecutor(ExecutorFactory executorFactory, ParallelismConfigurationManager parallelismConfigurationManager) {
+            return new FileHashingExecutor(executorFactory, parallelismConfigurationManager);
+        }
+
+        PersistedVirtualFileSystemState createPersistedVirtualFileSystemState(
+            CacheScopeMapping cacheScopeMapping,
+            FileContentHashFunction contentHashFunction,
+            Stat stat,
+            StringInterner stringInterner,
+            ExecutorFactory executorFactory
+        ) {
+            return new PersistedVirtualFileSystemState(
+                cacheScopeMapping.getBaseDirectory(null, "vfs", VersionStrategy.CachePerVersion),
+                contentHashFunction,
+                stat,
+                stringInterner,
+                executorFactory,
+                DirectoryScanner.getDefaultExcludes()
+            );
+        }
+
         WatchingAwareVirtualFileSystem createVirtualFileSystem(
             AdditiveCacheLocations additiveCacheLocations,
             FileHasher hasher,
+            FileHashingExecutor hashingExecutor,
             FileSystem fileSystem,
             Stat stat,
             StringInterner stringInterner,
-            ListenerManager listenerManager
+            ListenerManager listenerManager,
+            BuildLayoutFactory buildLayoutFactory,
+            PersistedVirtualFileSystemState persistedState
         ) {
             Predicate<String> watchFilter = path -> !additiveCacheLocations.isInsideAdditiveCache(path);
             DelegatingDiffCapturingUpdateFunctionDecorator updateFunctionDecorator = new DelegatingDiffCapturingUpdateFunctionDecorator(watchFilter);
@@ -180,6 +265,7 @@ WatchingAwareVirtualFileSystem createVirtualFileSystem(
                 stat,
                 fileSystem.isCaseSensitive() ? CASE_SENSITIVE : CASE_INSENSITIVE,
                 updateFunctionDecorator,
+                hashingExecutor::getConcurrentHashingExecutor,
                 DirectoryScanner.getDefaultExcludes()
             );
             WatchingAwareVirtualFileSystem watchingAwareVirtualFileSystem = determineWatcherRegistryFactory(OperatingSystem.current())
@@ -194,7 +280,10 @@ WatchingAwareVirtualFileSystem createVirtualFileSystem(
                 watchingAwareVirtualFileSystem,
                 startParameter -> isRetentionEnabled(startParameter.getSystemPropertiesArgs()),
                 startParameter -> isSystemPropertyEnabled(VFS_DROP_PROPERTY, startParameter.getSystemPropertiesArgs()),
-                startParameter -> getSystemProperty(VFS_CHANGES_SINCE_LAST_BUILD_PROPERTY, startParameter.getSystemPropertiesArgs())
+                startParameter -> getSystemProperty(VFS_CHANGES_SINCE_LAST_BUILD_PROPERTY, startParameter.getSystemPropertiesArgs()),
+                startParameter -> isSystemPropertyEnabled(VFS_PERSISTENCE_ENABLED_PROPERTY, startParameter.getSystemPropertiesArgs()),
+                startParameter -> buildLayoutFactory.getLayoutFor(new BuildLayoutConfiguration(startParameter)).getRootDirectory(),
+                persistedState
             ));
             return watchingAwareVirtualFileSystem;
         }
@@ -226,6 +315,11 @@ ResourceSnapshotterCacheService createResourceSnapshotterCacheService(CrossBuild
             return new DefaultResourceSnapshotterCacheService(resourceHashesCache);
         }
 
+        RelativePathFingerprintingStrategy createRelativePathFingerprintingStrategy(StringInterner stringInterner) {
+            // Lives as long as the virtual file system, so fingerprints of unchanged directories can be reused across builds
+            return new RelativePathFingerprintingStrategy(stringInterner);
+        }
+
         ClasspathFingerprinter createClasspathFingerprinter(ResourceSnapshotterCacheService resourceSnapshotterCacheService, FileCollectionSnapshotter fileCollectionSnapshotter, StringInterner stringInterner) {
             return new DefaultClasspathFingerprinter(resourceSnapshotterCacheService, fileCollectionSnapshotter, ResourceFilter.FILTER_NOTHING, stringInterner);
         }
@@ -249,15 +343,27 @@ FileHasher createFileHasher(
             FileHasher globalHasher,
             FileSystem fileSystem,
             StreamHasher streamHasher,
+            FileContentHashFunction contentHashFunction,
+            StartParameter startParameter,
             StringInterner stringInterner
         ) {
-            CachingFileHasher localHasher = new CachingFileHasher(new DefaultFileHasher(streamHasher), cacheAccess, stringInterner, fileTimeStampInspector, "fileHashes", fileSystem);
+            FileHasher contentHasher = new DefaultFileHasher(streamHasher, getMemoryMappingThreshold(startParameter.getSystemPropertiesArgs()));
+            CachingFileHasher localHasher = new CachingFileHasher(contentHasher, cacheAccess, stringInterner, fileTimeStampInspector, fileHashesCacheName(contentHashFunction), fileSystem);
             return new SplitFileHasher(globalHasher, localHasher, additiveCacheLocations);
         }
 
+        void configure(ServiceRegistration registration, FileHashingExecutor hashingExecutor, WorkerLeaseService workerLeaseService, StartParameter startParameter) {
+            // Registered as a service, so the session is unbound from the shared executor again when the session services are stopped
+            registration.add(FileHashingExecutor.WorkerLeaseBinding.class, hashingExecutor.useWorkerLeases(
+                workerLeaseService,
+                isSystemPropertyEnabled(CONCURRENT_HASHING_ENABLED_PROPERTY, startParameter.getSystemPropertiesArgs())
+            ));
+        }
+
         VirtualFileSystem createVirtualFileSystem(
             AdditiveCacheLocations additiveCacheLocations,
             FileHasher hasher,
+            FileHashingExecutor hashingExecutor,
             FileSystem fileSystem,
             ListenerManager listenerManager,
             StartParameter startParameter,
@@ -271,6 +377,7 @@ VirtualFileSystem createVirtualFileSystem(
                 stat,
                 fileSystem.isCaseSensitive() ? CASE_SENSITIVE : CASE_INSENSITIVE,
                 SnapshotHierarchy.DiffCapturingUpdateFunctionDecorator.NOOP,
+                hashingExecutor::getConcurrentHashingExecutor,
                 DirectoryScanner.getDefaultExcludes()
             );
             RoutingVirtualFileSystem routingVirtualFileSystem = new RoutingVirtualFileSystem(
@@ -318,8 +425,8 @@ AbsolutePathFileCollectionFingerprinter createAbsolutePathFileCollectionFingerpr
             return new AbsolutePathFileCollectionFingerprinter(fileCollectionSnapshotter);
         }
 
-        RelativePathFileCollectionFingerprinter createRelativePathFileCollectionFingerprinter(StringInterner stringInterner, FileCollectionSnapshotter fileCollectionSnapshotter) {
-            return new RelativePathFileCollectionFingerprinter(stringInterner, fileCollectionSnapshotter);
+        RelativePathFileCollectionFingerprinter createRelativePathFileCollectionFingerprinter(RelativePathFingerprintingStrategy relativePathFingerprintingStrategy, FileCollectionSnapshotter fileCollectionSnapshotter) {
+            return new RelativePathFileCollectionFingerprinter(relativePathFingerprintingStrategy, fileCollectionSnapshotter);
         }
 
         NameOnlyFileCollectionFingerprinter createNameOnlyFileCollectionFingerprinter(FileCollectionSnapshotter fileCollectionSnapshotter) {
@@ -41,6 +41,7 @@
 import org.gradle.internal.file.Deleter;
 import org.gradle.internal.file.impl.DefaultDeleter;
 import org.gradle.internal.hash.DefaultStreamHasher;
+import org.gradle.internal.hash.FileContentHashFunction;
 import org.gradle.internal.hash.StreamHasher;
 import org.gradle.internal.instantiation.InstantiatorFactory;
 import org.gradle.internal.logging.events.OutputEventListener;
@@ -105,8 +106,12 @@ DefaultFilePropertyFactory createFilePropertyFactory(PropertyHost propertyHost,
         return new DefaultFilePropertyFactory(propertyHost, fileResolver, fileCollectionFactory);
     }
 
-    StreamHasher createStreamHasher() {
-        return new DefaultStreamHasher();
+    FileContentHashFunction createFileContentHashFunction() {
+        return FileContentHashFunction.fromSystemProperty();
+    }
+
+    StreamHasher createStreamHasher(FileContentHashFunction contentHashFunction) {
+        return new DefaultStreamHasher(contentHashFunction);
     }
 
     TemporaryFileProvider createTemporaryFileProvider() {
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.vfs;
+
+import org.gradle.concurrent.ParallelismConfiguration;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.ParallelismConfigurationListener;
+import org.gradle.internal.concurrent.ParallelismConfigurationManager;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.work.WorkerLeaseService;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor used to hash the files of a directory in parallel while snapshotting it.
+ *
+ * Submitted tasks are queued and drained in batches by at most as many threads as the configured maximum number of workers.
+ * While a build is running, each batch is run under a worker lease of that build, so hashing never uses more workers
+ * than configured, even when all the workers are busy with other work. The callers of this executor run the tasks
+ * which have not been picked up yet themselves, on their own lease, so they do not depend on a lease becoming available.
+ *
+ * Directories are only snapshotted concurrently while a build session asking for it is bound to this executor.
+ */
+public class FileHashingExecutor implements Executor, ParallelismConfigurationListener, Stoppable {
+    private final ParallelismConfigurationManager parallelismConfigurationManager;
+    private final ManagedExecutor executor;
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger activeBatches = new AtomicInteger();
+    private volatile int maxBatches;
+    private volatile WorkerLeaseService workerLeaseService;
+    private volatile boolean concurrentHashing;
+
+    public FileHashingExecutor(ExecutorFactory executorFactory, ParallelismConfigurationManager parallelismConfigurationManager) {
+        this.parallelismConfigurationManager = parallelismConfigurationManager;
+        this.maxBatches = parallelismConfigurationManager.getParallelismConfiguration().getMaxWorkerCount();
+        this.executor = executorFactory.create("File hashing", maxBatches);
+        parallelismConfigurationManager.addListener(this);
+    }
+
+    @Override
+    public void onParallelismConfigurationChange(ParallelismConfiguration parallelismConfiguration) {
+        maxBatches = parallelismConfiguration.getMaxWorkerCount();
+        executor.setFixedPoolSize(maxBatches);
+    }
+
+    /**
+     * Runs the batches of this executor under worker leases of the given service, until the returned binding is stopped.
+     *
+     * @param concurrentHashing whether directories should be snapshotted concurrently while the binding is active.
+     */
+    public WorkerLeaseBinding useWorkerLeases(WorkerLeaseService workerLeaseService, boolean concurrentHashing) {
+        WorkerLeaseBinding binding = new WorkerLeaseBinding(this, this.workerLeaseService, this.concurrentHashing);
+        this.workerLeaseService = workerLeaseService;
+        this.concurrentHashing = concurrentHashing;
+        return binding;
+    }
+
+    /**
+     * Returns this executor when directories should currently be snapshotted concurrently, or {@code null} when files should be hashed on the snapshotting thread.
+     */
+    @Nullable
+    public Executor getConcurrentHashingExecutor() {
+        return concurrentHashing ? this : null;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        queue.add(command);
+        maybeStartBatch();
+    }
+
+    private void maybeStartBatch() {
+        int current;
+        while ((current = activeBatches.get()) < maxBatches) {
+            if (activeBatches.compareAndSet(current, current + 1)) {
+                executor.execute(this::runBatch);
+                return;
+            }
+        }
+    }
+
+    private void runBatch() {
+        try {
+            WorkerLeaseService leases = workerLeaseService;
+            if (leases == null) {
+                drain();
+            } else {
+                // This thread does not hold a lease, so this needs a lease of its own rather than borrowing one
+                leases.withLocks(Collections.singleton(leases.getWorkerLease()), this::drain);
+            }
+        } finally {
+            activeBatches.decrementAndGet();
+        }
+        if (!queue.isEmpty()) {
+            maybeStartBatch();
+        }
+    }
+
+    private void drain() {
+        Runnable task;
+        while ((task = queue.poll()) != null) {
+            task.run();
+        }
+    }
+
+    @Override
+    public void stop() {
+        parallelismConfigurationManager.removeListener(this);
+        executor.stop();
+    }
+
+    public static class WorkerLeaseBinding implements Stoppable {
+        private final FileHashingExecutor executor;
+        private final WorkerLeaseService previousWorkerLeaseService;
+        private final boolean previousConcurrentHashing;
+
+        private WorkerLeaseBinding(FileHashingExecutor executor, @Nullable WorkerLeaseService previousWorkerLeaseService, boolean previousConcurrentHashing) {
+            this.executor = executor;
+            this.previousWorkerLeaseService = previousWorkerLeaseService;
+            this.previousConcurrentHashing = previousConcurrentHashing;
+        }
+
+        @Override
+        public void stop() {
+            executor.workerLeaseService = previousWorkerLeaseService;
+            executor.concurrentHashing = previousConcurrentHashing;
+        }
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.vfs;
+
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.file.FileType;
+import org.gradle.internal.file.Stat;
+import org.gradle.internal.hash.FileContentHashFunction;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.HashCodeSerializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.internal.snapshot.CompleteDirectorySnapshot;
+import org.gradle.internal.snapshot.CompleteFileSystemLocationSnapshot;
+import org.gradle.internal.snapshot.FileMetadata;
+import org.gradle.internal.snapshot.MissingFileSnapshot;
+import org.gradle.internal.snapshot.RegularFileSnapshot;
+import org.gradle.internal.snapshot.impl.PersistedSnapshotValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the state retained by a {@link WatchingAwareVirtualFileSystem} in a file per root project directory, so a new daemon
+ * can start with the state an earlier daemon had at the end of its last build of the same project.
+ * Only snapshots of the hierarchy below the root project directory are kept in its file.
+ *
+ * Since no file system events are available for the time between the two daemons,
+ * the persisted snapshots are checked against the file system before they are used.
+ * Files modified shortly before the state was captured are not restored, since a later change could have kept their timestamp.
+ * The state is discarded when it was persisted by a daemon using a different file content hash function.
+ *
+ * The state is written in the background, so the build does not wait for it.
+ */
+public class PersistedVirtualFileSystemState implements Stoppable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PersistedVirtualFileSystemState.class);
+
+    private static final int FORMAT_VERSION = 3;
+    private static final byte DIRECTORY = 0;
+    private static final byte REGULAR_FILE = 1;
+    private static final byte MISSING = 2;
+
+    /**
+     * Files modified less than this before the state was captured may have changed again without changing their timestamp.
+     * This covers file systems with coarse timestamps, like HFS+ or FAT.
+     */
+    private static final long TIMESTAMP_GRANULARITY_MILLIS = 2000;
+
+    private final File stateDir;
+    private final String contentHashFunctionId;
+    private final PersistedSnapshotValidator validator;
+    private final StringInterner stringInterner;
+    private final HashCodeSerializer hashCodeSerializer = new HashCodeSerializer();
+    private final ManagedExecutor writer;
+    private final Map<File, CapturedState> pendingStates = new ConcurrentHashMap<>();
+
+    public PersistedVirtualFileSystemState(File stateDir, FileContentHashFunction contentHashFunction, Stat stat, StringInterner stringInterner, ExecutorFactory executorFactory, String... defaultExcludes) {
+        this.stateDir = stateDir;
+        this.contentHashFunctionId = contentHashFunction.getId();
+        this.validator = new PersistedSnapshotValidator(stat, defaultExcludes);
+        this.stringInterner = stringInterner;
+        // A single thread, so states for the same root project directory are written in order
+        this.writer = executorFactory.create("Virtual file system state writer", 1);
+    }
+
+    /**
+     * Adds the snapshots persisted for the given root project directory which are still up-to-date to the virtual file system.
+     */
+    public void restore(WatchingAwareVirtualFileSystem virtualFileSystem, File rootDirectory) {
+        File stateFile = stateFileFor(rootDirectory);
+        if (!stateFile.isFile()) {
+            return;
+        }
+        CapturedState state;
+        try (KryoBackedDecoder decoder = new KryoBackedDecoder(new FileInputStream(stateFile))) {
+            state = read(decoder);
+        } catch (IncompatibleStateException e) {
+            LOGGER.info("Ignoring persisted virtual file system state from {}: {}", stateFile, e.getMessage());
+            return;
+        } catch (Exception e) {
+            LOGGER.warn("Could not read persisted virtual file system state from {}, ignoring it", stateFile, e);
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        long modifiedBefore = state.capturedAt - TIMESTAMP_GRANULARITY_MILLIS;
+        List<CompleteFileSystemLocationSnapshot> unchangedSnapshots = new ArrayList<>();
+        for (CompleteFileSystemLocationSnapshot root : state.roots) {
+            validator.validate(root, modifiedBefore, unchangedSnapshots::add);
+        }
+        unchangedSnapshots.forEach(virtualFileSystem::updateWithKnownSnapshot);
+        LOGGER.info("Restored {} of {} persisted virtual file system roots in {} ms", unchangedSnapshots.size(), state.roots.size(), System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Replaces the state persisted for the given root project directory with the snapshots of the hierarchy below it currently retained by the virtual file system.
+     *
+     * The snapshots are captured right away, and written in the background.
+     * When the state is persisted again before an earlier state has been written, only the latest state is written.
+     */
+    public void persist(WatchingAwareVirtualFileSystem virtualFileSystem, File rootDirectory) {
+        List<CompleteFileSystemLocationSnapshot> roots = new ArrayList<>();
+        long capturedAt = System.currentTimeMillis();
+        String rootPath = rootDirectory.getAbsolutePath();
+        virtualFileSystem.visitRetainedSnapshots(snapshot -> {
+            CompleteFileSystemLocationSnapshot snapshotBelowRoot = snapshotBelow(rootPath, snapshot);
+            if (snapshotBelowRoot != null) {
+                roots.add(snapshotBelowRoot);
+            }
+        });
+        File stateFile = stateFileFor(rootDirectory);
+        if (pendingStates.put(stateFile, new CapturedState(roots, capturedAt)) == null) {
+            writer.execute(() -> {
+                CapturedState pendingState = pendingStates.remove(stateFile);
+                if (pendingState != null) {
+                    write(stateFile, pendingState);
+                }
+            });
+        }
+    }
+
+    /**
+     * Waits for pending states to be written.
+     */
+    @Override
+    public void stop() {
+        writer.stop();
+    }
+
+    /**
+     * Returns the part of the given snapshot which is below the given root path, or {@code null} when there is none.
+     */
+    @Nullable
+    private static CompleteFileSystemLocationSnapshot snapshotBelow(String rootPath, CompleteFileSystemLocationSnapshot snapshot) {
+        String path = snapshot.getAbsolutePath();
+        if (isSameOrBelow(path, rootPath)) {
+            return snapshot;
+        }
+        if (!isSameOrBelow(rootPath, path)) {
+            return null;
+        }
+        // The snapshot contains the root directory
+        CompleteFileSystemLocationSnapshot current = snapshot;
+        while (current.getType() == FileType.Directory) {
+            CompleteFileSystemLocationSnapshot next = null;
+            for (CompleteFileSystemLocationSnapshot child : ((CompleteDirectorySnapshot) current).getChildren()) {
+                if (isSameOrBelow(rootPath, child.getAbsolutePath())) {
+                    next = child;
+                    break;
+                }
+            }
+            if (next == null) {
+                return null;
+            }
+            if (next.getAbsolutePath().equals(rootPath)) {
+                return next;
+            }
+            current = next;
+        }
+        return null;
+    }
+
+    private static boolean isSameOrBelow(String path, String ancestorPath) {
+        if (!path.startsWith(ancestorPath)) {
+            return false;
+        }
+        return path.length() == ancestorPath.length()
+            || ancestorPath.endsWith(File.separator)
+            || path.charAt(ancestorPath.length()) == File.separatorChar;
+    }
+
+    private File stateFileFor(File rootDirectory) {
+        return new File(stateDir, "state-" + Hashing.hashString(rootDirectory.getAbsolutePath()) + ".bin");
+    }
+
+    private void write(File stateFile, CapturedState state) {
+        File tempFile = null;
+        try {
+            Files.createDirectories(stateDir.toPath());
+            tempFile = File.createTempFile(stateFile.getName(), ".tmp", stateDir);
+            try (KryoBackedEncoder encoder = new KryoBackedEncoder(new FileOutputStream(tempFile))) {
+                write(encoder, state);
+            }
+            Files.move(tempFile.toPath(), stateFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            LOGGER.warn("Could not persist virtual file system state to {}", stateFile, e);
+            if (tempFile != null) {
+                //noinspection ResultOfMethodCallIgnored
+                tempFile.delete();
+            }
+        }
+    }
+
+    private CapturedState read(Decoder decoder) throws IOException {
+        int formatVersion = decoder.readSmallInt();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IncompatibleStateException("unsupported format version " + formatVersion);
+        }
+        String hashFunctionId = decoder.readString();
+        if (!hashFunctionId.equals(contentHashFunctionId)) {
+            throw new IncompatibleStateException("file contents were hashed with " + hashFunctionId + " instead of " + contentHashFunctionId);
+        }
+        long capturedAt = decoder.readLong();
+        int rootCount = decoder.readSmallInt();
+        List<CompleteFileSystemLocationSnapshot> roots = new ArrayList<>(rootCount);
+        for (int i = 0; i < rootCount; i++) {
+            String absolutePath = stringInterner.intern(decoder.readString());
+            String name = stringInterner.intern(decoder.readString());
+            roots.add(readSnapshot(decoder, absolutePath, name));
+        }
+        return new CapturedState(roots, capturedAt);
+    }
+
+    private CompleteFileSystemLocationSnapshot readSnapshot(Decoder decoder, String absolutePath, String name) throws IOException {
+        byte type = decoder.readByte();
+        switch (type) {
+            case DIRECTORY:
+                HashCode directoryHash = hashCodeSerializer.read(decoder);
+                int childCount = decoder.readSmallInt();
+                List<CompleteFileSystemLocationSnapshot> children = new ArrayList<>(childCount);
+                for (int i = 0; i < childCount; i++) {
+                    String childName = stringInterner.intern(decoder.readString());
+                    String childPath = stringInterner.intern(childPath(absolutePath, childName));
+                    children.add(readSnapshot(decoder, childPath, childName));
+                }
+                return new CompleteDirectorySnapshot(absolutePath, name, children, directoryHash);
+            case REGULAR_FILE:
+                HashCode contentHash = hashCodeSerializer.read(decoder);
+                long size = decoder.readSmallLong();
+                long lastModified = decoder.readLong();
+                return new RegularFileSnapshot(absolutePath, name, contentHash, new FileMetadata(size, lastModified));
+            case MISSING:
+                return new MissingFileSnapshot(absolutePath, name);
+            default:
+                throw new IOException("Unknown snapshot type " + type);
+        }
+    }
+
+    private void write(Encoder encoder, CapturedState state) throws IOException {
+        encoder.writeSmallInt(FORMAT_VERSION);
+        encoder.writeString(contentHashFunctionId);
+        encoder.writeLong(state.capturedAt);
+        encoder.writeSmallInt(state.roots.size());
+        for (CompleteFileSystemLocationSnapshot root : state.roots) {
+            encoder.writeString(root.getAbsolutePath());
+            encoder.writeString(root.getName());
+            writeSnapshot(encoder, root);
+        }
+    }
+
+    private void writeSnapshot(Encoder encoder, CompleteFileSystemLocationSnapshot snapshot) throws IOException {
+        FileType type = snapshot.getType();
+        switch (type) {
+            case Directory:
+                encoder.writeByte(DIRECTORY);
+                hashCodeSerializer.write(encoder, snapshot.getHash());
+                List<CompleteFileSystemLocationSnapshot> children = ((CompleteDirectorySnapshot) snapshot).getChildren();
+                encoder.writeSmallInt(children.size());
+                for (CompleteFileSystemLocationSnapshot child : children) {
+                    encoder.writeString(child.getName());
+                    writeSnapshot(encoder, child);
+                }
+                break;
+            case RegularFile:
+                RegularFileSnapshot fileSnapshot = (RegularFileSnapshot) snapshot;
+                encoder.writeByte(REGULAR_FILE);
+                hashCodeSerializer.write(encoder, fileSnapshot.getHash());
+                encoder.writeSmallLong(fileSnapshot.getSize());
+                encoder.writeLong(fileSnapshot.getLastModified());
+                break;
+            case Missing:
+                encoder.writeByte(MISSING);
+                break;
+            default:
+                throw new AssertionError(type);
+        }
+    }
+
+    private static String childPath(String parentPath, String childName) {
+        return parentPath.endsWith(File.separator)
+            ? parentPath + childName
+            : parentPath + File.separatorChar + childName;
+    }
+
+    private static class CapturedState {
+        private final List<CompleteFileSystemLocationSnapshot> roots;
+        private final long capturedAt;
+
+        public CapturedState(List<CompleteFileSystemLocationSnapshot> roots, long capturedAt) {
+            this.roots = roots;
+            this.capturedAt = capturedAt;
+        }
+    }
+
+    private static class IncompatibleStateException extends IOException {
+        public IncompatibleStateException(String message) {
+            super(message);
+        }
+    }
+}
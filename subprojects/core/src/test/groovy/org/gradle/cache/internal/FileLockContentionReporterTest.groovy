@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal
+
+import org.gradle.api.internal.GradleInternal
+import org.gradle.internal.operations.TestBuildOperationExecutor
+import spock.lang.Specification
+
+class FileLockContentionReporterTest extends Specification {
+    def statistics = new FileLockContentionStatistics()
+    def buildOperationExecutor = new TestBuildOperationExecutor()
+    def gradle = Stub(GradleInternal)
+    def reporter = new FileLockContentionReporter(statistics, buildOperationExecutor)
+
+    def "does not report when no lock was contended during the build"() {
+        given:
+        statistics.lockAcquiredAfterWaiting(100)
+
+        when:
+        reporter.afterStart(gradle)
+        reporter.beforeComplete(gradle)
+
+        then:
+        buildOperationExecutor.log.all(FileLockContentionBuildOperationType).empty
+    }
+
+    def "reports the contention of the build"() {
+        given:
+        statistics.lockAcquiredAfterWaiting(100)
+
+        when:
+        reporter.afterStart(gradle)
+        statistics.lockAcquiredAfterWaiting(20)
+        statistics.lockAcquiredAfterWaiting(3)
+        reporter.beforeComplete(gradle)
+
+        then:
+        def operation = buildOperationExecutor.log.mostRecent(FileLockContentionBuildOperationType)
+        operation.result.contendedLockCount == 2
+        operation.result.waitTimeMillis == 23
+    }
+
+    def "reports each build separately"() {
+        when:
+        reporter.afterStart(gradle)
+        statistics.lockAcquiredAfterWaiting(10)
+        reporter.beforeComplete(gradle)
+        reporter.afterStart(gradle)
+        reporter.beforeComplete(gradle)
+        reporter.afterStart(gradle)
+        statistics.lockAcquiredAfterWaiting(5)
+        reporter.beforeComplete(gradle)
+
+        then:
+        def operations = buildOperationExecutor.log.all(FileLockContentionBuildOperationType)
+        operations*.result*.contendedLockCount == [1, 1]
+        operations*.result*.waitTimeMillis == [10, 5]
+    }
+}
@@ -66,7 +66,9 @@ class BuildCacheControllerFactoryTest extends Specification {
             ONLINE,
             logStacktraces,
             emitDebugLogging,
-            TestUtil.instantiatorFactory().inject()
+            TestUtil.instantiatorFactory().inject(),
+            null,
+            false
         )
         assert controllerType.isInstance(controller)
         controllerType.cast(controller)
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan
+
+import org.gradle.api.Task
+import org.gradle.api.internal.TaskInternal
+import org.gradle.composite.internal.IncludedBuildTaskGraph
+import org.gradle.internal.resources.ResourceLockState
+import org.gradle.internal.work.WorkerLeaseRegistry
+import spock.lang.Unroll
+
+class CriticalPathNodeSchedulingStrategyTest extends AbstractExecutionPlanSpec {
+    def executionTimes = [:]
+    def history = Mock(NodeExecutionTimeHistory) {
+        getExecutionTime(_) >> { Node node -> executionTimes.getOrDefault(((TaskNode) node).task, NodeExecutionTimeHistory.UNKNOWN) }
+    }
+    DefaultExecutionPlan executionPlan
+    def workerLease = Mock(WorkerLeaseRegistry.WorkerLease)
+
+    def setup() {
+        def taskNodeFactory = new TaskNodeFactory(thisBuild, Stub(IncludedBuildTaskGraph))
+        def dependencyResolver = new TaskDependencyResolver([new TaskNodeDependencyResolver(taskNodeFactory)])
+        executionPlan = new DefaultExecutionPlan(thisBuild, taskNodeFactory, dependencyResolver, new CriticalPathNodeSchedulingStrategy(history))
+        _ * workerLease.tryLock() >> true
+    }
+
+    def "starts tasks with the longest chain of dependent tasks first"() {
+        given:
+        Task leaf1 = task("leaf1", 1)
+        Task leaf2 = task("leaf2", 1)
+        Task chain1 = task("long1", 10)
+        Task chain2 = task("long2", 10, dependsOn: [chain1])
+
+        when:
+        addToGraphAndPopulate([leaf1, leaf2, chain2])
+
+        then:
+        executedTasks == [chain1, chain2, leaf1, leaf2]
+    }
+
+    @Unroll
+    def "keeps tasks after the tasks they #orderingRule"() {
+        given:
+        Task b = task("b", 1)
+        Task a = task("a", 100, (orderingRule): [b])
+        Task c = task("c", 200)
+
+        when:
+        addToGraphAndPopulate([a, b, c])
+
+        then:
+        executedTasks == [c, b, a]
+
+        where:
+        orderingRule << ['dependsOn', 'mustRunAfter', 'shouldRunAfter']
+    }
+
+    def "assumes tasks without history take as long as the average task"() {
+        given:
+        Task a = task("a")
+        Task b = task("b", 10)
+        Task c = task("c", 4)
+        Task d = task("d", 2, dependsOn: [c])
+
+        when:
+        addToGraphAndPopulate([a, b, d])
+
+        then:
+        executedTasks == [b, c, a, d]
+    }
+
+    def "records the execution time of executed tasks"() {
+        given:
+        Task a = task("a")
+
+        when:
+        addToGraphAndPopulate([a])
+        def executed = executedTasks
+
+        then:
+        executed == [a]
+        1 * history.recordExecutionTime({ it.task == a }, { it >= 0 })
+    }
+
+    private void addToGraphAndPopulate(List tasks) {
+        executionPlan.addEntryTasks(tasks)
+        executionPlan.determineExecutionPlan()
+    }
+
+    List<Task> getExecutedTasks() {
+        def tasks = []
+        while (executionPlan.hasNodesRemaining()) {
+            def nextNode = executionPlan.selectNext(workerLease, Mock(ResourceLockState))
+            assert nextNode != null
+            if (!nextNode.isComplete()) {
+                tasks << nextNode.task
+            }
+            executionPlan.finishedExecuting(nextNode)
+        }
+        return tasks
+    }
+
+    private TaskInternal task(String name, Long executionTime = null) {
+        task([:], name, executionTime)
+    }
+
+    private TaskInternal task(Map options, String name, Long executionTime = null) {
+        def task = createTask(name)
+        dependsOn(task, options.dependsOn ?: [])
+        mustRunAfter(task, options.mustRunAfter ?: [])
+        shouldRunAfter(task, options.shouldRunAfter ?: [])
+        finalizedBy(task, [])
+        task.getSharedResources() >> []
+        task.getDidWork() >> true
+        if (executionTime != null) {
+            executionTimes[task] = executionTime
+        }
+        return task
+    }
+}
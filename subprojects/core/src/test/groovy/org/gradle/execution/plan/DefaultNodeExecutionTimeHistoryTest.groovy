@@ -0,0 +1,86 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan
+
+import org.gradle.api.internal.TaskInternal
+import org.gradle.api.internal.tasks.TaskExecutionOutcome
+import org.gradle.api.internal.tasks.TaskStateInternal
+import org.gradle.internal.execution.history.ExecutionHistoryCacheAccess
+import org.gradle.internal.serialize.BaseSerializerFactory
+import org.gradle.testfixtures.internal.InMemoryIndexedCache
+import org.gradle.util.Path
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class DefaultNodeExecutionTimeHistoryTest extends Specification {
+    def executionTimes = new InMemoryIndexedCache<String, Long>(BaseSerializerFactory.LONG_SERIALIZER)
+    def cacheAccess = Stub(ExecutionHistoryCacheAccess) {
+        createCache(_, _, _) >> executionTimes
+    }
+    def history = new DefaultNodeExecutionTimeHistory(cacheAccess)
+    def state = new TaskStateInternal()
+    def node = new LocalTaskNode(Stub(TaskInternal) {
+        getIdentityPath() >> Path.path(":project:task")
+        getState() >> state
+    }, [:])
+
+    def "records execution time of executed task by its identity path"() {
+        given:
+        state.outcome = TaskExecutionOutcome.EXECUTED
+
+        when:
+        history.recordExecutionTime(node, 1000)
+
+        then:
+        history.getExecutionTime(node) == 1000
+        executionTimes.get(":project:task") == 1000
+    }
+
+    def "smooths execution times of later executions"() {
+        given:
+        state.outcome = TaskExecutionOutcome.EXECUTED
+        history.recordExecutionTime(node, 1000)
+
+        when:
+        history.recordExecutionTime(node, 2000)
+
+        then:
+        history.getExecutionTime(node) == 1300
+    }
+
+    @Unroll
+    def "does not record execution time of #outcome task"() {
+        given:
+        state.outcome = TaskExecutionOutcome.EXECUTED
+        history.recordExecutionTime(node, 1000)
+        state.outcome = outcome
+
+        when:
+        history.recordExecutionTime(node, 10)
+
+        then:
+        history.getExecutionTime(node) == 1000
+
+        where:
+        outcome << [TaskExecutionOutcome.UP_TO_DATE, TaskExecutionOutcome.FROM_CACHE, TaskExecutionOutcome.NO_SOURCE, TaskExecutionOutcome.SKIPPED]
+    }
+
+    def "execution time of unknown task is unknown"() {
+        expect:
+        history.getExecutionTime(node) == NodeExecutionTimeHistory.UNKNOWN
+    }
+}
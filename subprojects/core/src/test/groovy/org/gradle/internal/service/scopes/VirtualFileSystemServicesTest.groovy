@@ -24,6 +24,8 @@ import org.gradle.internal.event.ListenerManager
 import org.gradle.internal.hash.FileHasher
 import org.gradle.internal.nativeintegration.filesystem.FileSystem
 import org.gradle.internal.vfs.AdditiveCacheLocations
+import org.gradle.internal.vfs.FileHashingExecutor
+import org.gradle.internal.vfs.PersistedVirtualFileSystemState
 import org.gradle.internal.vfs.RoutingVirtualFileSystem
 import org.gradle.internal.vfs.VirtualFileSystem
 import org.gradle.internal.vfs.WatchingAwareVirtualFileSystem
@@ -34,6 +36,7 @@ import spock.lang.Unroll
 class VirtualFileSystemServicesTest extends Specification {
     def additiveCacheLocations = Mock(AdditiveCacheLocations)
     def fileHasher = Mock(FileHasher)
+    def hashingExecutor = Mock(FileHashingExecutor)
     def fileSystem = Mock(FileSystem)
     def listenerManager = Mock(ListenerManager)
     def startParameter = Mock(StartParameter)
@@ -49,6 +52,7 @@ class VirtualFileSystemServicesTest extends Specification {
         def buildSessionScopedVirtualFileSystem = new VirtualFileSystemServices.BuildSessionServices().createVirtualFileSystem(
             additiveCacheLocations,
             fileHasher,
+            hashingExecutor,
             fileSystem,
             listenerManager,
             startParameter,
@@ -82,7 +86,10 @@ class VirtualFileSystemServicesTest extends Specification {
             virtualFileSystem,
             { param -> retentionEnabled },
             { param -> false },
-            { param -> null }
+            { param -> null },
+            { param -> false },
+            { param -> new File("root/dir").absoluteFile },
+            Mock(PersistedVirtualFileSystemState)
         )
 
         when:
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.vfs
+
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.concurrent.ParallelismConfigurationManagerFixture
+import org.gradle.internal.resources.DefaultResourceLockCoordinationService
+import org.gradle.internal.work.DefaultWorkerLeaseService
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class FileHashingExecutorTest extends Specification {
+    def parallelismConfiguration = new ParallelismConfigurationManagerFixture(true, 1)
+    def executor = new FileHashingExecutor(new DefaultExecutorFactory(), parallelismConfiguration)
+    def workerLeaseService = new DefaultWorkerLeaseService(new DefaultResourceLockCoordinationService(), parallelismConfiguration)
+
+    def cleanup() {
+        executor.stop()
+        workerLeaseService.stop()
+    }
+
+    def "runs tasks when no build is running"() {
+        def done = new CountDownLatch(1)
+
+        when:
+        executor.execute { done.countDown() }
+
+        then:
+        done.await(10, TimeUnit.SECONDS)
+    }
+
+    def "runs tasks under a worker lease of the build"() {
+        def binding = executor.useWorkerLeases(workerLeaseService, false)
+        def done = new CountDownLatch(1)
+
+        when:
+        workerLeaseService.withLocks([workerLeaseService.workerLease], {
+            executor.execute { done.countDown() }
+            // the only lease is held by this thread
+            assert !done.await(200, TimeUnit.MILLISECONDS)
+        } as Runnable)
+
+        then:
+        done.await(10, TimeUnit.SECONDS)
+
+        cleanup:
+        binding.stop()
+    }
+
+    def "only hashes concurrently while bound to a session asking for it"() {
+        expect:
+        executor.concurrentHashingExecutor == null
+
+        when:
+        def binding = executor.useWorkerLeases(workerLeaseService, true)
+
+        then:
+        executor.concurrentHashingExecutor == executor
+
+        when:
+        binding.stop()
+
+        then:
+        executor.concurrentHashingExecutor == null
+    }
+
+    def "does not use worker leases once the binding is stopped"() {
+        def done = new CountDownLatch(1)
+
+        when:
+        executor.useWorkerLeases(workerLeaseService, false).stop()
+        workerLeaseService.withLocks([workerLeaseService.workerLease], {
+            executor.execute { done.countDown() }
+            assert done.await(10, TimeUnit.SECONDS)
+        } as Runnable)
+
+        then:
+        done.count == 0
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.vfs
+
+import groovy.io.FileType
+import org.apache.tools.ant.DirectoryScanner
+import org.gradle.api.internal.cache.StringInterner
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.hash.FileContentHashFunction
+import org.gradle.internal.hash.TestFileHasher
+import org.gradle.internal.snapshot.CompleteFileSystemLocationSnapshot
+import org.gradle.internal.snapshot.MissingFileSnapshot
+import org.gradle.internal.snapshot.SnapshotHierarchy
+import org.gradle.internal.snapshot.impl.DirectorySnapshotter
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.UsesNativeServices
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.concurrent.atomic.AtomicBoolean
+
+@UsesNativeServices
+class PersistedVirtualFileSystemStateTest extends Specification {
+    @Rule
+    public final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+
+    def stringInterner = new StringInterner()
+    def directorySnapshotter = new DirectorySnapshotter(new TestFileHasher(), stringInterner, DirectoryScanner.getDefaultExcludes())
+    def virtualFileSystem = Mock(WatchingAwareVirtualFileSystem)
+    def rootDirectory = tmpDir.file("project")
+    def contentHashFunction = FileContentHashFunction.MD5
+    def state = createState()
+
+    def cleanup() {
+        state.stop()
+    }
+
+    def "restores unchanged snapshots"() {
+        def root = rootDirectory.createDir("root")
+        root.file("a.txt").text = "a"
+        root.file("sub/b.txt").text = "b"
+        makeOld(root)
+        def snapshot = snapshot(root)
+        def missing = new MissingFileSnapshot(root.file("missing.txt").absolutePath, "missing.txt")
+
+        when:
+        persist(snapshot, missing)
+        def restored = restore()
+
+        then:
+        restored*.absolutePath == [root.absolutePath, missing.absolutePath]
+        restored[0].hash == snapshot.hash
+        restored[1].type == missing.type
+    }
+
+    def "restores unchanged parts of changed directories"() {
+        def root = rootDirectory.createDir("root")
+        def changed = root.file("a.txt")
+        changed.text = "a"
+        def unchanged = root.file("sub/b.txt")
+        unchanged.text = "b"
+        makeOld(root)
+        persist(snapshot(root))
+
+        when:
+        changed.text = "changed"
+        def restored = restore()
+
+        then:
+        restored*.absolutePath == [root.file("sub").absolutePath]
+    }
+
+    def "directory with new entries is not restored unless they are excluded by default"() {
+        def root = rootDirectory.createDir("root")
+        root.file("a.txt").text = "a"
+        makeOld(root)
+        persist(snapshot(root))
+
+        when:
+        root.file(".gitignore").text = "ignored"
+        def restored = restore()
+
+        then:
+        restored*.absolutePath == [root.absolutePath]
+
+        when:
+        root.file("b.txt").text = "b"
+        restored = restore()
+
+        then:
+        restored*.absolutePath == [root.file("a.txt").absolutePath]
+    }
+
+    def "does not restore files modified shortly before the state was persisted"() {
+        def root = rootDirectory.createDir("root")
+        root.file("a.txt").text = "a"
+        makeOld(root)
+        def recent = root.file("sub/b.txt")
+        recent.text = "b"
+        persist(snapshot(root))
+
+        when:
+        def restored = restore()
+
+        then:
+        restored*.absolutePath == [root.file("a.txt").absolutePath]
+    }
+
+    def "keeps state per root project directory"() {
+        def root = rootDirectory.createDir("root")
+        root.file("a.txt").text = "a"
+        def otherRootDirectory = tmpDir.file("other-project")
+        def otherRoot = otherRootDirectory.createDir("other")
+        otherRoot.file("b.txt").text = "b"
+        makeOld(root)
+        makeOld(otherRoot)
+
+        when:
+        persist(snapshot(root))
+        persist(otherRootDirectory, snapshot(otherRoot))
+
+        then:
+        restore()*.absolutePath == [root.absolutePath]
+        restore(otherRootDirectory)*.absolutePath == [otherRoot.absolutePath]
+    }
+
+    def "persists only snapshots below the root project directory"() {
+        def root = rootDirectory.createDir("root")
+        root.file("a.txt").text = "a"
+        def outside = tmpDir.createDir("outside")
+        outside.file("b.txt").text = "b"
+        def siblingWithSamePrefix = tmpDir.createDir("project-other")
+        siblingWithSamePrefix.file("c.txt").text = "c"
+        makeOld(tmpDir.testDirectory)
+
+        when:
+        persist(snapshot(root), snapshot(outside), snapshot(siblingWithSamePrefix))
+
+        then:
+        restore()*.absolutePath == [root.absolutePath]
+    }
+
+    def "persists the part of a snapshot containing the root project directory below it"() {
+        def root = rootDirectory.createDir("root")
+        root.file("a.txt").text = "a"
+        tmpDir.file("outside/b.txt").text = "b"
+        makeOld(tmpDir.testDirectory)
+
+        when:
+        persist(snapshot(tmpDir.testDirectory))
+
+        then:
+        restore()*.absolutePath == [rootDirectory.absolutePath]
+    }
+
+    def "ignores corrupt state"() {
+        def root = rootDirectory.createDir("root")
+        makeOld(root)
+        persist(snapshot(root))
+        tmpDir.file("vfs").listFiles().each { it.text = "corrupt" }
+
+        when:
+        state.restore(virtualFileSystem, rootDirectory)
+
+        then:
+        0 * virtualFileSystem._
+    }
+
+    def "ignores state persisted with a different file content hash function"() {
+        def root = rootDirectory.createDir("root")
+        root.file("a.txt").text = "a"
+        makeOld(root)
+        persist(snapshot(root))
+
+        when:
+        contentHashFunction = FileContentHashFunction.MURMUR3
+        state.stop()
+        state = createState()
+        def restored = restore()
+
+        then:
+        restored.empty
+
+        when:
+        persist(snapshot(root))
+        restored = restore()
+
+        then:
+        restored*.absolutePath == [root.absolutePath]
+    }
+
+    private PersistedVirtualFileSystemState createState() {
+        new PersistedVirtualFileSystemState(tmpDir.file("vfs"), contentHashFunction, TestFiles.fileSystem(), stringInterner, new DefaultExecutorFactory(), DirectoryScanner.getDefaultExcludes())
+    }
+
+    private static void makeOld(File root) {
+        def lastModified = System.currentTimeMillis() - 60_000
+        root.eachFileRecurse(FileType.FILES) { it.setLastModified(lastModified) }
+    }
+
+    private CompleteFileSystemLocationSnapshot snapshot(File location) {
+        directorySnapshotter.snapshot(location.absolutePath, null, new AtomicBoolean())
+    }
+
+    private void persist(CompleteFileSystemLocationSnapshot... snapshots) {
+        persist(rootDirectory, snapshots)
+    }
+
+    private void persist(File rootDirectory, CompleteFileSystemLocationSnapshot... snapshots) {
+        def retainingVirtualFileSystem = Stub(WatchingAwareVirtualFileSystem) {
+            visitRetainedSnapshots(_) >> { SnapshotHierarchy.SnapshotVisitor visitor ->
+                snapshots.each { visitor.visitSnapshotRoot(it) }
+            }
+        }
+        state.persist(retainingVirtualFileSystem, rootDirectory)
+        // Wait for the state to be written
+        state.stop()
+        state = createState()
+    }
+
+    private List<CompleteFileSystemLocationSnapshot> restore(File rootDirectory = this.rootDirectory) {
+        List<CompleteFileSystemLocationSnapshot> restored = []
+        def restoringVirtualFileSystem = Stub(WatchingAwareVirtualFileSystem) {
+            updateWithKnownSnapshot(_) >> { CompleteFileSystemLocationSnapshot snapshot -> restored.add(snapshot) }
+        }
+        state.restore(restoringVirtualFileSystem, rootDirectory)
+        return restored
+    }
+}
@@ -16,6 +16,7 @@
 
 package org.gradle.integtests.resolve
 
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.builder.DependencyGraphBuilder
 import org.gradle.integtests.fixtures.AbstractHttpDependencyResolutionTest
 import org.gradle.test.fixtures.server.http.BlockingHttpServer
 import org.junit.Rule
@@ -131,6 +132,50 @@ class ParallelDownloadsIntegrationTest extends AbstractHttpDependencyResolutionT
         succeeds("resolve")
     }
 
+    def "prefetches metadata of transitive dependencies in parallel when enabled"() {
+        def t1 = mavenRepo.module('test', 'transitive1', '1.0').publish()
+        def t2 = mavenRepo.module('test', 'transitive2', '1.0').publish()
+        def m1 = mavenRepo.module('test', 'test1', '1.0').dependsOn(t1).publish()
+        def m2 = mavenRepo.module('test', 'test2', '1.0').dependsOn(t2).publish()
+
+        buildFile << """
+            repositories {
+                maven {
+                    url = uri('$server.uri')
+                    $authConfig
+                }
+            }
+            configurations { compile }
+            dependencies {
+                compile 'test:test1:1.0'
+                compile 'test:test2:1.0'
+            }
+            task resolve {
+                inputs.files configurations.compile
+                doLast {
+                    println configurations.compile.files
+                }
+            }
+"""
+
+        given:
+        server.expectConcurrent(
+            server.get(m1.pom.path).sendFile(m1.pom.file),
+            server.get(m2.pom.path).sendFile(m2.pom.file))
+        server.expectConcurrent(
+            server.get(t1.pom.path).sendFile(t1.pom.file),
+            server.get(t2.pom.path).sendFile(t2.pom.file))
+        server.expectConcurrent(
+            server.get(m1.artifact.path).sendFile(m1.artifact.file),
+            server.get(m2.artifact.path).sendFile(m2.artifact.file),
+            server.get(t1.artifact.path).sendFile(t1.artifact.file),
+            server.get(t2.artifact.path).sendFile(t2.artifact.file))
+
+        expect:
+        executer.withArguments('--max-workers', '4', "-D${DependencyGraphBuilder.PREFETCH_METADATA_PROPERTY}=true")
+        succeeds("resolve")
+    }
+
     def "parallel download honors max workers"() {
         def m1 = mavenRepo.module('test', 'test1', '1.0').publish()
         def m2 = mavenRepo.module('test', 'test2', '1.0').publish()
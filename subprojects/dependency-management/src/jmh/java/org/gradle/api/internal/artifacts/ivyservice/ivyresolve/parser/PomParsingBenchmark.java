@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser;
+
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.xml.sax.InputSource;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Parses every {@code .pom} file below a directory with the streaming parser used by {@link PomReader} and, for comparison, into a full DOM.
+ *
+ * The directory has to be given with the {@code corpus} parameter. Use the same directory, for example a copy of a module
+ * cache, when comparing results.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@State(Scope.Benchmark)
+public class PomParsingBenchmark {
+    @Param("")
+    String corpus;
+
+    List<byte[]> poms;
+    byte[] m2Entities;
+    DocumentBuilderFactory documentBuilderFactory;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        if (corpus.isEmpty()) {
+            throw new IllegalArgumentException("Use the 'corpus' parameter to specify a directory containing POM files.");
+        }
+        poms = loadPoms(Paths.get(corpus));
+        m2Entities = IOUtils.toByteArray(org.apache.ivy.plugins.parser.m2.PomReader.class.getResourceAsStream("m2-entities.ent"));
+        documentBuilderFactory = DocumentBuilderFactory.newInstance();
+        documentBuilderFactory.setValidating(false);
+    }
+
+    @Benchmark
+    public void streaming(Blackhole blackhole) throws Exception {
+        for (byte[] pom : poms) {
+            blackhole.consume(PomReader.parse(new ByteArrayInputStream(pom), "file:/benchmark.pom"));
+        }
+    }
+
+    @Benchmark
+    public void dom(Blackhole blackhole) throws Exception {
+        for (byte[] pom : poms) {
+            DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
+            documentBuilder.setEntityResolver((publicId, systemId) -> systemId != null && systemId.endsWith("m2-entities.ent") ? new InputSource(new ByteArrayInputStream(m2Entities)) : null);
+            InputStream dtdStream = new PomDomParser.AddDTDFilterInputStream(new ByteArrayInputStream(pom));
+            blackhole.consume(documentBuilder.parse(dtdStream, "file:/benchmark.pom"));
+        }
+    }
+
+    private static List<byte[]> loadPoms(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            throw new IllegalArgumentException("POM directory " + directory + " does not exist.");
+        }
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(directory)) {
+            files = walk.filter(path -> path.toString().endsWith(".pom")).sorted().collect(Collectors.toList());
+        }
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("No POM files found in " + directory);
+        }
+        List<byte[]> poms = new ArrayList<byte[]>(files.size());
+        for (Path file : files) {
+            poms.add(Files.readAllBytes(file));
+        }
+        return poms;
+    }
+}
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.artifacts;
 
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.DecodedModuleMetadataCache;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.ResolutionResultsStoreFactory;
 import org.gradle.api.internal.file.TemporaryFileProvider;
 
@@ -27,4 +28,8 @@ class DependencyManagementBuildTreeScopeServices {
     ResolutionResultsStoreFactory createResolutionResultsStoreFactory(TemporaryFileProvider temporaryFileProvider) {
         return new ResolutionResultsStoreFactory(temporaryFileProvider);
     }
+
+    DecodedModuleMetadataCache createDecodedModuleMetadataCache() {
+        return new DecodedModuleMetadataCache();
+    }
 }
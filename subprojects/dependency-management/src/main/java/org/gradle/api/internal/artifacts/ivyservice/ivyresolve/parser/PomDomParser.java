@@ -16,39 +16,102 @@
 
 package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser;
 
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import com.google.common.collect.ImmutableSet;
 
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.io.*;
-import java.util.LinkedList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 
+/**
+ * Reads a POM into a tree of {@link PomElement}s using a streaming parser.
+ *
+ * Only the parts of the POM that are used to build component metadata are retained.
+ * Everything else, such as the build, reporting, developer and license sections, is skipped while streaming.
+ */
 public final class PomDomParser {
-    private PomDomParser() {}
+    private static final ImmutableSet<String> PROJECT_CHILDREN = ImmutableSet.of(
+        "groupId", "artifactId", "version", "packaging", "parent", "dependencies", "dependencyManagement", "distributionManagement", "properties", "profiles"
+    );
+    private static final ImmutableSet<String> DISTRIBUTION_MANAGEMENT_CHILDREN = ImmutableSet.of("relocation");
+    private static final ImmutableSet<String> PROFILE_CHILDREN = ImmutableSet.of("id", "activation", "properties", "dependencies", "dependencyManagement");
 
-    public static String getTextContent(Element element) {
-        StringBuilder result = new StringBuilder();
-
-        NodeList childNodes = element.getChildNodes();
-        for (int i = 0; i < childNodes.getLength(); i++) {
-            Node child = childNodes.item(i);
+    private PomDomParser() {}
 
-            switch (child.getNodeType()) {
-                case Node.CDATA_SECTION_NODE:
-                case Node.TEXT_NODE:
-                    result.append(child.getNodeValue());
+    /**
+     * Reads the document from the given reader, returning its root element.
+     */
+    public static PomElement parse(XMLStreamReader reader) throws XMLStreamException {
+        PomElement root = null;
+        Deque<PomElement> retained = new ArrayDeque<PomElement>();
+        int skippedDepth = 0;
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    String name = reader.getLocalName();
+                    if (skippedDepth > 0) {
+                        skippedDepth++;
+                    } else if (root == null) {
+                        root = new PomElement(name);
+                        retained.push(root);
+                    } else if (isRetained(retained.size(), retained.peek().getNodeName(), name)) {
+                        PomElement element = new PomElement(name);
+                        retained.peek().children.add(element);
+                        retained.push(element);
+                    } else {
+                        skippedDepth = 1;
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    if (skippedDepth > 0) {
+                        skippedDepth--;
+                    } else {
+                        retained.pop().complete();
+                    }
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    if (skippedDepth == 0 && !retained.isEmpty()) {
+                        retained.peek().appendText(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    }
+                    break;
+                case XMLStreamConstants.COMMENT:
+                    if (skippedDepth == 0 && retained.size() == 1) {
+                        root.comments.add(reader.getText());
+                    }
                     break;
                 default:
                     break;
             }
         }
+        return root;
+    }
 
-        return result.toString();
+    private static boolean isRetained(int depth, String parentName, String name) {
+        if (depth == 1) {
+            return PROJECT_CHILDREN.contains(name);
+        }
+        if (depth == 2 && "distributionManagement".equals(parentName)) {
+            return DISTRIBUTION_MANAGEMENT_CHILDREN.contains(name);
+        }
+        if (depth == 3 && "profile".equals(parentName)) {
+            return PROFILE_CHILDREN.contains(name);
+        }
+        return true;
+    }
+
+    public static String getTextContent(PomElement element) {
+        return element.getTextContent();
     }
 
-    public static String getFirstChildText(Element parentElem, String name) {
-        Element node = getFirstChildElement(parentElem, name);
+    public static String getFirstChildText(PomElement parentElem, String name) {
+        PomElement node = getFirstChildElement(parentElem, name);
         if (node != null) {
             return getTextContent(node);
         } else {
@@ -56,32 +119,81 @@ public static String getFirstChildText(Element parentElem, String name) {
         }
     }
 
-    public static Element getFirstChildElement(Element parentElem, String name) {
+    public static PomElement getFirstChildElement(PomElement parentElem, String name) {
         if (parentElem == null) {
             return null;
         }
-        NodeList childs = parentElem.getChildNodes();
-        for (int i = 0; i < childs.getLength(); i++) {
-            Node node = childs.item(i);
-            if (node instanceof Element && name.equals(node.getNodeName())) {
-                return (Element) node;
+        for (PomElement child : parentElem.children) {
+            if (name.equals(child.getNodeName())) {
+                return child;
             }
         }
         return null;
     }
 
-    public static List<Element> getAllChilds(Element parent) {
-        List<Element> r = new LinkedList<Element>();
-        if (parent != null) {
-            NodeList childs = parent.getChildNodes();
-            for (int i = 0; i < childs.getLength(); i++) {
-                Node node = childs.item(i);
-                if (node instanceof Element) {
-                    r.add((Element) node);
+    public static List<PomElement> getAllChilds(PomElement parent) {
+        if (parent == null) {
+            return Collections.emptyList();
+        }
+        return parent.children;
+    }
+
+    /**
+     * An element of a POM, holding its own text and its retained child elements.
+     */
+    public static final class PomElement {
+        private final String name;
+        private final List<PomElement> children = new ArrayList<PomElement>(4);
+        private final List<String> comments = new ArrayList<String>(0);
+        private String text;
+        private StringBuilder textBuilder;
+
+        PomElement(String name) {
+            this.name = name;
+        }
+
+        public String getNodeName() {
+            return name;
+        }
+
+        /**
+         * Returns the comments that are direct children of this element. Only collected for the root element.
+         */
+        public List<String> getComments() {
+            return comments;
+        }
+
+        private void appendText(char[] chars, int start, int length) {
+            if (text == null) {
+                text = new String(chars, start, length);
+            } else {
+                if (textBuilder == null) {
+                    textBuilder = new StringBuilder(text);
                 }
+                textBuilder.append(chars, start, length);
             }
         }
-        return r;
+
+        private void complete() {
+            if (textBuilder != null) {
+                text = textBuilder.toString();
+                textBuilder = null;
+            } else if (text == null) {
+                text = "";
+            }
+        }
+
+        /**
+         * Returns the concatenated text and CDATA content of this element, excluding the content of its child elements.
+         */
+        public String getTextContent() {
+            return text;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
     }
 
     public static final class AddDTDFilterInputStream extends FilterInputStream {
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import com.google.common.collect.Maps;
+import org.gradle.internal.component.external.model.ModuleComponentResolveMetadata;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.util.Map;
+
+/**
+ * Module metadata decoded from the module metadata stores, shared by all builds of a build tree.
+ *
+ * Each build of a build tree, like buildSrc and included builds, has its own in-memory module metadata cache, and would
+ * otherwise decode the same cached descriptors again. A decoded descriptor is only reused while the module metadata
+ * cache entry it was decoded for is unchanged.
+ */
+public class DecodedModuleMetadataCache {
+    private final Map<File, Map<ModuleComponentAtRepositoryKey, DecodedMetadata>> stores = Maps.newConcurrentMap();
+
+    @Nullable
+    ModuleComponentResolveMetadata get(File metadataStoreDir, ModuleComponentAtRepositoryKey key, ModuleMetadataCacheEntry entry) {
+        DecodedMetadata decoded = forStore(metadataStoreDir).get(key);
+        if (decoded == null || !decoded.isDecodedFor(entry)) {
+            return null;
+        }
+        return decoded.metadata;
+    }
+
+    void put(File metadataStoreDir, ModuleComponentAtRepositoryKey key, ModuleMetadataCacheEntry entry, ModuleComponentResolveMetadata metadata) {
+        forStore(metadataStoreDir).put(key, new DecodedMetadata(entry, metadata));
+    }
+
+    void remove(File metadataStoreDir, ModuleComponentAtRepositoryKey key) {
+        forStore(metadataStoreDir).remove(key);
+    }
+
+    private Map<ModuleComponentAtRepositoryKey, DecodedMetadata> forStore(File metadataStoreDir) {
+        return stores.computeIfAbsent(metadataStoreDir, dir -> Maps.newConcurrentMap());
+    }
+
+    private static class DecodedMetadata {
+        private final boolean isChanging;
+        private final long createTimestamp;
+        private final ModuleComponentResolveMetadata metadata;
+
+        DecodedMetadata(ModuleMetadataCacheEntry entry, ModuleComponentResolveMetadata metadata) {
+            this.isChanging = entry.isChanging;
+            this.createTimestamp = entry.createTimestamp;
+            this.metadata = metadata;
+        }
+
+        boolean isDecodedFor(ModuleMetadataCacheEntry entry) {
+            return !entry.isMissing() && entry.isChanging == isChanging && entry.createTimestamp == createTimestamp;
+        }
+    }
+}
@@ -35,10 +35,14 @@
 import org.gradle.internal.serialize.Encoder;
 import org.gradle.util.BuildCommencedTimeProvider;
 
+import java.io.File;
+
 public class PersistentModuleMetadataCache extends AbstractModuleMetadataCache {
 
     private PersistentIndexedCache<ModuleComponentAtRepositoryKey, ModuleMetadataCacheEntry> cache;
     private final ModuleMetadataStore moduleMetadataStore;
+    private final File metadataStoreDir;
+    private final DecodedModuleMetadataCache decodedMetadataCache;
     private final ArtifactCacheLockingManager artifactCacheLockingManager;
 
     public PersistentModuleMetadataCache(BuildCommencedTimeProvider timeProvider,
@@ -50,9 +54,12 @@ public PersistentModuleMetadataCache(BuildCommencedTimeProvider timeProvider,
                                          IvyMutableModuleMetadataFactory ivyMetadataFactory,
                                          Interner<String> stringInterner,
                                          ModuleSourcesSerializer moduleSourcesSerializer,
-                                         ChecksumService checksumService) {
+                                         ChecksumService checksumService,
+                                         DecodedModuleMetadataCache decodedMetadataCache) {
         super(timeProvider);
-        moduleMetadataStore = new ModuleMetadataStore(new DefaultPathKeyFileStore(checksumService, artifactCacheMetadata.getMetaDataStoreDirectory()), new ModuleMetadataSerializer(attributeContainerSerializer, mavenMetadataFactory, ivyMetadataFactory, moduleSourcesSerializer), moduleIdentifierFactory, stringInterner);
+        metadataStoreDir = artifactCacheMetadata.getMetaDataStoreDirectory();
+        moduleMetadataStore = new ModuleMetadataStore(new DefaultPathKeyFileStore(checksumService, metadataStoreDir), new ModuleMetadataSerializer(attributeContainerSerializer, mavenMetadataFactory, ivyMetadataFactory, moduleSourcesSerializer), moduleIdentifierFactory, stringInterner);
+        this.decodedMetadataCache = decodedMetadataCache;
         this.artifactCacheLockingManager = artifactCacheLockingManager;
     }
 
@@ -78,13 +85,19 @@ protected CachedMetadata get(ModuleComponentAtRepositoryKey key) {
             if (entry.isMissing()) {
                 return new DefaultCachedMetadata(entry, null, timeProvider);
             }
+            ModuleComponentResolveMetadata decoded = decodedMetadataCache.get(metadataStoreDir, key, entry);
+            if (decoded != null) {
+                return new DefaultCachedMetadata(entry, decoded, timeProvider);
+            }
             MutableModuleComponentResolveMetadata metadata = moduleMetadataStore.getModuleDescriptor(key);
             if (metadata == null) {
                 // Descriptor file has been deleted - ignore the entry
                 cache.remove(key);
                 return null;
             }
-            return new DefaultCachedMetadata(entry, entry.configure(metadata), timeProvider);
+            decoded = entry.configure(metadata);
+            decodedMetadataCache.put(metadataStoreDir, key, entry, decoded);
+            return new DefaultCachedMetadata(entry, decoded, timeProvider);
         });
     }
 
@@ -98,6 +111,7 @@ protected void store(final ModuleComponentAtRepositoryKey key, final ModuleMetad
                 final ModuleComponentResolveMetadata metadata = cachedMetadata.getMetadata();
                 moduleMetadataStore.putModuleDescriptor(key, metadata);
                 getCache().put(key, entry);
+                decodedMetadataCache.remove(metadataStoreDir, key);
             });
         }
     }
@@ -16,6 +16,8 @@
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.simple;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories.ExcludeFactory;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ArtifactExclude;
@@ -28,11 +30,20 @@
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ModuleIdExclude;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ModuleIdSetExclude;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ModuleSetExclude;
+import org.gradle.internal.Cast;
 import org.gradle.internal.component.model.IvyArtifactName;
 
 import java.util.Set;
 
+/**
+ * Creates the simple exclude specs. Specs are hash-consed: asking for a spec which is
+ * equal to one created earlier returns the earlier instance. As a consequence, composite
+ * specs only ever contain canonical components, so comparing them, and looking them up
+ * in the merge caches, mostly boils down to identity checks instead of walking the trees.
+ */
 public class DefaultExcludeFactory implements ExcludeFactory {
+    private final Interner<ExcludeSpec> interner = Interners.newStrongInterner();
+
     @Override
     public ExcludeNothing nothing() {
         return DefaultExcludeNothing.get();
@@ -45,61 +56,66 @@ public ExcludeEverything everything() {
 
     @Override
     public GroupExclude group(String group) {
-        return DefaultGroupExclude.of(group);
+        return intern(DefaultGroupExclude.of(group));
     }
 
     @Override
     public ModuleExclude module(String module) {
-        return DefaultModuleExclude.of(module);
+        return intern(DefaultModuleExclude.of(module));
     }
 
     @Override
     public ModuleIdExclude moduleId(ModuleIdentifier id) {
-        return DefaultModuleIdExclude.of(id);
+        return intern(DefaultModuleIdExclude.of(id));
     }
 
     @Override
     public ArtifactExclude artifact(ModuleIdentifier id, IvyArtifactName artifact) {
-        return DefaultModuleArtifactExclude.of(id, artifact);
+        return intern(DefaultModuleArtifactExclude.of(id, artifact));
     }
 
     @Override
     public ExcludeSpec anyOf(ExcludeSpec one, ExcludeSpec two) {
-        return DefaultExcludeAnyOf.of(ImmutableSet.of(one, two));
+        return intern(DefaultExcludeAnyOf.of(ImmutableSet.of(one, two)));
     }
 
     @Override
     public ExcludeSpec allOf(ExcludeSpec one, ExcludeSpec two) {
-        return DefaultExcludeAllOf.of(ImmutableSet.of(one, two));
+        return intern(DefaultExcludeAllOf.of(ImmutableSet.of(one, two)));
     }
 
     @Override
     public ExcludeSpec anyOf(Set<ExcludeSpec> specs) {
-        return DefaultExcludeAnyOf.of(ImmutableSet.copyOf(specs));
+        return intern(DefaultExcludeAnyOf.of(ImmutableSet.copyOf(specs)));
     }
 
     @Override
     public ExcludeSpec allOf(Set<ExcludeSpec> specs) {
-        return DefaultExcludeAllOf.of(ImmutableSet.copyOf(specs));
+        return intern(DefaultExcludeAllOf.of(ImmutableSet.copyOf(specs)));
     }
 
     @Override
     public ExcludeSpec ivyPatternExclude(ModuleIdentifier moduleId, IvyArtifactName artifact, String matcher) {
-        return DefaultIvyPatternMatcherExcludeRuleSpec.of(moduleId, artifact, matcher);
+        return intern(DefaultIvyPatternMatcherExcludeRuleSpec.of(moduleId, artifact, matcher));
     }
 
     @Override
     public ModuleIdSetExclude moduleIdSet(Set<ModuleIdentifier> modules) {
-        return DefaultModuleIdSetExclude.of(modules);
+        return intern(DefaultModuleIdSetExclude.of(modules));
     }
 
     @Override
     public GroupSetExclude groupSet(Set<String> groups) {
-        return new DefaultGroupSetExclude(groups);
+        return intern(new DefaultGroupSetExclude(groups));
     }
 
     @Override
     public ModuleSetExclude moduleSet(Set<String> modules) {
-        return new DefaultModuleSetExclude(modules);
+        return intern(new DefaultModuleSetExclude(modules));
+    }
+
+    private <T extends ExcludeSpec> T intern(T spec) {
+        // equal specs are always of the same type
+        return Cast.uncheckedCast(interner.intern(spec));
     }
 }
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.builder;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import org.gradle.api.artifacts.Dependency;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier;
+import org.gradle.internal.component.model.ComponentResolveMetadata;
+import org.gradle.internal.component.model.ConfigurationMetadata;
+import org.gradle.internal.component.model.DefaultComponentOverrideMetadata;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
+import org.gradle.internal.resolve.result.DefaultBuildableComponentResolveResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Speculatively downloads the metadata of the module versions a component depends on, and of their dependencies in turn,
+ * while the metadata of the component is downloaded. The graph traversal then finds the metadata in the repository caches,
+ * instead of paying one round trip per level of the graph.
+ *
+ * Only dependencies on a fixed version are followed, since other versions can only be chosen by the traversal.
+ * Module versions which do not end up in the graph, for example because they lose conflict resolution or are substituted,
+ * are downloaded for nothing.
+ */
+class MetadataPrefetcher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetadataPrefetcher.class);
+
+    private final ComponentMetaDataResolver metaDataResolver;
+    private final VersionSelectorScheme versionSelectorScheme;
+    private final Set<ModuleComponentIdentifier> requested = ConcurrentHashMap.newKeySet();
+
+    MetadataPrefetcher(ComponentMetaDataResolver metaDataResolver, VersionSelectorScheme versionSelectorScheme) {
+        this.metaDataResolver = metaDataResolver;
+        this.versionSelectorScheme = versionSelectorScheme;
+    }
+
+    /**
+     * Downloads the metadata of the given component, then prefetches the metadata of its dependencies.
+     */
+    void download(ComponentState component, BuildOperationQueue<RunnableBuildOperation> queue) {
+        if (component.getComponentId() instanceof ModuleComponentIdentifier) {
+            requested.add((ModuleComponentIdentifier) component.getComponentId());
+        }
+        queue.add(new DownloadMetadataAndPrefetchOperation(component, queue));
+    }
+
+    private void prefetchDependencies(ComponentResolveMetadata metadata, BuildOperationQueue<RunnableBuildOperation> queue) {
+        for (ConfigurationMetadata configuration : configurationsForGraphTraversal(metadata)) {
+            for (DependencyMetadata dependency : configuration.getDependencies()) {
+                ModuleComponentIdentifier target = fixedVersionTarget(dependency);
+                if (target != null && requested.add(target) && !metaDataResolver.isFetchingMetadataCheap(target)) {
+                    queue.add(new PrefetchMetadataOperation(target, queue));
+                }
+            }
+        }
+    }
+
+    private static List<? extends ConfigurationMetadata> configurationsForGraphTraversal(ComponentResolveMetadata metadata) {
+        Optional<ImmutableList<? extends ConfigurationMetadata>> variants = metadata.getVariantsForGraphTraversal();
+        if (variants.isPresent() && !variants.get().isEmpty()) {
+            return variants.get();
+        }
+        ConfigurationMetadata defaultConfiguration = metadata.getConfiguration(Dependency.DEFAULT_CONFIGURATION);
+        return defaultConfiguration == null ? Collections.emptyList() : Collections.singletonList(defaultConfiguration);
+    }
+
+    /**
+     * Returns the module version the dependency points to, if it does not depend on the traversal.
+     * Changing dependencies and dependencies on specific artifacts are resolved with different metadata overrides, so they are skipped as well.
+     */
+    @Nullable
+    private ModuleComponentIdentifier fixedVersionTarget(DependencyMetadata dependency) {
+        if (dependency.isConstraint() || dependency.isChanging() || !dependency.getArtifacts().isEmpty()) {
+            return null;
+        }
+        ComponentSelector selector = dependency.getSelector();
+        if (!(selector instanceof ModuleComponentSelector)) {
+            return null;
+        }
+        ModuleComponentSelector moduleSelector = (ModuleComponentSelector) selector;
+        String version = moduleSelector.getVersionConstraint().getRequiredVersion();
+        if (version.isEmpty() || versionSelectorScheme.parseSelector(version).isDynamic()) {
+            return null;
+        }
+        return DefaultModuleComponentIdentifier.newId(moduleSelector.getModuleIdentifier(), version);
+    }
+
+    private class DownloadMetadataAndPrefetchOperation implements RunnableBuildOperation {
+        private final ComponentState component;
+        private final BuildOperationQueue<RunnableBuildOperation> queue;
+
+        DownloadMetadataAndPrefetchOperation(ComponentState component, BuildOperationQueue<RunnableBuildOperation> queue) {
+            this.component = component;
+            this.queue = queue;
+        }
+
+        @Override
+        public void run(BuildOperationContext context) {
+            ComponentResolveMetadata metadata = component.getMetadata();
+            if (metadata != null) {
+                prefetchDependencies(metadata, queue);
+            }
+        }
+
+        @Override
+        public BuildOperationDescriptor.Builder description() {
+            return BuildOperationDescriptor.displayName("Resolve " + component);
+        }
+    }
+
+    private class PrefetchMetadataOperation implements RunnableBuildOperation {
+        private final ModuleComponentIdentifier id;
+        private final BuildOperationQueue<RunnableBuildOperation> queue;
+
+        PrefetchMetadataOperation(ModuleComponentIdentifier id, BuildOperationQueue<RunnableBuildOperation> queue) {
+            this.id = id;
+            this.queue = queue;
+        }
+
+        @Override
+        public void run(BuildOperationContext context) {
+            DefaultBuildableComponentResolveResult result = new DefaultBuildableComponentResolveResult();
+            try {
+                metaDataResolver.resolve(id, DefaultComponentOverrideMetadata.EMPTY, result);
+            } catch (RuntimeException e) {
+                // The traversal resolves the component again if it needs it, and reports the failure then
+                LOGGER.debug("Could not prefetch metadata for {}", id, e);
+                return;
+            }
+            if (result.hasResult() && result.getFailure() == null) {
+                prefetchDependencies(result.getMetadata(), queue);
+            }
+        }
+
+        @Override
+        public BuildOperationDescriptor.Builder description() {
+            return BuildOperationDescriptor.displayName("Prefetch metadata for " + id);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import static org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.PomDomParser.PomElement
+import static org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.PomDomParser.getAllChilds
+import static org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.PomDomParser.getFirstChildElement
+import static org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.PomDomParser.getFirstChildText
+
+class PomDomParserTest extends Specification {
+
+    def "retains the sections used to build component metadata"() {
+        when:
+        def project = parse """
+<project>
+    <modelVersion>4.0.0</modelVersion>
+    <parent>
+        <groupId>group-parent</groupId>
+        <artifactId>artifact-parent</artifactId>
+        <version>version-parent</version>
+    </parent>
+    <groupId>group-one</groupId>
+    <artifactId>artifact-one</artifactId>
+    <version>version-one</version>
+    <packaging>jar</packaging>
+    <properties>
+        <some.prop>some-value</some.prop>
+    </properties>
+    <dependencyManagement>
+        <dependencies>
+            <dependency>
+                <groupId>group-two</groupId>
+                <artifactId>artifact-two</artifactId>
+                <version>version-two</version>
+            </dependency>
+        </dependencies>
+    </dependencyManagement>
+    <dependencies>
+        <dependency>
+            <groupId>group-three</groupId>
+            <artifactId>artifact-three</artifactId>
+            <exclusions>
+                <exclusion>
+                    <groupId>group-four</groupId>
+                    <artifactId>artifact-four</artifactId>
+                </exclusion>
+            </exclusions>
+        </dependency>
+    </dependencies>
+</project>
+"""
+
+        then:
+        project.nodeName == 'project'
+        names(project) == ['parent', 'groupId', 'artifactId', 'version', 'packaging', 'properties', 'dependencyManagement', 'dependencies']
+        getFirstChildText(getFirstChildElement(project, 'parent'), 'artifactId') == 'artifact-parent'
+        getFirstChildText(getFirstChildElement(project, 'properties'), 'some.prop') == 'some-value'
+        def managed = getFirstChildElement(getFirstChildElement(getFirstChildElement(project, 'dependencyManagement'), 'dependencies'), 'dependency')
+        getFirstChildText(managed, 'version') == 'version-two'
+        def dependency = getFirstChildElement(getFirstChildElement(project, 'dependencies'), 'dependency')
+        getFirstChildText(dependency, 'artifactId') == 'artifact-three'
+        getFirstChildText(getFirstChildElement(getFirstChildElement(dependency, 'exclusions'), 'exclusion'), 'groupId') == 'group-four'
+    }
+
+    def "skips sections which are not used"() {
+        when:
+        def project = parse """
+<project>
+    <groupId>group-one</groupId>
+    <name>Test Artifact One</name>
+    <licenses>
+        <license>
+            <name>The Apache Software License, Version 2.0</name>
+        </license>
+    </licenses>
+    <build>
+        <plugins>
+            <plugin>
+                <artifactId>maven-compiler-plugin</artifactId>
+                <dependencies>
+                    <dependency>
+                        <artifactId>plugin-dependency</artifactId>
+                    </dependency>
+                </dependencies>
+            </plugin>
+        </plugins>
+    </build>
+    <distributionManagement>
+        <site>
+            <id>site</id>
+        </site>
+        <relocation>
+            <groupId>group-relocated</groupId>
+        </relocation>
+    </distributionManagement>
+    <artifactId>artifact-one</artifactId>
+</project>
+"""
+
+        then:
+        names(project) == ['groupId', 'distributionManagement', 'artifactId']
+        def distributionManagement = getFirstChildElement(project, 'distributionManagement')
+        names(distributionManagement) == ['relocation']
+        getFirstChildText(getFirstChildElement(distributionManagement, 'relocation'), 'groupId') == 'group-relocated'
+    }
+
+    def "retains the used sections of profiles"() {
+        when:
+        def project = parse """
+<project>
+    <profiles>
+        <profile>
+            <id>profile-1</id>
+            <activation>
+                <activeByDefault>true</activeByDefault>
+                <property>
+                    <name>some.prop</name>
+                </property>
+            </activation>
+            <build>
+                <finalName>skipped</finalName>
+            </build>
+            <properties>
+                <some.prop>profile-value</some.prop>
+            </properties>
+            <dependencyManagement>
+                <dependencies/>
+            </dependencyManagement>
+            <dependencies>
+                <dependency>
+                    <artifactId>artifact-two</artifactId>
+                </dependency>
+            </dependencies>
+            <reporting/>
+        </profile>
+    </profiles>
+</project>
+"""
+
+        then:
+        def profile = getFirstChildElement(getFirstChildElement(project, 'profiles'), 'profile')
+        names(profile) == ['id', 'activation', 'properties', 'dependencyManagement', 'dependencies']
+        getFirstChildText(profile, 'id') == 'profile-1'
+        names(getFirstChildElement(profile, 'activation')) == ['activeByDefault', 'property']
+        getFirstChildText(getFirstChildElement(getFirstChildElement(profile, 'activation'), 'property'), 'name') == 'some.prop'
+        getFirstChildText(getFirstChildElement(profile, 'properties'), 'some.prop') == 'profile-value'
+        getFirstChildText(getFirstChildElement(getFirstChildElement(profile, 'dependencies'), 'dependency'), 'artifactId') == 'artifact-two'
+    }
+
+    @Unroll
+    def "reads text content from #content"() {
+        when:
+        def project = parse """
+<project>
+    <groupId>${content}</groupId>
+</project>
+"""
+
+        then:
+        getFirstChildText(project, 'groupId') == text
+
+        where:
+        content                                       | text
+        'group-one'                                   | 'group-one'
+        '<![CDATA[group-one]]>'                       | 'group-one'
+        'group-<![CDATA[one]]>'                       | 'group-one'
+        'group<!-- comment -->-one'                   | 'group-one'
+        ' group-one '                                 | ' group-one '
+        ''                                            | ''
+        'group&amp;one'                               | 'group&one'
+        'group&#45;one'                               | 'group-one'
+    }
+
+    def "text content of an element does not include the text of its children"() {
+        when:
+        def project = parse """
+<project>
+    <properties>text<some.prop>some-value</some.prop> more text</properties>
+</project>
+"""
+
+        then:
+        getFirstChildElement(project, 'properties').textContent == 'text more text'
+    }
+
+    def "replaces Maven entities"() {
+        when:
+        def project = parse """
+<project>
+    <groupId>caf&eacute;</groupId>
+    <artifactId>a&nbsp;b</artifactId>
+</project>
+"""
+
+        then:
+        getFirstChildText(project, 'groupId') == 'caf\u00e9'
+        getFirstChildText(project, 'artifactId') == 'a\u00a0b'
+    }
+
+    def "replaces Maven entities when POM has an XML declaration"() {
+        when:
+        def project = parse """<?xml version="1.0" encoding="UTF-8"?>
+<project>
+    <groupId>caf&eacute;</groupId>
+</project>
+"""
+
+        then:
+        getFirstChildText(project, 'groupId') == 'caf\u00e9'
+    }
+
+    def "collects comments of the root element only"() {
+        when:
+        def project = parse """
+<!-- before project -->
+<project>
+    <!-- do_not_remove: published-with-gradle-metadata -->
+    <groupId>group-one<!-- in groupId --></groupId>
+    <build>
+        <!-- in build -->
+    </build>
+    <!-- another -->
+</project>
+"""
+
+        then:
+        project.comments == [' do_not_remove: published-with-gradle-metadata ', ' another ']
+    }
+
+    private static PomElement parse(String pom) {
+        return PomReader.parse(new ByteArrayInputStream(pom.trim().getBytes("UTF-8")), "file:/pom.xml")
+    }
+
+    private static List<String> names(PomElement element) {
+        return getAllChilds(element)*.nodeName
+    }
+}
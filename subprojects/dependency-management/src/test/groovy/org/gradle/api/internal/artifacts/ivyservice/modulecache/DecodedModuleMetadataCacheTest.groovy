@@ -0,0 +1,69 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache
+
+import org.gradle.internal.component.external.model.ModuleComponentResolveMetadata
+import spock.lang.Specification
+import spock.lang.Subject
+
+class DecodedModuleMetadataCacheTest extends Specification {
+    def storeDir = new File("store")
+    def key = Stub(ModuleComponentAtRepositoryKey)
+    def entry = new ModuleMetadataCacheEntry(ModuleMetadataCacheEntry.TYPE_PRESENT, false, 100)
+    def metadata = Stub(ModuleComponentResolveMetadata)
+
+    @Subject
+    def cache = new DecodedModuleMetadataCache()
+
+    def "reuses metadata decoded for the same cache entry"() {
+        when:
+        cache.put(storeDir, key, entry, metadata)
+
+        then:
+        cache.get(storeDir, key, entry) == metadata
+        cache.get(storeDir, key, new ModuleMetadataCacheEntry(ModuleMetadataCacheEntry.TYPE_PRESENT, false, 100)) == metadata
+    }
+
+    def "does not reuse metadata decoded for another cache entry"() {
+        given:
+        cache.put(storeDir, key, entry, metadata)
+
+        expect:
+        cache.get(storeDir, key, new ModuleMetadataCacheEntry(ModuleMetadataCacheEntry.TYPE_PRESENT, false, 200)) == null
+        cache.get(storeDir, key, new ModuleMetadataCacheEntry(ModuleMetadataCacheEntry.TYPE_PRESENT, true, 100)) == null
+        cache.get(storeDir, key, ModuleMetadataCacheEntry.forMissingModule(100)) == null
+    }
+
+    def "does not share metadata between metadata stores"() {
+        given:
+        cache.put(storeDir, key, entry, metadata)
+
+        expect:
+        cache.get(new File("other"), key, entry) == null
+    }
+
+    def "forgets removed metadata"() {
+        given:
+        cache.put(storeDir, key, entry, metadata)
+
+        when:
+        cache.remove(storeDir, key)
+
+        then:
+        cache.get(storeDir, key, entry) == null
+    }
+}
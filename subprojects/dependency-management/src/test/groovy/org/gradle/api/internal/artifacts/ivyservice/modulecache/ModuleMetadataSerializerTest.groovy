@@ -47,6 +47,8 @@ import org.gradle.internal.resource.local.LocalFileStandInExternalResource
 import org.gradle.internal.resource.local.LocallyAvailableExternalResource
 import org.gradle.internal.serialize.InputStreamBackedDecoder
 import org.gradle.internal.serialize.OutputStreamBackedEncoder
+import org.gradle.internal.serialize.kryo.StringDeduplicatingKryoBackedDecoder
+import org.gradle.internal.serialize.kryo.StringDeduplicatingKryoBackedEncoder
 import org.gradle.util.AttributeTestUtil
 import org.gradle.util.TestUtil
 import spock.lang.Specification
@@ -96,6 +98,22 @@ class ModuleMetadataSerializerTest extends Specification {
 
     }
 
+    @Unroll
+    def "can write and re-read sample #sample.parentFile.name metadata file #sample.name using a string table"() {
+        given:
+        def metadata = parse(sample)
+        def bytes = serializeWithStringTable(metadata)
+
+        when:
+        def deserializedMetadata = serializer.read(new StringDeduplicatingKryoBackedDecoder(new ByteArrayInputStream(bytes)), moduleIdentifierFactory, Maps.newHashMap()).asImmutable()
+
+        then:
+        deserializedMetadata == metadata.asImmutable()
+
+        where:
+        sample << sampleFiles()
+    }
+
     private MutableModuleComponentResolveMetadata deserialize(byte[] serializedForm) {
         serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(serializedForm)), moduleIdentifierFactory, Maps.newHashMap())
     }
@@ -106,6 +124,14 @@ class ModuleMetadataSerializerTest extends Specification {
         baos.toByteArray()
     }
 
+    private byte[] serializeWithStringTable(MutableModuleComponentResolveMetadata metadata) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream()
+        def encoder = new StringDeduplicatingKryoBackedEncoder(baos)
+        serializer.write(encoder, metadata.asImmutable(), Maps.newHashMap())
+        encoder.close()
+        baos.toByteArray()
+    }
+
     static List<File> sampleFiles() {
         def baseUrl = ModuleMetadataSerializerTest.getResource("${this.simpleName}")
         def samples = []
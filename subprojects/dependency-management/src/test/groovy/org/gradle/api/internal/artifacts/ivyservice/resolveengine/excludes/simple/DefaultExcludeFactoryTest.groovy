@@ -0,0 +1,48 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.simple
+
+import org.gradle.internal.component.model.DefaultIvyArtifactName
+import spock.lang.Specification
+
+import static org.gradle.api.internal.artifacts.DefaultModuleIdentifier.newId
+
+class DefaultExcludeFactoryTest extends Specification {
+    def factory = new DefaultExcludeFactory()
+
+    def "returns the same instance for equal specs"() {
+        expect:
+        factory.group("org").is(factory.group("org"))
+        factory.module("foo").is(factory.module("foo"))
+        factory.moduleId(newId("org", "foo")).is(factory.moduleId(newId("org", "foo")))
+        factory.artifact(newId("org", "foo"), new DefaultIvyArtifactName("foo", "jar", "jar")).is(factory.artifact(newId("org", "foo"), new DefaultIvyArtifactName("foo", "jar", "jar")))
+        factory.groupSet(["org", "com"] as Set).is(factory.groupSet(["com", "org"] as Set))
+        factory.moduleSet(["foo", "bar"] as Set).is(factory.moduleSet(["bar", "foo"] as Set))
+        factory.moduleIdSet([newId("org", "foo"), newId("org", "bar")] as Set).is(factory.moduleIdSet([newId("org", "bar"), newId("org", "foo")] as Set))
+    }
+
+    def "returns the same instance for equal composite specs"() {
+        def group = factory.group("org")
+        def module = factory.module("foo")
+
+        expect:
+        factory.anyOf(group, module).is(factory.anyOf(factory.module("foo"), factory.group("org")))
+        factory.anyOf(group, module).is(factory.anyOf([module, group] as Set))
+        factory.allOf(group, module).is(factory.allOf([factory.group("org"), factory.module("foo")] as Set))
+        !factory.anyOf(group, module).is(factory.allOf(group, module))
+    }
+}
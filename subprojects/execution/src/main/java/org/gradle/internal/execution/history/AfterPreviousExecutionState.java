@@ -19,6 +19,9 @@
 import com.google.common.collect.ImmutableSortedMap;
 import org.gradle.caching.internal.origin.OriginMetadata;
 import org.gradle.internal.fingerprint.FileCollectionFingerprint;
+import org.gradle.internal.hash.HashCode;
+
+import java.util.Optional;
 
 /**
  * A execution state after the previous execution has finished.
@@ -35,6 +38,13 @@ public interface AfterPreviousExecutionState extends ExecutionState {
      */
     boolean isSuccessful();
 
+    /**
+     * The digest of the state after the execution, if the execution was successful and the digest could be calculated.
+     *
+     * @see org.gradle.internal.execution.history.impl.ExecutionStateDigest
+     */
+    Optional<HashCode> getDigest();
+
     @Override
     ImmutableSortedMap<String, FileCollectionFingerprint> getInputFileProperties();
 
@@ -19,6 +19,7 @@
 import com.google.common.collect.ImmutableSortedMap;
 import org.gradle.internal.fingerprint.CurrentFileCollectionFingerprint;
 import org.gradle.internal.fingerprint.overlap.OverlappingOutputs;
+import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.snapshot.FileSystemSnapshot;
 
 import java.util.Optional;
@@ -41,4 +42,11 @@ public interface BeforeExecutionState extends ExecutionState {
      * @see org.gradle.internal.execution.UnitOfWork#getOverlappingOutputHandling()
      */
     Optional<OverlappingOutputs> getDetectedOverlappingOutputs();
+
+    /**
+     * The digest of the state, if it can be calculated.
+     *
+     * @see org.gradle.internal.execution.history.impl.ExecutionStateDigest
+     */
+    Optional<HashCode> getDigest();
 }
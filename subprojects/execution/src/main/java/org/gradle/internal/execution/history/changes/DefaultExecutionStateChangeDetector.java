@@ -23,10 +23,49 @@
 import org.gradle.internal.execution.history.AfterPreviousExecutionState;
 import org.gradle.internal.execution.history.BeforeExecutionState;
 import org.gradle.internal.fingerprint.CurrentFileCollectionFingerprint;
+import org.gradle.internal.hash.HashCode;
+
+import java.util.Optional;
 
 public class DefaultExecutionStateChangeDetector implements ExecutionStateChangeDetector {
     @Override
     public ExecutionStateChanges detectChanges(AfterPreviousExecutionState lastExecution, BeforeExecutionState thisExecution, Describable executable, IncrementalInputProperties incrementalInputProperties) {
+        ImmutableList<String> rebuildReasons = hasSameDigest(lastExecution, thisExecution)
+            ? ImmutableList.of()
+            : detectRebuildReasons(lastExecution, thisExecution, executable, incrementalInputProperties);
+
+        if (!rebuildReasons.isEmpty()) {
+            return new NonIncrementalDetectedExecutionStateChanges(
+                rebuildReasons,
+                thisExecution.getInputFileProperties(),
+                incrementalInputProperties
+            );
+        } else {
+            // Collect incremental input changes
+            InputFileChanges directIncrementalInputFileChanges = incrementalInputProperties.incrementalChanges(
+                lastExecution.getInputFileProperties(),
+                thisExecution.getInputFileProperties()
+            );
+            InputFileChanges incrementalInputFileChanges = errorHandling(executable, caching(directIncrementalInputFileChanges));
+            ImmutableList<String> incrementalInputFileChangeMessages = collectChanges(incrementalInputFileChanges);
+            return new IncrementalDetectedExecutionStateChanges(
+                incrementalInputFileChangeMessages,
+                thisExecution.getInputFileProperties(),
+                incrementalInputFileChanges,
+                incrementalInputProperties
+            );
+        }
+    }
+
+    /**
+     * Whether the digests show that nothing has changed. In that case none of the detailed comparisons can find a change either.
+     */
+    private static boolean hasSameDigest(AfterPreviousExecutionState lastExecution, BeforeExecutionState thisExecution) {
+        Optional<HashCode> lastDigest = lastExecution.getDigest();
+        return lastDigest.isPresent() && lastDigest.equals(thisExecution.getDigest());
+    }
+
+    private static ImmutableList<String> detectRebuildReasons(AfterPreviousExecutionState lastExecution, BeforeExecutionState thisExecution, Describable executable, IncrementalInputProperties incrementalInputProperties) {
         // Capture changes in execution outcome
         ChangeContainer previousSuccessState = new PreviousSuccessChanges(
             lastExecution.isSuccessful());
@@ -81,29 +120,7 @@ public ExecutionStateChanges detectChanges(AfterPreviousExecutionState lastExecu
             inputFilePropertyChanges,
             nonIncrementalInputFileChanges
         ));
-        ImmutableList<String> rebuildReasons = collectChanges(rebuildTriggeringChanges);
-
-        if (!rebuildReasons.isEmpty()) {
-            return new NonIncrementalDetectedExecutionStateChanges(
-                rebuildReasons,
-                thisExecution.getInputFileProperties(),
-                incrementalInputProperties
-            );
-        } else {
-            // Collect incremental input changes
-            InputFileChanges directIncrementalInputFileChanges = incrementalInputProperties.incrementalChanges(
-                lastExecution.getInputFileProperties(),
-                thisExecution.getInputFileProperties()
-            );
-            InputFileChanges incrementalInputFileChanges = errorHandling(executable, caching(directIncrementalInputFileChanges));
-            ImmutableList<String> incrementalInputFileChangeMessages = collectChanges(incrementalInputFileChanges);
-            return new IncrementalDetectedExecutionStateChanges(
-                incrementalInputFileChangeMessages,
-                thisExecution.getInputFileProperties(),
-                incrementalInputFileChanges,
-                incrementalInputProperties
-            );
-        }
+        return collectChanges(rebuildTriggeringChanges);
     }
 
     private static ImmutableList<String> collectChanges(ChangeContainer changes) {
@@ -21,12 +21,18 @@
 import org.gradle.caching.internal.origin.OriginMetadata;
 import org.gradle.internal.execution.history.AfterPreviousExecutionState;
 import org.gradle.internal.fingerprint.FileCollectionFingerprint;
+import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.snapshot.ValueSnapshot;
 import org.gradle.internal.snapshot.impl.ImplementationSnapshot;
 
+import javax.annotation.Nullable;
+import java.util.Optional;
+
 public class DefaultAfterPreviousExecutionState extends AbstractExecutionState<FileCollectionFingerprint> implements AfterPreviousExecutionState {
     private final OriginMetadata originMetadata;
     private final boolean successful;
+    @Nullable
+    private final HashCode digest;
 
     public DefaultAfterPreviousExecutionState(
         OriginMetadata originMetadata,
@@ -35,11 +41,13 @@ public DefaultAfterPreviousExecutionState(
         ImmutableSortedMap<String, ValueSnapshot> inputProperties,
         ImmutableSortedMap<String, FileCollectionFingerprint> inputFileProperties,
         ImmutableSortedMap<String, FileCollectionFingerprint> outputFileProperties,
-        boolean successful
+        boolean successful,
+        @Nullable HashCode digest
     ) {
         super(implementation, additionalImplementations, inputProperties, inputFileProperties, outputFileProperties);
         this.originMetadata = originMetadata;
         this.successful = successful;
+        this.digest = digest;
     }
 
     @Override
@@ -51,4 +59,9 @@ public OriginMetadata getOriginMetadata() {
     public boolean isSuccessful() {
         return successful;
     }
+
+    @Override
+    public Optional<HashCode> getDigest() {
+        return Optional.ofNullable(digest);
+    }
 }
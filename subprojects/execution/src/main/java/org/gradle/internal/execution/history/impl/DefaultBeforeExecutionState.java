@@ -21,6 +21,7 @@
 import org.gradle.internal.execution.history.BeforeExecutionState;
 import org.gradle.internal.fingerprint.CurrentFileCollectionFingerprint;
 import org.gradle.internal.fingerprint.overlap.OverlappingOutputs;
+import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.snapshot.FileSystemSnapshot;
 import org.gradle.internal.snapshot.ValueSnapshot;
 import org.gradle.internal.snapshot.impl.ImplementationSnapshot;
@@ -32,6 +33,7 @@ public class DefaultBeforeExecutionState extends AbstractExecutionState<CurrentF
     private final ImmutableSortedMap<String, FileSystemSnapshot> outputFileSnapshots;
     @Nullable
     private final OverlappingOutputs detectedOutputOverlaps;
+    private Optional<HashCode> digest;
 
     public DefaultBeforeExecutionState(
         ImplementationSnapshot implementation,
@@ -62,4 +64,12 @@ public ImmutableSortedMap<String, FileSystemSnapshot> getOutputFileSnapshots() {
     public Optional<OverlappingOutputs> getDetectedOverlappingOutputs() {
         return Optional.ofNullable(detectedOutputOverlaps);
     }
+
+    @Override
+    public Optional<HashCode> getDigest() {
+        if (digest == null) {
+            digest = Optional.ofNullable(ExecutionStateDigest.digest(implementation, additionalImplementations, inputProperties, inputFileProperties, outputFileProperties));
+        }
+        return digest;
+    }
 }
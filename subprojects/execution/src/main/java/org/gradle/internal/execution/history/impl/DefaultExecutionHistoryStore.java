@@ -73,7 +73,10 @@ public void store(
             inputProperties,
             prepareForSerialization(inputFileProperties),
             prepareForSerialization(outputFileProperties),
+            successful,
             successful
+                ? ExecutionStateDigest.digest(implementation, additionalImplementations, inputProperties, inputFileProperties, outputFileProperties)
+                : null
         ));
     }
 
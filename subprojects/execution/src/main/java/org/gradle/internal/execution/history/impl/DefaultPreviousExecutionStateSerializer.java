@@ -22,9 +22,11 @@
 import org.gradle.caching.internal.origin.OriginMetadata;
 import org.gradle.internal.execution.history.AfterPreviousExecutionState;
 import org.gradle.internal.fingerprint.FileCollectionFingerprint;
+import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.serialize.AbstractSerializer;
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.HashCodeSerializer;
 import org.gradle.internal.serialize.Serializer;
 import org.gradle.internal.snapshot.ValueSnapshot;
 import org.gradle.internal.snapshot.impl.ImplementationSnapshot;
@@ -32,11 +34,13 @@
 import org.gradle.internal.snapshot.impl.SnapshotSerializer;
 
 import java.util.Map;
+import java.util.Optional;
 
 public class DefaultPreviousExecutionStateSerializer extends AbstractSerializer<AfterPreviousExecutionState> {
     private final Serializer<FileCollectionFingerprint> fileCollectionFingerprintSerializer;
     private final Serializer<ImplementationSnapshot> implementationSnapshotSerializer;
     private final Serializer<ValueSnapshot> valueSnapshotSerializer = new SnapshotSerializer();
+    private final HashCodeSerializer hashCodeSerializer = new HashCodeSerializer();
 
     public DefaultPreviousExecutionStateSerializer(Serializer<FileCollectionFingerprint> fileCollectionFingerprintSerializer) {
         this.fileCollectionFingerprintSerializer = fileCollectionFingerprintSerializer;
@@ -66,6 +70,9 @@ public AfterPreviousExecutionState read(Decoder decoder) throws Exception {
         ImmutableSortedMap<String, FileCollectionFingerprint> outputFilesFingerprints = readFingerprints(decoder);
 
         boolean successful = decoder.readBoolean();
+        HashCode digest = decoder.readBoolean()
+            ? hashCodeSerializer.read(decoder)
+            : null;
 
         return new DefaultAfterPreviousExecutionState(
             originMetadata,
@@ -74,7 +81,8 @@ public AfterPreviousExecutionState read(Decoder decoder) throws Exception {
             inputProperties,
             inputFilesFingerprints,
             outputFilesFingerprints,
-            successful
+            successful,
+            digest
         );
     }
 
@@ -96,6 +104,11 @@ public void write(Encoder encoder, AfterPreviousExecutionState execution) throws
         writeFingerprints(encoder, execution.getOutputFileProperties());
 
         encoder.writeBoolean(execution.isSuccessful());
+        Optional<HashCode> digest = execution.getDigest();
+        encoder.writeBoolean(digest.isPresent());
+        if (digest.isPresent()) {
+            hashCodeSerializer.write(encoder, digest.get());
+        }
     }
 
     public ImmutableSortedMap<String, ValueSnapshot> readInputProperties(Decoder decoder) throws Exception {
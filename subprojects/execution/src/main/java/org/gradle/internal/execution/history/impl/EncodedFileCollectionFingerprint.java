@@ -0,0 +1,78 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.execution.history.impl;
+
+import com.google.common.collect.ImmutableMultimap;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.internal.fingerprint.FileCollectionFingerprint;
+import org.gradle.internal.fingerprint.FileSystemLocationFingerprint;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * A fingerprint loaded from the execution history, which only decodes its fingerprints when they are first requested.
+ *
+ * Comparing the root hashes is enough to find out that nothing changed, so for up-to-date work the paths are never materialized.
+ */
+class EncodedFileCollectionFingerprint implements FileCollectionFingerprint {
+
+    private final ImmutableMultimap<String, HashCode> rootHashes;
+    private final FingerprintMapSerializer fingerprintMapSerializer;
+    private byte[] encodedFingerprints;
+    private Map<String, FileSystemLocationFingerprint> fingerprints;
+
+    EncodedFileCollectionFingerprint(ImmutableMultimap<String, HashCode> rootHashes, byte[] encodedFingerprints, FingerprintMapSerializer fingerprintMapSerializer) {
+        this.rootHashes = rootHashes;
+        this.encodedFingerprints = encodedFingerprints;
+        this.fingerprintMapSerializer = fingerprintMapSerializer;
+    }
+
+    @Override
+    public synchronized Map<String, FileSystemLocationFingerprint> getFingerprints() {
+        if (fingerprints == null) {
+            fingerprints = decode(encodedFingerprints);
+            encodedFingerprints = null;
+        }
+        return fingerprints;
+    }
+
+    @Override
+    public ImmutableMultimap<String, HashCode> getRootHashes() {
+        return rootHashes;
+    }
+
+    /**
+     * Returns the encoded fingerprints, or {@code null} when they have been decoded already.
+     */
+    @Nullable
+    synchronized byte[] getEncodedFingerprints() {
+        return encodedFingerprints;
+    }
+
+    private Map<String, FileSystemLocationFingerprint> decode(byte[] encodedFingerprints) {
+        try (KryoBackedDecoder decoder = new KryoBackedDecoder(new ByteArrayInputStream(encodedFingerprints))) {
+            return fingerprintMapSerializer.read(decoder);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not decode fingerprints from the execution history", e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.execution.history.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ImmutableSortedMap;
+import org.gradle.internal.fingerprint.FileCollectionFingerprint;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.snapshot.ValueSnapshot;
+import org.gradle.internal.snapshot.impl.ImplementationSnapshot;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+
+/**
+ * Combines everything the up-to-date check compares into a single hash.
+ *
+ * When the digest of the state before an execution matches the digest stored for the previous execution,
+ * no change would be found by comparing the details.
+ */
+public class ExecutionStateDigest {
+
+    private ExecutionStateDigest() {
+    }
+
+    /**
+     * Returns the digest, or {@code null} when the state contains an implementation that cannot be tracked and so is always considered changed.
+     */
+    @Nullable
+    public static HashCode digest(
+        ImplementationSnapshot implementation,
+        ImmutableList<ImplementationSnapshot> additionalImplementations,
+        ImmutableSortedMap<String, ValueSnapshot> inputProperties,
+        ImmutableSortedMap<String, ? extends FileCollectionFingerprint> inputFileProperties,
+        ImmutableSortedMap<String, ? extends FileCollectionFingerprint> outputFileProperties
+    ) {
+        Hasher hasher = Hashing.newHasher();
+        implementation.appendToHasher(hasher);
+        hasher.putInt(additionalImplementations.size());
+        for (ImplementationSnapshot additionalImplementation : additionalImplementations) {
+            additionalImplementation.appendToHasher(hasher);
+        }
+        hasher.putInt(inputProperties.size());
+        for (Map.Entry<String, ValueSnapshot> entry : inputProperties.entrySet()) {
+            hasher.putString(entry.getKey());
+            entry.getValue().appendToHasher(hasher);
+        }
+        appendFingerprints(hasher, inputFileProperties);
+        appendFingerprints(hasher, outputFileProperties);
+        return hasher.isValid() ? hasher.hash() : null;
+    }
+
+    /**
+     * Uses the root hashes, which are already known, like the comparison of the fingerprints does before it looks at individual files.
+     */
+    private static void appendFingerprints(Hasher hasher, ImmutableSortedMap<String, ? extends FileCollectionFingerprint> fingerprints) {
+        hasher.putInt(fingerprints.size());
+        for (Map.Entry<String, ? extends FileCollectionFingerprint> entry : fingerprints.entrySet()) {
+            ImmutableMultimap<String, HashCode> rootHashes = entry.getValue().getRootHashes();
+            hasher.putString(entry.getKey());
+            hasher.putInt(rootHashes.size());
+            for (Map.Entry<String, HashCode> rootHash : rootHashes.entries()) {
+                hasher.putString(rootHash.getKey());
+                hasher.putHash(rootHash.getValue());
+            }
+        }
+    }
+}
@@ -26,7 +26,9 @@
 import org.gradle.internal.serialize.Encoder;
 import org.gradle.internal.serialize.HashCodeSerializer;
 import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Map;
 
@@ -44,12 +46,13 @@ public FileCollectionFingerprintSerializer(StringInterner stringInterner) {
 
     @Override
     public FileCollectionFingerprint read(Decoder decoder) throws IOException {
-        Map<String, FileSystemLocationFingerprint> fingerprints = fingerprintMapSerializer.read(decoder);
-        if (fingerprints.isEmpty()) {
+        boolean empty = decoder.readBoolean();
+        if (empty) {
             return FileCollectionFingerprint.EMPTY;
         }
         ImmutableMultimap<String, HashCode> rootHashes = readRootHashes(decoder);
-        return new SerializableFileCollectionFingerprint(fingerprints, rootHashes);
+        byte[] encodedFingerprints = decoder.readBinary();
+        return new EncodedFileCollectionFingerprint(rootHashes, encodedFingerprints, fingerprintMapSerializer);
     }
 
     private ImmutableMultimap<String, HashCode> readRootHashes(Decoder decoder) throws IOException {
@@ -68,10 +71,31 @@ private ImmutableMultimap<String, HashCode> readRootHashes(Decoder decoder) thro
 
     @Override
     public void write(Encoder encoder, FileCollectionFingerprint value) throws Exception {
-        fingerprintMapSerializer.write(encoder, value.getFingerprints());
-        if (!value.getFingerprints().isEmpty()) {
-            writeRootHashes(encoder, value.getRootHashes());
+        byte[] encodedFingerprints = value instanceof EncodedFileCollectionFingerprint
+            ? ((EncodedFileCollectionFingerprint) value).getEncodedFingerprints()
+            : null;
+        if (encodedFingerprints == null) {
+            Map<String, FileSystemLocationFingerprint> fingerprints = value.getFingerprints();
+            if (fingerprints.isEmpty()) {
+                encoder.writeBoolean(true);
+                return;
+            }
+            encodedFingerprints = encode(fingerprints);
         }
+        encoder.writeBoolean(false);
+        writeRootHashes(encoder, value.getRootHashes());
+        encoder.writeBinary(encodedFingerprints);
+    }
+
+    /**
+     * Encodes the fingerprints separately, so they can be decoded lazily when reading them back.
+     */
+    private byte[] encode(Map<String, FileSystemLocationFingerprint> fingerprints) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (KryoBackedEncoder encoder = new KryoBackedEncoder(output)) {
+            fingerprintMapSerializer.write(encoder, fingerprints);
+        }
+        return output.toByteArray();
     }
 
     private void writeRootHashes(Encoder encoder, ImmutableMultimap<String, HashCode> rootHashes) throws IOException {
@@ -35,6 +35,7 @@
 public class FingerprintMapSerializer extends AbstractSerializer<Map<String, FileSystemLocationFingerprint>> {
     private static final byte DEFAULT_NORMALIZATION = 1;
     private static final byte IGNORED_PATH_NORMALIZATION = 2;
+    private static final byte SUFFIX_OF_ABSOLUTE_PATH_NORMALIZATION = 3;
 
     private static final byte DIR_FINGERPRINT = 1;
     private static final byte MISSING_FILE_FINGERPRINT = 2;
@@ -51,15 +52,18 @@ public FingerprintMapSerializer(StringInterner stringInterner) {
     public Map<String, FileSystemLocationFingerprint> read(Decoder decoder) throws IOException {
         int fingerprintCount = decoder.readSmallInt();
         ImmutableMap.Builder<String, FileSystemLocationFingerprint> fingerprints = ImmutableMap.builderWithExpectedSize(fingerprintCount);
+        String previousPath = "";
         for (int i = 0; i < fingerprintCount; i++) {
-            String absolutePath = stringInterner.intern(decoder.readString());
-            FileSystemLocationFingerprint fingerprint = readFingerprint(decoder);
+            int sharedPrefixLength = decoder.readSmallInt();
+            String absolutePath = stringInterner.intern(previousPath.substring(0, sharedPrefixLength) + decoder.readString());
+            FileSystemLocationFingerprint fingerprint = readFingerprint(decoder, absolutePath);
             fingerprints.put(absolutePath, fingerprint);
+            previousPath = absolutePath;
         }
         return fingerprints.build();
     }
 
-    private FileSystemLocationFingerprint readFingerprint(Decoder decoder) throws IOException {
+    private FileSystemLocationFingerprint readFingerprint(Decoder decoder, String absolutePath) throws IOException {
         FileType fileType = readFileType(decoder);
         HashCode contentHash = readContentHash(fileType, decoder);
 
@@ -70,6 +74,10 @@ private FileSystemLocationFingerprint readFingerprint(Decoder decoder) throws IO
                 return new DefaultFileSystemLocationFingerprint(stringInterner.intern(normalizedPath), fileType, contentHash);
             case IGNORED_PATH_NORMALIZATION:
                 return IgnoredPathFileSystemLocationFingerprint.create(fileType, contentHash);
+            case SUFFIX_OF_ABSOLUTE_PATH_NORMALIZATION:
+                int normalizedPathLength = decoder.readSmallInt();
+                String normalizedSuffix = absolutePath.substring(absolutePath.length() - normalizedPathLength);
+                return new DefaultFileSystemLocationFingerprint(stringInterner.intern(normalizedSuffix), fileType, contentHash);
             default:
                 throw new RuntimeException("Unable to read serialized file fingerprint. Unrecognized value found in the data stream.");
         }
@@ -105,13 +113,31 @@ private FileType readFileType(Decoder decoder) throws IOException {
     @Override
     public void write(Encoder encoder, Map<String, FileSystemLocationFingerprint> value) throws Exception {
         encoder.writeSmallInt(value.size());
-        for (String key : value.keySet()) {
-            encoder.writeString(key);
-            FileSystemLocationFingerprint fingerprint = value.get(key);
-            writeFingerprint(encoder, fingerprint);
+        // Fingerprints are usually ordered by location, so each path shares a long prefix with the one before it
+        String previousPath = "";
+        for (Map.Entry<String, FileSystemLocationFingerprint> entry : value.entrySet()) {
+            String absolutePath = entry.getKey();
+            int sharedPrefixLength = sharedPrefixLength(previousPath, absolutePath);
+            encoder.writeSmallInt(sharedPrefixLength);
+            encoder.writeString(absolutePath.substring(sharedPrefixLength));
+            writeFingerprint(encoder, absolutePath, entry.getValue());
+            previousPath = absolutePath;
         }
     }
 
+    private static int sharedPrefixLength(String previousPath, String path) {
+        int maxLength = Math.min(previousPath.length(), path.length());
+        int length = 0;
+        while (length < maxLength && previousPath.charAt(length) == path.charAt(length)) {
+            length++;
+        }
+        // Don't split surrogate pairs
+        if (length > 0 && Character.isHighSurrogate(path.charAt(length - 1))) {
+            length--;
+        }
+        return length;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (!super.equals(obj)) {
@@ -127,7 +153,7 @@ public int hashCode() {
         return Objects.hashCode(super.hashCode(), hashCodeSerializer);
     }
 
-    private void writeFingerprint(Encoder encoder, FileSystemLocationFingerprint value) throws IOException {
+    private void writeFingerprint(Encoder encoder, String absolutePath, FileSystemLocationFingerprint value) throws IOException {
         switch (value.getType()) {
             case Directory:
                 encoder.writeByte(DIR_FINGERPRINT);
@@ -144,8 +170,15 @@ private void writeFingerprint(Encoder encoder, FileSystemLocationFingerprint val
         }
 
         if (value instanceof DefaultFileSystemLocationFingerprint) {
-            encoder.writeByte(DEFAULT_NORMALIZATION);
-            encoder.writeString(value.getNormalizedPath());
+            String normalizedPath = value.getNormalizedPath();
+            // Relative, name-only and absolute normalized paths can be restored from the absolute path
+            if (absolutePath.endsWith(normalizedPath)) {
+                encoder.writeByte(SUFFIX_OF_ABSOLUTE_PATH_NORMALIZATION);
+                encoder.writeSmallInt(normalizedPath.length());
+            } else {
+                encoder.writeByte(DEFAULT_NORMALIZATION);
+                encoder.writeString(normalizedPath);
+            }
         } else if (value instanceof IgnoredPathFileSystemLocationFingerprint) {
             encoder.writeByte(IGNORED_PATH_NORMALIZATION);
         } else {
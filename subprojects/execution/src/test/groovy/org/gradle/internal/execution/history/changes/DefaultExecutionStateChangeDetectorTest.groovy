@@ -0,0 +1,83 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.execution.history.changes
+
+import com.google.common.collect.ImmutableList
+import com.google.common.collect.ImmutableSortedMap
+import org.gradle.api.Describable
+import org.gradle.internal.execution.history.AfterPreviousExecutionState
+import org.gradle.internal.execution.history.BeforeExecutionState
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.snapshot.impl.ImplementationSnapshot
+import spock.lang.Specification
+
+class DefaultExecutionStateChangeDetectorTest extends Specification {
+    def changeDetector = new DefaultExecutionStateChangeDetector()
+    def executable = Stub(Describable) {
+        getDisplayName() >> "task ':test'"
+    }
+    def implementation = ImplementationSnapshot.of("org.gradle.Task", HashCode.fromInt(123))
+    def thisExecution = Mock(BeforeExecutionState) {
+        getImplementation() >> implementation
+        getAdditionalImplementations() >> ImmutableList.of()
+        getInputProperties() >> ImmutableSortedMap.of()
+        getInputFileProperties() >> ImmutableSortedMap.of()
+        getOutputFileProperties() >> ImmutableSortedMap.of()
+        getDigest() >> Optional.of(HashCode.fromInt(1))
+    }
+
+    def "does not compare details when the digest is unchanged"() {
+        def lastExecution = Mock(AfterPreviousExecutionState) {
+            getInputFileProperties() >> ImmutableSortedMap.of()
+            getDigest() >> Optional.of(HashCode.fromInt(1))
+        }
+
+        when:
+        def changes = changeDetector.detectChanges(lastExecution, thisExecution, executable, IncrementalInputProperties.NONE)
+
+        then:
+        changes.allChangeMessages.empty
+        0 * lastExecution.isSuccessful()
+        0 * lastExecution.getImplementation()
+        0 * lastExecution.getInputProperties()
+        0 * lastExecution.getOutputFileProperties()
+    }
+
+    def "compares details when #description"() {
+        def lastExecution = Mock(AfterPreviousExecutionState) {
+            getImplementation() >> implementation
+            getAdditionalImplementations() >> ImmutableList.of()
+            getInputProperties() >> ImmutableSortedMap.of()
+            getInputFileProperties() >> ImmutableSortedMap.of()
+            getOutputFileProperties() >> ImmutableSortedMap.of()
+            isSuccessful() >> successful
+            getDigest() >> digest
+        }
+
+        when:
+        def changes = changeDetector.detectChanges(lastExecution, thisExecution, executable, IncrementalInputProperties.NONE)
+
+        then:
+        changes.allChangeMessages == messages
+
+        where:
+        description                     | successful | digest                           | messages
+        "the digest changed"            | true       | Optional.of(HashCode.fromInt(2)) | []
+        "there is no previous digest"   | true       | Optional.empty()                 | []
+        "the previous execution failed" | false      | Optional.empty()                 | ["Task has failed previously."]
+    }
+}
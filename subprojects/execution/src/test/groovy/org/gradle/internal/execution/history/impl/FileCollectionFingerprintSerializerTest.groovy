@@ -90,4 +90,51 @@ class FileCollectionFingerprintSerializerTest extends SerializerSpec {
         out.fingerprints.keySet() as List == ["/3", "/2", "/1"]
         out.rootHashes.keySet() as List == ["/3", "/2", "/1"]
     }
+
+    def "restores paths sharing prefixes and normalized paths derived from them"() {
+        def fingerprints = [
+            "/root/a": new DefaultFileSystemLocationFingerprint("a", FileType.Directory, FileSystemLocationFingerprint.DIR_SIGNATURE),
+            "/root/a/b.txt": new DefaultFileSystemLocationFingerprint("a/b.txt", FileType.RegularFile, HashCode.fromInt(1234)),
+            "/root/a/b\uD83D\uDE00.txt": new DefaultFileSystemLocationFingerprint("b\uD83D\uDE00.txt", FileType.RegularFile, HashCode.fromInt(5678)),
+            "/root/a/b\uD83D\uDE01.txt": new DefaultFileSystemLocationFingerprint("other", FileType.RegularFile, HashCode.fromInt(9012)),
+            "/other": new DefaultFileSystemLocationFingerprint("", FileType.Missing, FileSystemLocationFingerprint.MISSING_FILE_SIGNATURE),
+        ]
+
+        when:
+        def out = serialize(new SerializableFileCollectionFingerprint(fingerprints, ImmutableMultimap.of("/root/a", HashCode.fromInt(1), "/other", HashCode.fromInt(2))), serializer)
+
+        then:
+        out.fingerprints.keySet() as List == fingerprints.keySet() as List
+        out.fingerprints.collect { path, fingerprint -> fingerprint.normalizedPath } == fingerprints.values()*.normalizedPath
+        out.fingerprints.collect { path, fingerprint -> fingerprint.normalizedContentHash } == fingerprints.values()*.normalizedContentHash
+    }
+
+    def "decodes fingerprints only when they are requested"() {
+        def rootHashes = ImmutableMultimap.of("/1", HashCode.fromInt(1234))
+
+        when:
+        def out = serialize(new SerializableFileCollectionFingerprint(
+            '/1': new DefaultFileSystemLocationFingerprint("1", FileType.RegularFile, HashCode.fromInt(1234)),
+            rootHashes
+        ), serializer)
+
+        then:
+        out.rootHashes == rootHashes
+        out.encodedFingerprints != null
+
+        when:
+        def reserialized = serialize(out, serializer)
+
+        then:
+        out.encodedFingerprints != null
+        reserialized.fingerprints.keySet() == ["/1"] as Set
+
+        when:
+        def fingerprints = out.fingerprints
+
+        then:
+        fingerprints['/1'].normalizedPath == "1"
+        out.encodedFingerprints == null
+        out.fingerprints.is(fingerprints)
+    }
 }
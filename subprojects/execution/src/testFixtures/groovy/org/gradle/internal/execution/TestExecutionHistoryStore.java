@@ -22,6 +22,7 @@
 import org.gradle.internal.execution.history.AfterPreviousExecutionState;
 import org.gradle.internal.execution.history.ExecutionHistoryStore;
 import org.gradle.internal.execution.history.impl.DefaultAfterPreviousExecutionState;
+import org.gradle.internal.execution.history.impl.ExecutionStateDigest;
 import org.gradle.internal.execution.history.impl.SerializableFileCollectionFingerprint;
 import org.gradle.internal.fingerprint.CurrentFileCollectionFingerprint;
 import org.gradle.internal.fingerprint.FileCollectionFingerprint;
@@ -53,7 +54,10 @@ public void store(String key, OriginMetadata originMetadata, ImplementationSnaps
             inputProperties,
             prepareForSerialization(inputFileProperties),
             prepareForSerialization(outputFileProperties),
+            successful,
             successful
+                ? ExecutionStateDigest.digest(implementation, additionalImplementations, inputProperties, inputFileProperties, outputFileProperties)
+                : null
         ));
     }
 
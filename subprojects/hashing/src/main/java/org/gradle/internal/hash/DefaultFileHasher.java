@@ -23,33 +23,74 @@
 import java.io.UncheckedIOException;
 
 public class DefaultFileHasher implements FileHasher {
+    /**
+     * Threshold to use when files should never be hashed by memory mapping them.
+     */
+    public static final long NO_MEMORY_MAPPING = Long.MAX_VALUE;
+
     private final StreamHasher streamHasher;
+    private volatile long memoryMappingThreshold;
 
     public DefaultFileHasher(StreamHasher streamHasher) {
+        this(streamHasher, NO_MEMORY_MAPPING);
+    }
+
+    /**
+     * Creates a file hasher that hashes files with at least {@code memoryMappingThreshold} bytes by memory mapping them.
+     */
+    public DefaultFileHasher(StreamHasher streamHasher, long memoryMappingThreshold) {
         this.streamHasher = streamHasher;
+        this.memoryMappingThreshold = memoryMappingThreshold;
+    }
+
+    /**
+     * Changes the size from which files are hashed by memory mapping them, for example when a new build asks for a different threshold.
+     */
+    public void setMemoryMappingThreshold(long memoryMappingThreshold) {
+        this.memoryMappingThreshold = memoryMappingThreshold;
     }
 
     @Override
     public HashCode hash(File file) {
-        InputStream inputStream;
+        FileInputStream inputStream;
         try {
             inputStream = new FileInputStream(file);
         } catch (FileNotFoundException e) {
-            throw new UncheckedIOException(String.format("Failed to create MD5 hash for file '%s' as it does not exist.", file), e);
+            throw new UncheckedIOException(String.format("Failed to create hash for file '%s' as it does not exist.", file), e);
         }
         try {
+            if (shouldMemoryMap(inputStream)) {
+                HashCode hash = streamHasher.hashMapped(inputStream.getChannel());
+                if (hash != null) {
+                    return hash;
+                }
+                // The file changed while it was being hashed, so read it again from the start
+                closeQuietly(inputStream);
+                inputStream = new FileInputStream(file);
+            }
             return streamHasher.hash(inputStream);
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Failed to create hash for file '%s'.", file), e);
         } finally {
-            try {
-                inputStream.close();
-            } catch (IOException ignored) {
-                // Ignored
-            }
+            closeQuietly(inputStream);
         }
     }
 
+    private boolean shouldMemoryMap(FileInputStream inputStream) throws IOException {
+        long threshold = memoryMappingThreshold;
+        return threshold != NO_MEMORY_MAPPING && inputStream.getChannel().size() >= threshold;
+    }
+
     @Override
     public HashCode hash(File file, long length, long lastModified) {
         return hash(file);
     }
+
+    private static void closeQuietly(InputStream inputStream) {
+        try {
+            inputStream.close();
+        } catch (IOException ignored) {
+            // Ignored
+        }
+    }
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.hash;
+
+import javax.annotation.Nullable;
+import java.util.Locale;
+
+/**
+ * The hash functions that can be used to hash the contents of files.
+ *
+ * Hashes created by different functions must never be mixed, so anything persisting content hashes
+ * should incorporate the {@link #getId() id} of the selected function into the identity of its cache.
+ */
+public enum FileContentHashFunction {
+    MD5("md5", Hashing.md5()),
+    MURMUR3("murmur3", Hashing.murmur3());
+
+    /**
+     * System property to select the hash function used for file contents.
+     *
+     * The property is read once per process, so the daemon treats it as a compatibility property
+     * and builds asking for a different function are run by a different daemon.
+     */
+    public static final String SYSTEM_PROPERTY = "org.gradle.internal.hash.file-content";
+
+    private final String id;
+    private final HashFunction hashFunction;
+
+    FileContentHashFunction(String id, HashFunction hashFunction) {
+        this.id = id;
+        this.hashFunction = hashFunction;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public HashFunction getHashFunction() {
+        return hashFunction;
+    }
+
+    /**
+     * Whether this is the hash function used when no other function has been selected.
+     */
+    public boolean isDefault() {
+        return this == MD5;
+    }
+
+    public static FileContentHashFunction fromSystemProperty() {
+        return fromId(System.getProperty(SYSTEM_PROPERTY));
+    }
+
+    public static FileContentHashFunction fromId(@Nullable String id) {
+        if (id == null || id.length() == 0) {
+            return MD5;
+        }
+        String normalizedId = id.trim().toLowerCase(Locale.US);
+        for (FileContentHashFunction function : values()) {
+            if (function.id.equals(normalizedId)) {
+                return function;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unknown file content hash function '%s'.", id));
+    }
+}
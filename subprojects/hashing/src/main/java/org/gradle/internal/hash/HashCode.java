@@ -27,14 +27,15 @@
  * Inspired by the Google Guava project – https://github.com/google/guava.
  */
 public class HashCode implements Serializable, Comparable<HashCode> {
+    // The default value computed for the class before the cached hash code field was removed, so previously serialized instances can still be read
+    private static final long serialVersionUID = -1533996756046993124L;
+
     private static final int MIN_NUMBER_OF_BYTES = 4;
     private static final int MAX_NUMBER_OF_BYTES = 255;
     private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
 
     private final byte[] bytes;
 
-    private long hashCode;
-
     private HashCode(byte[] bytes) {
         this.bytes = bytes;
     }
@@ -98,15 +99,11 @@ public byte[] toByteArray() {
 
     @Override
     public int hashCode() {
-        if (hashCode == 0) {
-            hashCode = (bytes[0] & 0xFF)
-                | ((bytes[1] & 0xFF) << 8)
-                | ((bytes[2] & 0xFF) << 16)
-                | ((bytes[3] & 0xFF) << 24)
-                // Make sure it's always > 0 but without affecting the lower 32 bits
-                | (1L << 32);
-        }
-        return (int) hashCode;
+        // Not cached, as computing it is cheap, and a field would add to the size of every retained hash code
+        return (bytes[0] & 0xFF)
+            | ((bytes[1] & 0xFF) << 8)
+            | ((bytes[2] & 0xFF) << 16)
+            | ((bytes[3] & 0xFF) << 24);
     }
 
     @Override
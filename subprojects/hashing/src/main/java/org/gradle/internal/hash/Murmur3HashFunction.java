@@ -0,0 +1,292 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.hash;
+
+import com.google.common.base.Charsets;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The x64 128-bit variant of MurmurHash3. Not a cryptographic hash function, but considerably faster than
+ * MD5 when hashing large amounts of data, like file contents.
+ *
+ * Produces the same hashes as Guava's {@code Hashing.murmur3_128()}.
+ * Inspired by the Google Guava project – https://github.com/google/guava.
+ */
+final class Murmur3HashFunction implements HashFunction {
+    private static final int CHUNK_SIZE = 16;
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private final long seed;
+
+    Murmur3HashFunction(int seed) {
+        this.seed = seed & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public PrimitiveHasher newPrimitiveHasher() {
+        return new Murmur3Hasher(seed);
+    }
+
+    @Override
+    public Hasher newHasher() {
+        return new Hashing.DefaultHasher(newPrimitiveHasher());
+    }
+
+    @Override
+    public HashCode hashBytes(byte[] bytes) {
+        PrimitiveHasher hasher = newPrimitiveHasher();
+        hasher.putBytes(bytes);
+        return hasher.hash();
+    }
+
+    @Override
+    public HashCode hashString(CharSequence string) {
+        PrimitiveHasher hasher = newPrimitiveHasher();
+        hasher.putString(string);
+        return hasher.hash();
+    }
+
+    @Override
+    public int getHexDigits() {
+        return CHUNK_SIZE * 2;
+    }
+
+    @Override
+    public String toString() {
+        return "Murmur3_128(" + seed + ")";
+    }
+
+    private static class Murmur3Hasher implements PrimitiveHasher {
+        private final byte[] tail = new byte[CHUNK_SIZE];
+        private final byte[] scratch = new byte[8];
+        private int tailLength;
+        private long length;
+        private long h1;
+        private long h2;
+        private boolean done;
+
+        public Murmur3Hasher(long seed) {
+            this.h1 = seed;
+            this.h2 = seed;
+        }
+
+        private void checkNotDone() {
+            if (done) {
+                throw new IllegalStateException("Cannot reuse hasher!");
+            }
+        }
+
+        @Override
+        public void putByte(byte b) {
+            checkNotDone();
+            length++;
+            tail[tailLength++] = b;
+            if (tailLength == CHUNK_SIZE) {
+                processBlock(readLong(tail, 0), readLong(tail, 8));
+                tailLength = 0;
+            }
+        }
+
+        @Override
+        public void putBytes(byte[] bytes) {
+            putBytes(bytes, 0, bytes.length);
+        }
+
+        @Override
+        public void putBytes(byte[] bytes, int off, int len) {
+            checkNotDone();
+            length += len;
+            if (tailLength > 0) {
+                int toCopy = Math.min(CHUNK_SIZE - tailLength, len);
+                System.arraycopy(bytes, off, tail, tailLength, toCopy);
+                tailLength += toCopy;
+                off += toCopy;
+                len -= toCopy;
+                if (tailLength < CHUNK_SIZE) {
+                    return;
+                }
+                processBlock(readLong(tail, 0), readLong(tail, 8));
+                tailLength = 0;
+            }
+            while (len >= CHUNK_SIZE) {
+                processBlock(readLong(bytes, off), readLong(bytes, off + 8));
+                off += CHUNK_SIZE;
+                len -= CHUNK_SIZE;
+            }
+            if (len > 0) {
+                System.arraycopy(bytes, off, tail, 0, len);
+                tailLength = len;
+            }
+        }
+
+        @Override
+        public void putBytes(ByteBuffer buffer) {
+            checkNotDone();
+            length += buffer.remaining();
+            ByteOrder originalOrder = buffer.order();
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            try {
+                while (tailLength > 0 && buffer.hasRemaining()) {
+                    tail[tailLength++] = buffer.get();
+                    if (tailLength == CHUNK_SIZE) {
+                        processBlock(readLong(tail, 0), readLong(tail, 8));
+                        tailLength = 0;
+                    }
+                }
+                while (buffer.remaining() >= CHUNK_SIZE) {
+                    long k1 = buffer.getLong();
+                    long k2 = buffer.getLong();
+                    processBlock(k1, k2);
+                }
+                while (buffer.hasRemaining()) {
+                    tail[tailLength++] = buffer.get();
+                }
+            } finally {
+                buffer.order(originalOrder);
+            }
+        }
+
+        @Override
+        public void putInt(int value) {
+            writeLong(value, scratch);
+            putBytes(scratch, 0, 4);
+        }
+
+        @Override
+        public void putLong(long value) {
+            writeLong(value, scratch);
+            putBytes(scratch, 0, 8);
+        }
+
+        @Override
+        public void putDouble(double value) {
+            putLong(Double.doubleToRawLongBits(value));
+        }
+
+        @Override
+        public void putBoolean(boolean value) {
+            putByte((byte) (value ? 1 : 0));
+        }
+
+        @Override
+        public void putString(CharSequence value) {
+            putBytes(value.toString().getBytes(Charsets.UTF_8));
+        }
+
+        @Override
+        public void putHash(HashCode hashCode) {
+            putBytes(hashCode.getBytes());
+        }
+
+        @Override
+        public HashCode hash() {
+            checkNotDone();
+            done = true;
+
+            if (tailLength > 0) {
+                long k1 = 0;
+                long k2 = 0;
+                for (int i = tailLength - 1; i >= 8; i--) {
+                    k2 ^= (tail[i] & 0xFFL) << ((i - 8) * 8);
+                }
+                for (int i = Math.min(tailLength, 8) - 1; i >= 0; i--) {
+                    k1 ^= (tail[i] & 0xFFL) << (i * 8);
+                }
+                h1 ^= mixK1(k1);
+                h2 ^= mixK2(k2);
+            }
+
+            h1 ^= length;
+            h2 ^= length;
+
+            h1 += h2;
+            h2 += h1;
+
+            h1 = fmix64(h1);
+            h2 = fmix64(h2);
+
+            h1 += h2;
+            h2 += h1;
+
+            byte[] bytes = new byte[CHUNK_SIZE];
+            writeLong(h1, bytes, 0);
+            writeLong(h2, bytes, 8);
+            return HashCode.fromBytesNoCopy(bytes);
+        }
+
+        private void processBlock(long k1, long k2) {
+            h1 ^= mixK1(k1);
+
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            h2 ^= mixK2(k2);
+
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        private static long mixK1(long k1) {
+            k1 *= C1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= C2;
+            return k1;
+        }
+
+        private static long mixK2(long k2) {
+            k2 *= C2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= C1;
+            return k2;
+        }
+
+        private static long fmix64(long k) {
+            k ^= k >>> 33;
+            k *= 0xff51afd7ed558ccdL;
+            k ^= k >>> 33;
+            k *= 0xc4ceb9fe1a85ec53L;
+            k ^= k >>> 33;
+            return k;
+        }
+
+        private static long readLong(byte[] bytes, int off) {
+            return (bytes[off] & 0xFFL)
+                | (bytes[off + 1] & 0xFFL) << 8
+                | (bytes[off + 2] & 0xFFL) << 16
+                | (bytes[off + 3] & 0xFFL) << 24
+                | (bytes[off + 4] & 0xFFL) << 32
+                | (bytes[off + 5] & 0xFFL) << 40
+                | (bytes[off + 6] & 0xFFL) << 48
+                | (bytes[off + 7] & 0xFFL) << 56;
+        }
+
+        private static void writeLong(long value, byte[] bytes) {
+            writeLong(value, bytes, 0);
+        }
+
+        private static void writeLong(long value, byte[] bytes, int off) {
+            for (int i = 0; i < 8; i++) {
+                bytes[off + i] = (byte) (value >>> (i * 8));
+            }
+        }
+    }
+}
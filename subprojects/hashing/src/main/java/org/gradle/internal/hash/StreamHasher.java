@@ -15,9 +15,11 @@
  */
 package org.gradle.internal.hash;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 
 public interface StreamHasher {
     /**
@@ -30,4 +32,14 @@ public interface StreamHasher {
      * The method will not close either stream.
      */
     HashCode hashCopy(InputStream inputStream, OutputStream outputStream) throws IOException;
+
+    /**
+     * Returns the hash of the content of the given file channel by mapping it into memory, instead of copying it through the heap.
+     * The hash is the same as the one returned by {@link #hash(InputStream)} for the same content.
+     * The method will not close the channel.
+     *
+     * @return the hash, or {@code null} if the file changed its size while being hashed.
+     */
+    @Nullable
+    HashCode hashMapped(FileChannel channel) throws IOException;
 }
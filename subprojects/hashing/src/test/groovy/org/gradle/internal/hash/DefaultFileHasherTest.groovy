@@ -0,0 +1,131 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.hash
+
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.nio.channels.FileChannel
+
+class DefaultFileHasherTest extends Specification {
+    @Rule
+    TemporaryFolder temporaryFolder = new TemporaryFolder()
+
+    @Unroll
+    def "memory mapped hash of #length bytes is the same as streamed hash using #contentHashFunction"() {
+        def file = temporaryFolder.newFile()
+        def bytes = new byte[length]
+        new Random(length).nextBytes(bytes)
+        file.bytes = bytes
+        def streamHasher = new DefaultStreamHasher(contentHashFunction)
+
+        expect:
+        new DefaultFileHasher(streamHasher, 0).hash(file) == new DefaultFileHasher(streamHasher).hash(file)
+
+        where:
+        [length, contentHashFunction] << [[0, 1, 17, 8192, 1024 * 1024 + 3], FileContentHashFunction.values().toList()].combinations()
+    }
+
+    def "only memory maps files above threshold"() {
+        def streamHasher = Mock(StreamHasher)
+        def hash = HashCode.fromInt(1)
+        def small = temporaryFolder.newFile()
+        small.bytes = new byte[10]
+        def large = temporaryFolder.newFile()
+        large.bytes = new byte[100]
+        def fileHasher = new DefaultFileHasher(streamHasher, 100)
+
+        when:
+        fileHasher.hash(small)
+
+        then:
+        1 * streamHasher.hash(_ as InputStream) >> hash
+        0 * _
+
+        when:
+        fileHasher.hash(large)
+
+        then:
+        1 * streamHasher.hashMapped(_ as FileChannel) >> hash
+        0 * _
+    }
+
+    def "applies changed memory mapping threshold"() {
+        def streamHasher = Mock(StreamHasher)
+        def hash = HashCode.fromInt(1)
+        def file = temporaryFolder.newFile()
+        file.bytes = new byte[100]
+        def fileHasher = new DefaultFileHasher(streamHasher)
+
+        when:
+        fileHasher.hash(file)
+
+        then:
+        1 * streamHasher.hash(_ as InputStream) >> hash
+        0 * _
+
+        when:
+        fileHasher.memoryMappingThreshold = 50
+        fileHasher.hash(file)
+
+        then:
+        1 * streamHasher.hashMapped(_ as FileChannel) >> hash
+        0 * _
+    }
+
+    def "can delete file after memory mapped hashing"() {
+        def file = temporaryFolder.newFile()
+        file.bytes = new byte[1024 * 1024]
+
+        when:
+        new DefaultFileHasher(new DefaultStreamHasher(), 0).hash(file)
+
+        then:
+        file.delete()
+    }
+
+    def "falls back to streaming when file changes while being memory mapped"() {
+        def streamHasher = Mock(StreamHasher)
+        def hash = HashCode.fromInt(1)
+        def file = temporaryFolder.newFile()
+        file.bytes = new byte[100]
+
+        when:
+        def result = new DefaultFileHasher(streamHasher, 0).hash(file)
+
+        then:
+        1 * streamHasher.hashMapped(_ as FileChannel) >> null
+        1 * streamHasher.hash(_ as InputStream) >> hash
+        0 * _
+
+        and:
+        result == hash
+    }
+
+    def "reports missing file"() {
+        def file = new File(temporaryFolder.root, "missing")
+
+        when:
+        new DefaultFileHasher(new DefaultStreamHasher()).hash(file)
+
+        then:
+        def e = thrown(UncheckedIOException)
+        e.message == "Failed to create hash for file '${file}' as it does not exist."
+    }
+}
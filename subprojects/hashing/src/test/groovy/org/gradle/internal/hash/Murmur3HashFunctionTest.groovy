@@ -0,0 +1,119 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.hash
+
+import com.google.common.base.Charsets
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class Murmur3HashFunctionTest extends Specification {
+    def "hashes known value"() {
+        expect:
+        Hashing.murmur3().hashString("").toString() == "00000000000000000000000000000000"
+        Hashing.murmur3().hashString("The quick brown fox jumps over the lazy dog").toString() == "6c1b07bc7bbc4be347939ac4a93c437a"
+    }
+
+    @Unroll
+    def "produces same hash as Guava for #length bytes"() {
+        def bytes = new byte[length]
+        new Random(length).nextBytes(bytes)
+
+        expect:
+        Hashing.murmur3().hashBytes(bytes).toByteArray() == com.google.common.hash.Hashing.murmur3_128().hashBytes(bytes).asBytes()
+
+        where:
+        length << [0, 1, 7, 8, 9, 15, 16, 17, 31, 32, 33, 1024, 8191]
+    }
+
+    def "produces same hash regardless of how input is split"() {
+        def bytes = new byte[1000]
+        new Random(1234L).nextBytes(bytes)
+        def expected = Hashing.murmur3().hashBytes(bytes)
+
+        when:
+        def hasher = Hashing.murmur3().newPrimitiveHasher()
+        int offset = 0
+        int chunk = 1
+        while (offset < bytes.length) {
+            int length = Math.min(chunk, bytes.length - offset)
+            if (length == 1) {
+                hasher.putByte(bytes[offset])
+            } else {
+                hasher.putBytes(bytes, offset, length)
+            }
+            offset += length
+            chunk = chunk % 23 + 1
+        }
+
+        then:
+        hasher.hash() == expected
+    }
+
+    def "primitives are hashed little-endian like Guava"() {
+        def hasher = Hashing.murmur3().newPrimitiveHasher()
+        hasher.putInt(0x12345678)
+        hasher.putLong(0x1234567890abcdefL)
+        hasher.putBoolean(true)
+        hasher.putString("hello")
+
+        def guavaHasher = com.google.common.hash.Hashing.murmur3_128().newHasher()
+        guavaHasher.putInt(0x12345678)
+        guavaHasher.putLong(0x1234567890abcdefL)
+        guavaHasher.putBoolean(true)
+        guavaHasher.putString("hello", Charsets.UTF_8)
+
+        expect:
+        hasher.hash().toByteArray() == guavaHasher.hash().asBytes()
+    }
+
+    def "cannot reuse hasher"() {
+        def hasher = Hashing.murmur3().newPrimitiveHasher()
+        hasher.putInt(1)
+        hasher.hash()
+
+        when:
+        hasher.putInt(2)
+
+        then:
+        thrown(IllegalStateException)
+    }
+
+    def "stream hasher uses selected content hash function"() {
+        def md5Hash = new DefaultStreamHasher(FileContentHashFunction.MD5).hash(new ByteArrayInputStream("hello".bytes))
+        def murmur3Hash = new DefaultStreamHasher(FileContentHashFunction.MURMUR3).hash(new ByteArrayInputStream("hello".bytes))
+
+        expect:
+        md5Hash.toString() == "af67a92e9f73b51572e9b94e343d2840"
+        murmur3Hash.length() == md5Hash.length()
+        murmur3Hash != md5Hash
+    }
+
+    def "selects content hash function by id"() {
+        expect:
+        FileContentHashFunction.fromId(null) == FileContentHashFunction.MD5
+        FileContentHashFunction.fromId("") == FileContentHashFunction.MD5
+        FileContentHashFunction.fromId("MD5") == FileContentHashFunction.MD5
+        FileContentHashFunction.fromId("murmur3") == FileContentHashFunction.MURMUR3
+
+        when:
+        FileContentHashFunction.fromId("crc32")
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message == "Unknown file content hash function 'crc32'."
+    }
+}
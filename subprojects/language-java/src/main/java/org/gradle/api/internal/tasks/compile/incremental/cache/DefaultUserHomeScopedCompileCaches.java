@@ -45,7 +45,7 @@ public DefaultUserHomeScopedCompileCaches(VirtualFileSystem virtualFileSystem, C
             .withLockOptions(mode(FileLockManager.LockMode.OnDemand)) // Lock on demand
             .open();
         PersistentIndexedCacheParameters<HashCode, ClasspathEntrySnapshotData> jarCacheParameters = PersistentIndexedCacheParameters.of("jarAnalysis", new HashCodeSerializer(), new ClasspathEntrySnapshotDataSerializer(interner))
-            .withCacheDecorator(inMemoryCacheDecoratorFactory.decorator(20000, true));
+            .withCacheDecorator(inMemoryCacheDecoratorFactory.immutableEntriesDecorator(20000, true));
         this.classpathEntrySnapshotCache = new DefaultClasspathEntrySnapshotCache(virtualFileSystem, cache.createCache(jarCacheParameters));
     }
 
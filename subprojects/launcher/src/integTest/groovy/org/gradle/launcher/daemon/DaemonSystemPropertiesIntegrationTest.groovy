@@ -18,6 +18,7 @@ package org.gradle.launcher.daemon
 
 import org.gradle.cache.internal.HeapProportionalCacheSizer
 import org.gradle.integtests.fixtures.daemon.DaemonIntegrationSpec
+import org.gradle.internal.hash.FileContentHashFunction
 import spock.lang.Issue
 
 @Issue("GRADLE-2460")
@@ -230,6 +231,36 @@ task verify {
         daemons(gradleVersion).daemons.size() == 2
     }
 
+    def "forks new daemon for changed file content hash function sys property"() {
+        setup:
+        executer.requireGradleDistribution()
+        buildScript """
+            println "GRADLE_VERSION: " + gradle.gradleVersion
+
+            task verify {
+                doFirst {
+                    println "verified = " + System.getProperty('${FileContentHashFunction.SYSTEM_PROPERTY}', 'none')
+                }
+            }
+        """
+
+        when:
+        run "verify"
+
+        then:
+        String gradleVersion = (output =~ /GRADLE_VERSION: (.*)/)[0][1]
+        daemons(gradleVersion).daemons.size() == 1
+        output.contains("verified = none")
+
+        when:
+        executer.withArgument("-D${FileContentHashFunction.SYSTEM_PROPERTY}=murmur3")
+        run "verify"
+
+        then:
+        output.contains("verified = murmur3")
+        daemons(gradleVersion).daemons.size() == 2
+    }
+
     String tempFolder(String folderName) {
         def dir = temporaryFolder.createDir(folderName)
         dir.mkdirs();
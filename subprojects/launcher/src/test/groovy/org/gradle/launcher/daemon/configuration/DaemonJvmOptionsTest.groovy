@@ -17,6 +17,8 @@
 package org.gradle.launcher.daemon.configuration
 
 import org.gradle.api.internal.file.TestFiles
+import org.gradle.cache.internal.DefaultCacheAccess
+import org.gradle.internal.hash.FileContentHashFunction
 import org.gradle.process.internal.JvmOptions
 import spock.lang.Specification
 import spock.lang.Unroll
@@ -42,6 +44,9 @@ class DaemonJvmOptionsTest extends Specification {
         "ssl truststore path"     | DaemonJvmOptions.SSL_TRUSTSTORE_KEY       | "-D${DaemonJvmOptions.SSL_TRUSTSTORE_KEY}=truststore/path"
         "ssl truststore password" | DaemonJvmOptions.SSL_TRUSTPASSWORD_KEY    | "-D${DaemonJvmOptions.SSL_TRUSTPASSWORD_KEY}=secret"
         "ssl truststore type"     | DaemonJvmOptions.SSL_TRUSTSTORETYPE_KEY   | "-D${DaemonJvmOptions.SSL_TRUSTSTORETYPE_KEY}=jks"
+        "file content hash"       | FileContentHashFunction.SYSTEM_PROPERTY   | "-D${FileContentHashFunction.SYSTEM_PROPERTY}=murmur3"
+        "cache mapped pages"      | DefaultCacheAccess.MEMORY_MAPPED_PAGES_PROPERTY   | "-D${DefaultCacheAccess.MEMORY_MAPPED_PAGES_PROPERTY}=16"
+        "cache unflushed updates" | DefaultCacheAccess.MAX_UNFLUSHED_UPDATES_PROPERTY | "-D${DefaultCacheAccess.MAX_UNFLUSHED_UPDATES_PROPERTY}=1000"
     }
 
     @Unroll
@@ -59,6 +64,9 @@ class DaemonJvmOptionsTest extends Specification {
         "ssl truststore path"     | DaemonJvmOptions.SSL_TRUSTSTORE_KEY       | "truststore/path"
         "ssl truststore password" | DaemonJvmOptions.SSL_TRUSTPASSWORD_KEY    | "secret"
         "ssl truststore type"     | DaemonJvmOptions.SSL_TRUSTSTORETYPE_KEY   | "jks"
+        "file content hash"       | FileContentHashFunction.SYSTEM_PROPERTY   | "murmur3"
+        "cache mapped pages"      | DefaultCacheAccess.MEMORY_MAPPED_PAGES_PROPERTY   | "16"
+        "cache unflushed updates" | DefaultCacheAccess.MAX_UNFLUSHED_UPDATES_PROPERTY | "1000"
     }
 
     private DaemonJvmOptions createOpts() {
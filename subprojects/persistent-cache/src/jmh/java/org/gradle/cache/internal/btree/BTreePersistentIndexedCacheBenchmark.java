@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree;
+
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Compares reading and writing a B-tree cache through file IO with reading it through memory mapped pages,
+ * and with keeping updates in memory until the cache is closed.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class BTreePersistentIndexedCacheBenchmark {
+    private static final int ENTRIES = 100000;
+
+    @Param({"0", "64"})
+    int maxMappedPages;
+
+    @Param({"0", "1000"})
+    int maxUnflushedUpdates;
+
+    File cacheFile;
+    BTreePersistentIndexedCache<String, String> cache;
+    Random random;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        cacheFile = File.createTempFile("btree-cache", ".bin");
+        cacheFile.delete();
+        cache = createCache();
+        for (int i = 0; i < ENTRIES; i++) {
+            cache.put(key(i), value(i));
+        }
+        cache.close();
+        cache = createCache();
+        random = new Random(1234L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        cache.close();
+        cacheFile.delete();
+    }
+
+    @Benchmark
+    public String get() {
+        return cache.get(key(random.nextInt(ENTRIES)));
+    }
+
+    @Benchmark
+    public void put() {
+        int index = random.nextInt(ENTRIES);
+        cache.put(key(index), value(index));
+    }
+
+    private BTreePersistentIndexedCache<String, String> createCache() {
+        return new BTreePersistentIndexedCache<String, String>(cacheFile, BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.STRING_SERIALIZER, maxMappedPages, maxUnflushedUpdates);
+    }
+
+    private static String key(int index) {
+        return "/path/to/some/file/" + index;
+    }
+
+    private static String value(int index) {
+        return "0123456789abcdef0123456789abcdef" + index;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache;
+
+import javax.annotation.Nullable;
+
+/**
+ * The file backing a {@link PersistentIndexedCache}. Implementations are not thread-safe, and expect the caller to hold the cache's file lock.
+ */
+public interface IndexedCacheStore<K, V> {
+    @Nullable
+    V get(K key);
+
+    void put(K key, V value);
+
+    void remove(K key);
+
+    /**
+     * Writes any pending updates and releases the file. The store is reopened on next use.
+     */
+    void close();
+
+    /**
+     * The layouts an {@link IndexedCacheStore} can use for its file.
+     */
+    enum Layout {
+        /**
+         * A B-tree which updates entries in place.
+         */
+        BTREE,
+        /**
+         * An append-only log of updates, indexed in memory and compacted when most of it has been superseded.
+         */
+        APPEND_ONLY_LOG
+    }
+}
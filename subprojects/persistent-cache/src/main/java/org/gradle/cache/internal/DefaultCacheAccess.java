@@ -25,11 +25,13 @@
 import org.gradle.cache.FileIntegrityViolationException;
 import org.gradle.cache.FileLock;
 import org.gradle.cache.FileLockManager;
+import org.gradle.cache.IndexedCacheStore;
 import org.gradle.cache.InsufficientLockModeException;
 import org.gradle.cache.LockOptions;
 import org.gradle.cache.LockTimeoutException;
 import org.gradle.cache.MultiProcessSafePersistentIndexedCache;
 import org.gradle.cache.PersistentIndexedCacheParameters;
+import org.gradle.cache.internal.appendlog.AppendOnlyLogPersistentIndexedCache;
 import org.gradle.cache.internal.btree.BTreePersistentIndexedCache;
 import org.gradle.cache.internal.cacheops.CacheAccessOperationsStack;
 import org.gradle.internal.Cast;
@@ -39,6 +41,7 @@
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.os.OperatingSystem;
 import org.gradle.internal.serialize.Serializer;
 import org.gradle.util.CollectionUtils;
 import org.slf4j.Logger;
@@ -60,6 +63,25 @@
 
 @ThreadSafe
 public class DefaultCacheAccess implements CacheCoordinator {
+    /**
+     * Integer system property to read indexed cache files through the given number of 1MB memory mapped pages per file.
+     * Ignored on Windows, where a file cannot be truncated while it is mapped.
+     *
+     * The property is read once per process, so the daemon treats it as a compatibility property.
+     */
+    public static final String MEMORY_MAPPED_PAGES_PROPERTY = "org.gradle.unsafe.cache.memory-mapped-pages";
+
+    /**
+     * Integer system property to keep the given number of updates to an indexed cache in memory,
+     * instead of writing each of them to the cache file right away. All updates are written at the end of the unit of work.
+     *
+     * The property is read once per process, so the daemon treats it as a compatibility property.
+     */
+    public static final String MAX_UNFLUSHED_UPDATES_PROPERTY = "org.gradle.unsafe.cache.max-unflushed-updates";
+
+    private static final int MAX_MAPPED_PAGES = OperatingSystem.current().isWindows() ? 0 : Integer.getInteger(MEMORY_MAPPED_PAGES_PROPERTY, 0);
+    private static final int MAX_UNFLUSHED_UPDATES = Integer.getInteger(MAX_UNFLUSHED_UPDATES_PROPERTY, 0);
+
     private final static Logger LOG = LoggerFactory.getLogger(DefaultCacheAccess.class);
     private final static Runnable NO_OP = () -> {
         // Empty initial operation to trigger onStartWork calls
@@ -282,7 +304,11 @@ public <K, V> MultiProcessSafePersistentIndexedCache<K, V> newCache(final Persis
             if (entry == null) {
                 File cacheFile = findCacheFile(parameters);
                 LOG.debug("Creating new cache for {}, path {}, access {}", parameters.getCacheName(), cacheFile, this);
-                Factory<BTreePersistentIndexedCache<K, V>> indexedCacheFactory = () -> doCreateCache(cacheFile, parameters.getKeySerializer(), parameters.getValueSerializer());
+                Factory<IndexedCacheStore<K, V>> indexedCacheFactory = () -> doCreateCache(cacheFile, parameters);
+                if (parameters.getLayout() == IndexedCacheStore.Layout.APPEND_ONLY_LOG) {
+                    // Keep the in-memory index between units of work, so the log does not need to be read again
+                    indexedCacheFactory = Factories.softReferenceCache(indexedCacheFactory);
+                }
 
                 MultiProcessSafePersistentIndexedCache<K, V> indexedCache = new DefaultMultiProcessSafePersistentIndexedCache<K, V>(indexedCacheFactory, fileAccess);
                 CacheDecorator decorator = parameters.getCacheDecorator();
@@ -307,7 +333,8 @@ public <K, V> MultiProcessSafePersistentIndexedCache<K, V> newCache(final Persis
     }
 
     private <K, V> File findCacheFile(PersistentIndexedCacheParameters<K, V> parameters) {
-        return new File(baseDir, parameters.getCacheName() + ".bin");
+        String extension = parameters.getLayout() == IndexedCacheStore.Layout.APPEND_ONLY_LOG ? ".log" : ".bin";
+        return new File(baseDir, parameters.getCacheName() + extension);
     }
 
     @Override
@@ -315,8 +342,13 @@ public <K, V> boolean cacheExists(PersistentIndexedCacheParameters<K, V> paramet
         return findCacheFile(parameters).exists();
     }
 
-    <K, V> BTreePersistentIndexedCache<K, V> doCreateCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
-        return new BTreePersistentIndexedCache<>(cacheFile, keySerializer, valueSerializer);
+    <K, V> IndexedCacheStore<K, V> doCreateCache(File cacheFile, PersistentIndexedCacheParameters<K, V> parameters) {
+        Serializer<K> keySerializer = parameters.getKeySerializer();
+        Serializer<V> valueSerializer = parameters.getValueSerializer();
+        if (parameters.getLayout() == IndexedCacheStore.Layout.APPEND_ONLY_LOG) {
+            return new AppendOnlyLogPersistentIndexedCache<>(cacheFile, keySerializer, valueSerializer);
+        }
+        return new BTreePersistentIndexedCache<>(cacheFile, keySerializer, valueSerializer, MAX_MAPPED_PAGES, MAX_UNFLUSHED_UPDATES);
     }
 
     /**
@@ -482,6 +514,7 @@ void assertCompatibleCacheParameters(PersistentIndexedCacheParameters<K, V> para
             checkCompatibleKeySerializer(faultMessages, parameters.getKeySerializer());
             checkCompatibleValueSerializer(faultMessages, parameters.getValueSerializer());
             checkCompatibleCacheDecorator(faultMessages, parameters.getCacheDecorator());
+            checkLayoutMatch(faultMessages, parameters.getLayout());
 
             if (!faultMessages.isEmpty()) {
                 String lineSeparator = SystemProperties.getInstance().getLineSeparator();
@@ -524,6 +557,14 @@ private void checkCompatibleCacheDecorator(Collection<String> faultMessages, Cac
                         cacheDecorator, parameters.getCacheDecorator()));
             }
         }
+
+        private void checkLayoutMatch(Collection<String> faultMessages, IndexedCacheStore.Layout layout) {
+            if (layout != parameters.getLayout()) {
+                faultMessages.add(
+                    String.format(" * Requested cache layout (%s) doesn't match current cache layout (%s)",
+                        layout, parameters.getLayout()));
+            }
+        }
     }
 
     @VisibleForTesting
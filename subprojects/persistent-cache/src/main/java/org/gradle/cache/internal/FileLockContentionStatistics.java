@@ -0,0 +1,48 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the file locks this process had to wait for, because another process was holding them.
+ */
+@ThreadSafe
+public class FileLockContentionStatistics {
+    private final AtomicLong contendedLocks = new AtomicLong();
+    private final AtomicLong waitTimeMillis = new AtomicLong();
+
+    void lockAcquiredAfterWaiting(long waitTimeMillis) {
+        contendedLocks.incrementAndGet();
+        this.waitTimeMillis.addAndGet(waitTimeMillis);
+    }
+
+    /**
+     * The number of locks which could not be acquired right away since this process started.
+     */
+    public long getContendedLocks() {
+        return contendedLocks.get();
+    }
+
+    /**
+     * The total time spent waiting for contended locks since this process started.
+     */
+    public long getWaitTimeMillis() {
+        return waitTimeMillis.get();
+    }
+}
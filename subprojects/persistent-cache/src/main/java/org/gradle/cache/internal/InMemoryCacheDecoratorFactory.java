@@ -34,6 +34,9 @@
  * The in-memory cache is invalidated when the backing cache is changed by another process.
  *
  * Also decorates each cache so that updates to the backing cache are made asynchronously.
+ *
+ * For caches whose entries never change once written, such as caches keyed by a content hash, values found in the in-memory cache
+ * can be used without acquiring the file lock, as another process cannot have replaced them.
  */
 public class InMemoryCacheDecoratorFactory {
     private final static Logger LOG = LoggerFactory.getLogger(InMemoryCacheDecoratorFactory.class);
@@ -47,18 +50,14 @@ public InMemoryCacheDecoratorFactory(boolean longLivingProcess, CrossBuildInMemo
     }
 
     public CacheDecorator decorator(final int maxEntriesToKeepInMemory, final boolean cacheInMemoryForShortLivedProcesses) {
-        return new InMemoryCacheDecorator(maxEntriesToKeepInMemory, cacheInMemoryForShortLivedProcesses);
+        return new InMemoryCacheDecorator(maxEntriesToKeepInMemory, cacheInMemoryForShortLivedProcesses, false);
     }
 
-    private <K, V> MultiProcessSafeAsyncPersistentIndexedCache<K, V> applyInMemoryCaching(String cacheId, MultiProcessSafeAsyncPersistentIndexedCache<K, V> backingCache, int maxEntriesToKeepInMemory, boolean cacheInMemoryForShortLivedProcesses) {
-        if (!longLivingProcess && !cacheInMemoryForShortLivedProcesses) {
-            // Short lived process, don't cache in memory
-            LOG.debug("Creating cache {} without in-memory store.", cacheId);
-            return backingCache;
-        }
-        int targetSize = cacheSizer.scaleCacheSize(maxEntriesToKeepInMemory);
-        CacheDetails cacheDetails = getCache(cacheId, targetSize);
-        return new InMemoryDecoratedCache<K, V>(backingCache, cacheDetails.entries, cacheId, cacheDetails.lockState);
+    /**
+     * Creates a decorator for a cache whose entries are never replaced once written. Entries found in memory are used without acquiring the file lock.
+     */
+    public CacheDecorator immutableEntriesDecorator(final int maxEntriesToKeepInMemory, final boolean cacheInMemoryForShortLivedProcesses) {
+        return new InMemoryCacheDecorator(maxEntriesToKeepInMemory, cacheInMemoryForShortLivedProcesses, true);
     }
 
     private CacheDetails getCache(final String cacheId, final int maxSize) {
@@ -88,10 +87,12 @@ private Cache<Object, Object> createInMemoryCache(String cacheId, int maxSize) {
     private class InMemoryCacheDecorator implements CacheDecorator {
         private final int maxEntriesToKeepInMemory;
         private final boolean cacheInMemoryForShortLivedProcesses;
+        private final boolean immutableEntries;
 
-        InMemoryCacheDecorator(int maxEntriesToKeepInMemory, boolean cacheInMemoryForShortLivedProcesses) {
+        InMemoryCacheDecorator(int maxEntriesToKeepInMemory, boolean cacheInMemoryForShortLivedProcesses, boolean immutableEntries) {
             this.maxEntriesToKeepInMemory = maxEntriesToKeepInMemory;
             this.cacheInMemoryForShortLivedProcesses = cacheInMemoryForShortLivedProcesses;
+            this.immutableEntries = immutableEntries;
         }
 
         @Override
@@ -103,19 +104,32 @@ public boolean equals(Object obj) {
                 return false;
             }
             InMemoryCacheDecorator other = (InMemoryCacheDecorator) obj;
-            return maxEntriesToKeepInMemory == other.maxEntriesToKeepInMemory && cacheInMemoryForShortLivedProcesses == other.cacheInMemoryForShortLivedProcesses;
+            return maxEntriesToKeepInMemory == other.maxEntriesToKeepInMemory
+                && cacheInMemoryForShortLivedProcesses == other.cacheInMemoryForShortLivedProcesses
+                && immutableEntries == other.immutableEntries;
         }
 
         @Override
         public int hashCode() {
-            return maxEntriesToKeepInMemory ^ (cacheInMemoryForShortLivedProcesses ? 1 : 0);
+            return maxEntriesToKeepInMemory ^ (cacheInMemoryForShortLivedProcesses ? 1 : 0) ^ (immutableEntries ? 2 : 0);
         }
 
         @Override
         public <K, V> MultiProcessSafePersistentIndexedCache<K, V> decorate(String cacheId, String cacheName, MultiProcessSafePersistentIndexedCache<K, V> persistentCache, CrossProcessCacheAccess crossProcessCacheAccess, AsyncCacheAccess asyncCacheAccess) {
             MultiProcessSafeAsyncPersistentIndexedCache<K, V> asyncCache = new AsyncCacheAccessDecoratedCache<K, V>(asyncCacheAccess, persistentCache);
-            MultiProcessSafeAsyncPersistentIndexedCache<K, V> memCache = applyInMemoryCaching(cacheId, asyncCache, maxEntriesToKeepInMemory, cacheInMemoryForShortLivedProcesses);
-            return new CrossProcessSynchronizingCache<K, V>(memCache, crossProcessCacheAccess);
+            if (!longLivingProcess && !cacheInMemoryForShortLivedProcesses) {
+                // Short lived process, don't cache in memory
+                LOG.debug("Creating cache {} without in-memory store.", cacheId);
+                return new CrossProcessSynchronizingCache<K, V>(asyncCache, crossProcessCacheAccess);
+            }
+            int targetSize = cacheSizer.scaleCacheSize(maxEntriesToKeepInMemory);
+            CacheDetails cacheDetails = getCache(cacheId, targetSize);
+            MultiProcessSafeAsyncPersistentIndexedCache<K, V> memCache = new InMemoryDecoratedCache<K, V>(asyncCache, cacheDetails.entries, cacheId, cacheDetails.lockState);
+            MultiProcessSafePersistentIndexedCache<K, V> synchronizedCache = new CrossProcessSynchronizingCache<K, V>(memCache, crossProcessCacheAccess);
+            if (immutableEntries) {
+                return new LockFreeReadingCache<K, V>(synchronizedCache, cacheDetails.entries);
+            }
+            return synchronizedCache;
         }
     }
 
@@ -32,7 +32,7 @@
 
 class InMemoryDecoratedCache<K, V> implements MultiProcessSafeAsyncPersistentIndexedCache<K, V> {
     private final static Logger LOG = LoggerFactory.getLogger(InMemoryDecoratedCache.class);
-    private final static Object NULL = new Object();
+    final static Object NULL = new Object();
     private final MultiProcessSafeAsyncPersistentIndexedCache<K, V> delegate;
     private final Cache<Object, Object> inMemoryCache;
     private final String cacheId;
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal;
+
+import com.google.common.cache.Cache;
+import org.gradle.api.Transformer;
+import org.gradle.cache.FileLock;
+import org.gradle.cache.MultiProcessSafePersistentIndexedCache;
+import org.gradle.internal.Cast;
+
+import javax.annotation.Nullable;
+
+/**
+ * Serves reads of entries which are already in memory without acquiring the file lock of the cache, and delegates everything else.
+ *
+ * Only safe for caches whose entries are never replaced once written. Entries known to be missing are still looked up
+ * while holding the lock, as another process may have added them in the meantime.
+ */
+class LockFreeReadingCache<K, V> implements MultiProcessSafePersistentIndexedCache<K, V> {
+    private final MultiProcessSafePersistentIndexedCache<K, V> delegate;
+    private final Cache<Object, Object> inMemoryCache;
+
+    LockFreeReadingCache(MultiProcessSafePersistentIndexedCache<K, V> delegate, Cache<Object, Object> inMemoryCache) {
+        this.delegate = delegate;
+        this.inMemoryCache = inMemoryCache;
+    }
+
+    @Override
+    public String toString() {
+        return delegate.toString();
+    }
+
+    @Nullable
+    @Override
+    public V get(K key) {
+        V value = getFromMemory(key);
+        return value != null ? value : delegate.get(key);
+    }
+
+    @Override
+    public V get(K key, Transformer<? extends V, ? super K> producer) {
+        V value = getFromMemory(key);
+        return value != null ? value : delegate.get(key, producer);
+    }
+
+    @Nullable
+    private V getFromMemory(K key) {
+        Object value = inMemoryCache.getIfPresent(key);
+        if (value == null || value == InMemoryDecoratedCache.NULL) {
+            return null;
+        }
+        return Cast.uncheckedCast(value);
+    }
+
+    @Override
+    public void put(K key, V value) {
+        delegate.put(key, value);
+    }
+
+    @Override
+    public void remove(K key) {
+        delegate.remove(key);
+    }
+
+    @Override
+    public void afterLockAcquire(FileLock.State currentCacheState) {
+        delegate.afterLockAcquire(currentCacheState);
+    }
+
+    @Override
+    public void finishWork() {
+        delegate.finishWork();
+    }
+
+    @Override
+    public void beforeLockRelease(FileLock.State currentCacheState) {
+        delegate.beforeLockRelease(currentCacheState);
+    }
+}
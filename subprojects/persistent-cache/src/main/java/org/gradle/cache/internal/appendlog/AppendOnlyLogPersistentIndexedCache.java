@@ -0,0 +1,370 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.appendlog;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.cache.IndexedCacheStore;
+import org.gradle.cache.internal.btree.KeyHasher;
+import org.gradle.internal.io.RandomAccessFileInputStream;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32;
+
+/**
+ * An {@link IndexedCacheStore} which appends every update to the end of its file, and keeps the position of the latest value for each key in memory.
+ *
+ * <p>Updates never rewrite existing parts of the file, so an interrupted write can only leave an incomplete record at the end of the file.
+ * Each record is checksummed, and the file is truncated to its last complete record when it is opened.</p>
+ *
+ * <p>The file is compacted when the store is closed and most of the file consists of superseded records.
+ * This happens at the end of the unit of work, while the cache's file lock is still held.
+ * Each compaction gives the file a new generation, recorded in its header.</p>
+ *
+ * <p>The index is kept when the store is closed. When the store is used again, only the records appended since then,
+ * for example by other processes, are read. The whole file is only read again when it has been compacted or truncated in the meantime.</p>
+ *
+ * <p>Keys are identified by the hash of their serialized form, like {@link org.gradle.cache.internal.btree.BTreePersistentIndexedCache} does.</p>
+ */
+public class AppendOnlyLogPersistentIndexedCache<K, V> implements IndexedCacheStore<K, V> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AppendOnlyLogPersistentIndexedCache.class);
+
+    private static final int FORMAT_VERSION = 2;
+    private static final int FILE_HEADER_SIZE = 12;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final long DEFAULT_MIN_COMPACTION_SIZE = 1024 * 1024;
+
+    private final File cacheFile;
+    private final KeyHasher<K> keyHasher;
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+    private final long minCompactionSize;
+    private final Map<Long, Record> index = new HashMap<Long, Record>();
+    private RandomAccessFile file;
+    private long generation;
+    // The position after the last record read into the index, or 0 when nothing has been read yet
+    private long end;
+    private long supersededBytes;
+
+    public AppendOnlyLogPersistentIndexedCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        this(cacheFile, keySerializer, valueSerializer, DEFAULT_MIN_COMPACTION_SIZE);
+    }
+
+    /**
+     * @param minCompactionSize the size the file needs to have before it is compacted.
+     */
+    public AppendOnlyLogPersistentIndexedCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer, long minCompactionSize) {
+        this.cacheFile = cacheFile;
+        this.keyHasher = new KeyHasher<K>(keySerializer);
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        this.minCompactionSize = minCompactionSize;
+        ensureOpen();
+    }
+
+    @Override
+    public String toString() {
+        return "cache " + cacheFile.getName() + " (" + cacheFile + ")";
+    }
+
+    private void ensureOpen() {
+        if (file != null) {
+            return;
+        }
+        try {
+            open();
+        } catch (Exception e) {
+            discardIndex();
+            if (file != null) {
+                try {
+                    file.close();
+                } catch (IOException ignored) {
+                    // Already failing
+                }
+                file = null;
+            }
+            throw new UncheckedIOException(String.format("Could not open %s.", this), e);
+        }
+    }
+
+    private void open() throws IOException {
+        LOGGER.debug("Opening {}", this);
+        file = new RandomAccessFile(cacheFile, "rw");
+        long length = file.length();
+        if (length < FILE_HEADER_SIZE || file.readInt() != FORMAT_VERSION) {
+            discardIndex();
+            file.setLength(0);
+            writeHeader(file, newGeneration());
+            return;
+        }
+        long fileGeneration = file.readLong();
+        if (end == 0 || fileGeneration != generation || length < end) {
+            // Compacted or truncated since we read it last, so the positions in the index are no longer valid
+            discardIndex();
+            generation = fileGeneration;
+            end = FILE_HEADER_SIZE;
+        }
+        end = load(end, length);
+        if (end < length) {
+            LOGGER.debug("Discarding incomplete records at the end of {}", this);
+            file.setLength(end);
+        }
+    }
+
+    private void writeHeader(RandomAccessFile file, long generation) throws IOException {
+        file.seek(0);
+        file.writeInt(FORMAT_VERSION);
+        file.writeLong(generation);
+        this.generation = generation;
+        this.end = FILE_HEADER_SIZE;
+    }
+
+    private static long newGeneration() {
+        return ThreadLocalRandom.current().nextLong();
+    }
+
+    private void discardIndex() {
+        index.clear();
+        supersededBytes = 0;
+        end = 0;
+    }
+
+    /**
+     * Reads all complete records starting at the given position into the index, and returns the position after the last one.
+     */
+    private long load(long start, long length) throws IOException {
+        long pos = start;
+        file.seek(pos);
+        DataInputStream input = new DataInputStream(new BufferedInputStream(new RandomAccessFileInputStream(file)));
+        try {
+            while (length - pos >= RECORD_HEADER_SIZE) {
+                int bodyLength = input.readInt();
+                int checksum = input.readInt();
+                if (bodyLength <= 0 || bodyLength > length - pos - RECORD_HEADER_SIZE) {
+                    break;
+                }
+                byte[] body = new byte[bodyLength];
+                input.readFully(body);
+                if (checksum(body, 0, bodyLength) != checksum) {
+                    break;
+                }
+                int recordSize = RECORD_HEADER_SIZE + bodyLength;
+                KryoBackedDecoder decoder = new KryoBackedDecoder(new ByteArrayInputStream(body));
+                byte kind = decoder.readByte();
+                long keyHash = keyHasher.getHashCode(keySerializer.read(decoder));
+                Record previous = kind == PUT ? index.put(keyHash, new Record(pos, recordSize)) : index.remove(keyHash);
+                if (previous != null) {
+                    supersededBytes += previous.size;
+                }
+                if (kind == REMOVE) {
+                    supersededBytes += recordSize;
+                }
+                pos += recordSize;
+            }
+        } catch (EOFException e) {
+            // Incomplete record, which is discarded
+        } catch (Exception e) {
+            LOGGER.debug("Could not read record at {} of {}, discarding it and the records after it", pos, this, e);
+        }
+        return pos;
+    }
+
+    @Nullable
+    @Override
+    public V get(K key) {
+        ensureOpen();
+        try {
+            Record record = index.get(keyHasher.getHashCode(key));
+            if (record == null) {
+                return null;
+            }
+            byte[] body = new byte[record.size - RECORD_HEADER_SIZE];
+            file.seek(record.pos + RECORD_HEADER_SIZE);
+            file.readFully(body);
+            KryoBackedDecoder decoder = new KryoBackedDecoder(new ByteArrayInputStream(body));
+            decoder.readByte();
+            keySerializer.read(decoder);
+            return valueSerializer.read(decoder);
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not read entry '%s' from %s.", key, this), e);
+        }
+    }
+
+    @Override
+    public void put(K key, V value) {
+        ensureOpen();
+        try {
+            Record previous = index.put(keyHasher.getHashCode(key), append(PUT, key, value));
+            if (previous != null) {
+                supersededBytes += previous.size;
+            }
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not add entry '%s' to %s.", key, this), e);
+        }
+    }
+
+    @Override
+    public void remove(K key) {
+        ensureOpen();
+        try {
+            long keyHash = keyHasher.getHashCode(key);
+            Record previous = index.get(keyHash);
+            if (previous == null) {
+                return;
+            }
+            Record tombstone = append(REMOVE, key, null);
+            index.remove(keyHash);
+            supersededBytes += previous.size + tombstone.size;
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not remove entry '%s' from %s.", key, this), e);
+        }
+    }
+
+    private Record append(byte kind, K key, @Nullable V value) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        output.write(new byte[RECORD_HEADER_SIZE]);
+        KryoBackedEncoder encoder = new KryoBackedEncoder(output);
+        encoder.writeByte(kind);
+        keySerializer.write(encoder, key);
+        if (kind == PUT) {
+            valueSerializer.write(encoder, value);
+        }
+        encoder.flush();
+        byte[] record = output.toByteArray();
+        int bodyLength = record.length - RECORD_HEADER_SIZE;
+        writeInt(record, 0, bodyLength);
+        writeInt(record, 4, checksum(record, RECORD_HEADER_SIZE, bodyLength));
+
+        long pos = end;
+        file.seek(pos);
+        file.write(record);
+        end += record.length;
+        return new Record(pos, record.length);
+    }
+
+    /**
+     * Releases the file, keeping the index so the store can be used again without reading the whole file.
+     */
+    @Override
+    public void close() {
+        if (file == null) {
+            return;
+        }
+        LOGGER.debug("Closing {}", this);
+        try {
+            if (end >= minCompactionSize && supersededBytes * 2 > end - FILE_HEADER_SIZE) {
+                compact();
+            }
+            file.close();
+        } catch (Exception e) {
+            discardIndex();
+            throw new UncheckedIOException(e);
+        } finally {
+            file = null;
+        }
+    }
+
+    /**
+     * Writes the current records to a new file with a new generation, and replaces the cache file with it.
+     */
+    private void compact() throws IOException {
+        LOGGER.debug("Compacting {}, {} of {} bytes are superseded", this, supersededBytes, end);
+        List<Map.Entry<Long, Record>> entries = new ArrayList<Map.Entry<Long, Record>>(index.entrySet());
+        entries.sort(Comparator.comparingLong(entry -> entry.getValue().pos));
+        Map<Long, Record> compactedIndex = new HashMap<Long, Record>(index.size());
+        long compactedGeneration = newGeneration();
+        long compactedEnd = FILE_HEADER_SIZE;
+        File compactedFile = new File(cacheFile.getParentFile(), cacheFile.getName() + ".compacted");
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(compactedFile)))) {
+                output.writeInt(FORMAT_VERSION);
+                output.writeLong(compactedGeneration);
+                byte[] buffer = new byte[0];
+                for (Map.Entry<Long, Record> entry : entries) {
+                    Record record = entry.getValue();
+                    if (buffer.length < record.size) {
+                        buffer = new byte[record.size];
+                    }
+                    file.seek(record.pos);
+                    file.readFully(buffer, 0, record.size);
+                    output.write(buffer, 0, record.size);
+                    compactedIndex.put(entry.getKey(), new Record(compactedEnd, record.size));
+                    compactedEnd += record.size;
+                }
+            }
+            file.close();
+            Files.move(compactedFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.warn("Could not compact {}.", this, e);
+            Files.deleteIfExists(compactedFile.toPath());
+            return;
+        }
+        index.clear();
+        index.putAll(compactedIndex);
+        generation = compactedGeneration;
+        end = compactedEnd;
+        supersededBytes = 0;
+    }
+
+    private static int checksum(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    private static class Record {
+        final long pos;
+        final int size;
+
+        Record(long pos, int size) {
+            this.pos = pos;
+            this.size = size;
+        }
+    }
+}
@@ -25,16 +25,27 @@
 import java.io.RandomAccessFile;
 
 public class FileBackedBlockStore implements BlockStore {
+    private static final int MAPPED_PAGE_SIZE = 1024 * 1024;
+
     private final File cacheFile;
+    private final int maxMappedPages;
     private RandomAccessFile file;
     private ByteOutput output;
-    private ByteInput input;
+    private PositionedInput input;
     private long nextBlock;
     private Factory factory;
     private long currentFileSize;
 
     public FileBackedBlockStore(File cacheFile) {
+        this(cacheFile, 0);
+    }
+
+    /**
+     * @param maxMappedPages when larger than 0, blocks are read through at most this many memory mapped pages of the file instead of using file IO.
+     */
+    public FileBackedBlockStore(File cacheFile, int maxMappedPages) {
         this.cacheFile = cacheFile;
+        this.maxMappedPages = maxMappedPages;
     }
 
     @Override
@@ -49,7 +60,7 @@ public void open(Runnable runnable, Factory factory) {
             cacheFile.getParentFile().mkdirs();
             file = openRandomAccessFile();
             output = new ByteOutput(file);
-            input = new ByteInput(file);
+            input = createInput();
             currentFileSize = file.length();
             nextBlock = currentFileSize;
             if (currentFileSize == 0) {
@@ -60,6 +71,12 @@ public void open(Runnable runnable, Factory factory) {
         }
     }
 
+    private PositionedInput createInput() {
+        return maxMappedPages > 0
+            ? new MappedByteInput(file.getChannel(), MAPPED_PAGE_SIZE, maxMappedPages)
+            : new ByteInput(file);
+    }
+
     private RandomAccessFile openRandomAccessFile() throws FileNotFoundException {
         try {
             return randomAccessFile("rw");
@@ -83,6 +100,8 @@ public void close() {
 
     @Override
     public void clear() {
+        // Drop any pages mapped beyond the new end of the file
+        input = createInput();
         try {
             file.setLength(0);
             currentFileSize = 0;
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads from a file through memory mapped pages, avoiding a system call per read.
+ *
+ * Keeps at most a fixed number of pages mapped, dropping the least recently used one when another page is needed.
+ * A page is mapped up to the current end of the file only, and is mapped again when reading beyond that after the file grew.
+ * The pages must not be used after the file has been truncated, so a new instance needs to be created in that case.
+ */
+class MappedByteInput implements PositionedInput {
+    private final FileChannel channel;
+    private final int pageSize;
+    private final Map<Long, MappedByteBuffer> pages;
+    private long position;
+    private long bytesRead;
+
+    public MappedByteInput(FileChannel channel, int pageSize, final int maxPages) {
+        this.channel = channel;
+        this.pageSize = pageSize;
+        this.pages = new LinkedHashMap<Long, MappedByteBuffer>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, MappedByteBuffer> eldest) {
+                return size() > maxPages;
+            }
+        };
+    }
+
+    @Override
+    public DataInputStream start(long offset) {
+        position = offset;
+        bytesRead = 0;
+        return new DataInputStream(new PageInputStream());
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    @Override
+    public void done() {
+    }
+
+    /**
+     * Returns the page containing the current position, or null when at the end of the file.
+     */
+    private MappedByteBuffer currentPage() throws IOException {
+        long pageIndex = position / pageSize;
+        MappedByteBuffer page = pages.get(pageIndex);
+        if (page == null || page.limit() <= offsetInPage()) {
+            long pageStart = pageIndex * pageSize;
+            long mappedSize = Math.min(pageSize, channel.size() - pageStart);
+            if (mappedSize <= offsetInPage()) {
+                return null;
+            }
+            page = channel.map(FileChannel.MapMode.READ_ONLY, pageStart, mappedSize);
+            pages.put(pageIndex, page);
+        }
+        return page;
+    }
+
+    private int offsetInPage() {
+        return (int) (position % pageSize);
+    }
+
+    private class PageInputStream extends InputStream {
+        @Override
+        public int read() throws IOException {
+            MappedByteBuffer page = currentPage();
+            if (page == null) {
+                return -1;
+            }
+            int value = page.get(offsetInPage()) & 0xFF;
+            position++;
+            bytesRead++;
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int totalRead = 0;
+            while (totalRead < length) {
+                MappedByteBuffer page = currentPage();
+                if (page == null) {
+                    break;
+                }
+                int offsetInPage = offsetInPage();
+                int count = Math.min(length - totalRead, page.limit() - offsetInPage);
+                // Copy through a duplicate, so the position of the shared page stays untouched
+                ByteBuffer view = page.duplicate();
+                view.position(offsetInPage);
+                view.get(buffer, offset + totalRead, count);
+                totalRead += count;
+                position += count;
+                bytesRead += count;
+            }
+            return totalRead == 0 && length > 0 ? -1 : totalRead;
+        }
+    }
+}
@@ -117,6 +117,39 @@ class DefaultFileLockManagerContentionTest extends ConcurrentSpec {
         }
     }
 
+    def "records the locks which could not be acquired right away"() {
+        given:
+        def statistics = new FileLockContentionStatistics()
+        def recordingManager = new DefaultFileLockManager(Stub(ProcessMetaDataProvider), 2000, contentionHandler2, new LongIdGenerator(), statistics)
+        def file = tmpDir.file("lock-file.bin")
+        def action = Mock(Action)
+        def lock = createLock(Exclusive, file, manager, action)
+
+        when:
+        createLock(Exclusive, file, recordingManager)
+
+        then:
+        1 * action.execute(_) >> { FileLockReleasedSignal signal ->
+            lock.close()
+            signal.trigger()
+        }
+        statistics.contendedLocks == 1
+    }
+
+    def "does not record locks which are acquired right away"() {
+        given:
+        def statistics = new FileLockContentionStatistics()
+        def recordingManager = new DefaultFileLockManager(Stub(ProcessMetaDataProvider), 2000, contentionHandler, new LongIdGenerator(), statistics)
+
+        when:
+        createLock(Exclusive, tmpDir.file("lock-file.bin"), recordingManager).close()
+        createLock(Shared, tmpDir.file("lock-file.bin"), recordingManager)
+
+        then:
+        statistics.contendedLocks == 0
+        statistics.waitTimeMillis == 0
+    }
+
     FileLock createLock(FileLockManager.LockMode lockMode, File file, FileLockManager lockManager = manager, Action<FileLockReleasedSignal> whenContended = null) {
         def lock = lockManager.lock(file, LockOptionsBuilder.mode(lockMode), "foo", "operation", whenContended)
         openedLocks << lock
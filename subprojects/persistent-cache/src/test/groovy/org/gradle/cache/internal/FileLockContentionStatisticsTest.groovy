@@ -0,0 +1,38 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal
+
+import spock.lang.Specification
+
+class FileLockContentionStatisticsTest extends Specification {
+    def statistics = new FileLockContentionStatistics()
+
+    def "counts contended locks and accumulates the wait time"() {
+        expect:
+        statistics.contendedLocks == 0
+        statistics.waitTimeMillis == 0
+
+        when:
+        statistics.lockAcquiredAfterWaiting(12)
+        statistics.lockAcquiredAfterWaiting(0)
+        statistics.lockAcquiredAfterWaiting(30)
+
+        then:
+        statistics.contendedLocks == 3
+        statistics.waitTimeMillis == 42
+    }
+}
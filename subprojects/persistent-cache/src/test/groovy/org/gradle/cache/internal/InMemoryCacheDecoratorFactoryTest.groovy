@@ -200,4 +200,43 @@ class InMemoryCacheDecoratorFactoryTest extends Specification {
         0 * target._
     }
 
+    def "reads entries found in memory without file lock when entries are immutable"() {
+        given:
+        def cache = cacheFactory.immutableEntriesDecorator(100, true).decorate("path/fileSnapshots.bin", "fileSnapshots", target, crossProcessCacheAccess, asyncCacheAccess)
+
+        when:
+        def result = cache.get("key")
+
+        then:
+        result == "result"
+
+        and:
+        1 * crossProcessCacheAccess.withFileLock(_) >> { Factory task -> task.create() }
+        1 * asyncCacheAccess.read(_) >> { Factory task -> task.create() }
+        1 * target.get("key") >> "result"
+        0 * target._
+
+        when:
+        result = cache.get("key")
+
+        then:
+        result == "result"
+
+        and:
+        0 * crossProcessCacheAccess._
+        0 * target._
+
+        when:
+        result = cache.get("missing")
+        result = cache.get("missing")
+
+        then:
+        result == null
+
+        and:
+        2 * crossProcessCacheAccess.withFileLock(_) >> { Factory task -> task.create() }
+        1 * asyncCacheAccess.read(_) >> { Factory task -> task.create() }
+        1 * target.get("missing") >> null
+        0 * target._
+    }
 }
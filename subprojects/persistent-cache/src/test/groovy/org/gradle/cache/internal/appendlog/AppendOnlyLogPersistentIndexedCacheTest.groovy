@@ -0,0 +1,215 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.appendlog
+
+import org.gradle.internal.serialize.BaseSerializerFactory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class AppendOnlyLogPersistentIndexedCacheTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+    def cacheFile = tmpDir.file("cache.log")
+
+    def "adds, replaces and removes entries"() {
+        def cache = createCache()
+
+        when:
+        cache.put("a", 1L)
+        cache.put("b", 2L)
+        cache.put("a", 3L)
+        cache.remove("b")
+        cache.remove("c")
+
+        then:
+        cache.get("a") == 3L
+        cache.get("b") == null
+        cache.get("c") == null
+
+        cleanup:
+        cache.close()
+    }
+
+    def "entries are read back when reopened"() {
+        def cache = createCache()
+        (1..100).each { cache.put("key-$it".toString(), it as Long) }
+        (1..50).each { cache.remove("key-$it".toString()) }
+        cache.put("key-1", 1000L)
+        cache.close()
+
+        when:
+        cache = createCache()
+
+        then:
+        cache.get("key-1") == 1000L
+        (2..50).every { cache.get("key-$it".toString()) == null }
+        (51..100).every { cache.get("key-$it".toString()) == it }
+
+        cleanup:
+        cache.close()
+    }
+
+    def "discards incomplete record at end of file"() {
+        def cache = createCache()
+        cache.put("a", 1L)
+        cache.put("b", 2L)
+        cache.close()
+        def length = cacheFile.length()
+        cacheFile.bytes = cacheFile.bytes[0..-3] as byte[]
+
+        when:
+        cache = createCache()
+
+        then:
+        cache.get("a") == 1L
+        cache.get("b") == null
+        cacheFile.length() < length - 2
+
+        when:
+        cache.put("c", 3L)
+        cache.close()
+        cache = createCache()
+
+        then:
+        cache.get("a") == 1L
+        cache.get("c") == 3L
+
+        cleanup:
+        cache.close()
+    }
+
+    def "discards file with unknown format"() {
+        cacheFile.text = "not a log"
+
+        when:
+        def cache = createCache()
+
+        then:
+        cache.get("a") == null
+
+        when:
+        cache.put("a", 1L)
+        cache.close()
+        cache = createCache()
+
+        then:
+        cache.get("a") == 1L
+
+        cleanup:
+        cache.close()
+    }
+
+    def "compacts file on close when most of it is superseded"() {
+        def cache = createCache()
+        (1..10).each { cache.put("key-$it".toString(), it as Long) }
+        cache.close()
+        def length = cacheFile.length()
+
+        when:
+        cache = createCache()
+        (1..10).each { cache.put("key-$it".toString(), -it as Long) }
+        (1..10).each { cache.put("key-$it".toString(), it as Long) }
+        cache.close()
+
+        then:
+        cacheFile.length() == length
+
+        when:
+        cache = createCache()
+
+        then:
+        (1..10).every { cache.get("key-$it".toString()) == it }
+
+        cleanup:
+        cache.close()
+    }
+
+    def "keeps index when closed and only reads records appended since"() {
+        def cache = createCache()
+        cache.put("a", 1L)
+        cache.close()
+        def other = createCache()
+        other.put("b", 2L)
+        other.close()
+
+        when:
+        // Corrupt the first record, which should not be read again
+        def file = new RandomAccessFile(cacheFile, "rw")
+        file.seek(12 + 8 + 2)
+        file.write(0xff)
+        file.close()
+
+        then:
+        cache.get("a") == 1L
+        cache.get("b") == 2L
+
+        cleanup:
+        cache.close()
+    }
+
+    def "reads whole file again when it was compacted by another instance"() {
+        def cache = createCache()
+        (1..10).each { cache.put("key-$it".toString(), it as Long) }
+        cache.close()
+
+        when:
+        def other = createCache()
+        (1..10).each { other.put("key-$it".toString(), -it as Long) }
+        other.remove("key-1")
+        other.close()
+
+        then:
+        cache.get("key-1") == null
+        (2..10).every { cache.get("key-$it".toString()) == -it }
+
+        when:
+        cache.put("key-1", 1L)
+        cache.close()
+        cache = createCache()
+
+        then:
+        cache.get("key-1") == 1L
+
+        cleanup:
+        cache.close()
+    }
+
+    def "reads whole file again when it was truncated by another instance"() {
+        def cache = createCache()
+        cache.put("a", 1L)
+        cache.put("b", 2L)
+        cache.close()
+
+        when:
+        cacheFile.delete()
+        def other = createCache()
+        other.put("c", 3L)
+        other.close()
+
+        then:
+        cache.get("a") == null
+        cache.get("c") == 3L
+
+        cleanup:
+        cache.close()
+    }
+
+    private AppendOnlyLogPersistentIndexedCache<String, Long> createCache() {
+        return new AppendOnlyLogPersistentIndexedCache<String, Long>(cacheFile, BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.LONG_SERIALIZER, 0)
+    }
+}
@@ -57,6 +57,10 @@ private void createCache() {
         cache = new BTreePersistentIndexedCache<String, Integer>(cacheFile, stringSerializer, integerSerializer, (short) 4, 100);
     }
 
+    private void createMemoryMappedCacheWithUnflushedUpdates() {
+        cache = new BTreePersistentIndexedCache<String, Integer>(cacheFile, stringSerializer, integerSerializer, (short) 4, 100, 2, 10);
+    }
+
     private void verifyAndCloseCache() {
         cache.verify();
         cache.close();
@@ -260,6 +264,38 @@ public void canHandleLargeNumberOfEntries() {
         cache.close();
     }
 
+    @Test
+    public void persistsAddedAndRemovedEntriesWhenMemoryMappedWithUnflushedUpdates() {
+        createMemoryMappedCacheWithUnflushedUpdates();
+        List<Integer> values = new ArrayList<Integer>();
+        for (int i = 0; i < 200; i++) {
+            values.add(i);
+        }
+
+        checkAddsAndRemoves(null, values);
+        checkUpdates(values);
+        verifyAndCloseCache();
+    }
+
+    @Test
+    public void writesUnflushedUpdatesWhenClosed() {
+        createMemoryMappedCacheWithUnflushedUpdates();
+        long len = cacheFile.length();
+
+        cache.put("key_1", 1);
+        cache.put("key_2", 2);
+        assertThat(cacheFile.length(), equalTo(len));
+        assertThat(cache.get("key_1"), equalTo(1));
+
+        cache.close();
+        assertTrue(cacheFile.length() > len);
+
+        createMemoryMappedCacheWithUnflushedUpdates();
+        assertThat(cache.get("key_1"), equalTo(1));
+        assertThat(cache.get("key_2"), equalTo(2));
+        verifyAndCloseCache();
+    }
+
     @Test
     public void persistsRemovalOfEntries() {
         createCache();
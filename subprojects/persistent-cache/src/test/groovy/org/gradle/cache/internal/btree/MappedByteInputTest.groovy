@@ -0,0 +1,95 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class MappedByteInputTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+    RandomAccessFile file
+    MappedByteInput input
+
+    def setup() {
+        file = new RandomAccessFile(tmpDir.file("test.bin"), "rw")
+        input = new MappedByteInput(file.channel, 16, 2)
+    }
+
+    def cleanup() {
+        file.close()
+    }
+
+    def "reads bytes spanning multiple pages"() {
+        given:
+        def bytes = (0..<100).collect { it as byte } as byte[]
+        file.write(bytes)
+
+        when:
+        def buffer = new byte[60]
+        def stream = input.start(10)
+        stream.readFully(buffer)
+        input.done()
+
+        then:
+        buffer == bytes[10..<70] as byte[]
+        input.bytesRead == 60
+    }
+
+    def "reads from multiple locations in file"() {
+        given:
+        file.writeInt(123)
+        file.writeInt(321)
+        file.writeInt(456)
+
+        expect:
+        def stream = input.start(4)
+        stream.readInt() == 321
+        stream.readInt() == 456
+        input.done()
+
+        def stream2 = input.start(0)
+        stream2.readInt() == 123
+        input.done()
+    }
+
+    def "reads data appended after a page has been mapped"() {
+        given:
+        file.writeInt(123)
+
+        expect:
+        input.start(0).readInt() == 123
+
+        when:
+        file.writeInt(321)
+
+        then:
+        input.start(4).readInt() == 321
+    }
+
+    def "cannot read beyond end of file"() {
+        given:
+        file.writeInt(123)
+
+        when:
+        input.start(2).readInt()
+
+        then:
+        EOFException e = thrown()
+    }
+}
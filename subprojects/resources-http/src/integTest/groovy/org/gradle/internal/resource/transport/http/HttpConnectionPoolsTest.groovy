@@ -0,0 +1,95 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http
+
+import org.gradle.test.fixtures.server.http.HttpServer
+import org.junit.Rule
+import spock.lang.Specification
+
+import javax.servlet.http.HttpServletRequest
+import javax.servlet.http.HttpServletResponse
+
+class HttpConnectionPoolsTest extends Specification {
+
+    @Rule
+    HttpServer httpServer = new HttpServer()
+    def connectionPools = new HttpConnectionPools()
+    HttpSettings settings = DefaultHttpSettings.builder()
+        .withAuthenticationSettings([])
+        .withSslContextFactory(new DefaultSslContextFactory())
+        .withRedirectVerifier({})
+        .build()
+    List<Integer> clientPorts = []
+
+    def setup() {
+        httpServer.start()
+        2.times {
+            httpServer.expect("/resource", ['GET'], new RecordClientPortAction(clientPorts))
+        }
+    }
+
+    def cleanup() {
+        connectionPools.close()
+    }
+
+    def "clients sharing pools reuse connections of each other"() {
+        when:
+        get(new HttpClientHelper(settings, connectionPools))
+        get(new HttpClientHelper(settings, connectionPools))
+
+        then:
+        clientPorts.size() == 2
+        clientPorts[0] == clientPorts[1]
+    }
+
+    def "clients with their own pool do not reuse connections of each other"() {
+        when:
+        get(new HttpClientHelper(settings))
+        get(new HttpClientHelper(settings))
+
+        then:
+        clientPorts.size() == 2
+        clientPorts[0] != clientPorts[1]
+    }
+
+    private void get(HttpClientHelper client) {
+        def response = client.performGet("${httpServer.address}/resource", false)
+        try {
+            assert response.content.text == "content"
+        } finally {
+            response.close()
+            client.close()
+        }
+    }
+}
+
+class RecordClientPortAction extends HttpServer.ActionSupport {
+    private final List<Integer> clientPorts
+
+    RecordClientPortAction(List<Integer> clientPorts) {
+        super("Record client port")
+        this.clientPorts = clientPorts
+    }
+
+    @Override
+    void handle(HttpServletRequest request, HttpServletResponse response) {
+        clientPorts.add(request.remotePort)
+        byte[] content = "content".bytes
+        response.setContentLength(content.length)
+        response.outputStream.bytes = content
+    }
+}
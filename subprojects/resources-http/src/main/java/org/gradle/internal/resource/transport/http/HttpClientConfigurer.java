@@ -73,6 +73,7 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import javax.net.ssl.HostnameVerifier;
 import java.net.ProxySelector;
 import java.util.Collection;
@@ -97,14 +98,27 @@ public class HttpClientConfigurer {
     }
 
     private final HttpSettings httpSettings;
+    private final HttpConnectionPools connectionPools;
 
     public HttpClientConfigurer(HttpSettings httpSettings) {
+        this(httpSettings, null);
+    }
+
+    /**
+     * Creates a configurer for clients using connections from the given pools, or from their own pool if there are none.
+     */
+    public HttpClientConfigurer(HttpSettings httpSettings, @Nullable HttpConnectionPools connectionPools) {
         this.httpSettings = httpSettings;
+        this.connectionPools = connectionPools;
     }
 
     public void configure(HttpClientBuilder builder) {
         SystemDefaultCredentialsProvider credentialsProvider = new SystemDefaultCredentialsProvider();
-        configureSslSocketConnectionFactory(builder, httpSettings.getSslContextFactory(), httpSettings.getHostnameVerifier());
+        if (connectionPools != null) {
+            configureSharedConnectionManager(builder, connectionPools, httpSettings.getSslContextFactory(), httpSettings.getHostnameVerifier());
+        } else {
+            configureSslSocketConnectionFactory(builder, httpSettings.getSslContextFactory(), httpSettings.getHostnameVerifier());
+        }
         configureAuthSchemeRegistry(builder);
         configureCredentials(builder, credentialsProvider, httpSettings.getAuthenticationSettings());
         configureProxy(builder, credentialsProvider, httpSettings);
@@ -118,6 +132,11 @@ public void configure(HttpClientBuilder builder) {
         builder.setMaxConnPerRoute(MAX_HTTP_CONNECTIONS);
     }
 
+    private void configureSharedConnectionManager(HttpClientBuilder builder, HttpConnectionPools connectionPools, SslContextFactory sslContextFactory, HostnameVerifier hostnameVerifier) {
+        builder.setConnectionManager(connectionPools.getConnectionManager(sslContextFactory.createSslContext(), SSL_PROTOCOLS, hostnameVerifier, createSocketConfig()));
+        builder.setConnectionManagerShared(true);
+    }
+
     private void configureSslSocketConnectionFactory(HttpClientBuilder builder, SslContextFactory sslContextFactory, HostnameVerifier hostnameVerifier) {
         builder.setSSLSocketFactory(new SSLConnectionSocketFactory(sslContextFactory.createSslContext(), SSL_PROTOCOLS, null, hostnameVerifier));
     }
@@ -260,8 +279,12 @@ private void configureRequestConfig(HttpClientBuilder builder) {
     }
 
     private void configureSocketConfig(HttpClientBuilder builder) {
+        builder.setDefaultSocketConfig(createSocketConfig());
+    }
+
+    private SocketConfig createSocketConfig() {
         HttpTimeoutSettings timeoutSettings = httpSettings.getTimeoutSettings();
-        builder.setDefaultSocketConfig(SocketConfig.custom().setSoTimeout(timeoutSettings.getSocketTimeoutMs()).setSoKeepAlive(true).build());
+        return SocketConfig.custom().setSoTimeout(timeoutSettings.getSocketTimeoutMs()).setSoKeepAlive(true).build();
     }
 
     private void configureRedirectStrategy(HttpClientBuilder builder) {
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http;
+
+import com.google.common.base.Objects;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pools of HTTP connections shared by all HTTP clients of this process.
+ *
+ * Sharing the pools lets a client reuse connections opened by other clients for the same server,
+ * like those for other repositories on that server or those of earlier builds, instead of connecting and doing a TLS handshake again.
+ * Clients share a pool when they use the same TLS settings.
+ */
+public class HttpConnectionPools implements Closeable {
+    private static final int MAX_HTTP_CONNECTIONS_PER_ROUTE = 20;
+    private static final int MAX_HTTP_CONNECTIONS = 100;
+    private static final long MAX_IDLE_TIME_SECONDS = 60;
+
+    private final Map<PoolKey, PoolingHttpClientConnectionManager> pools = new HashMap<>();
+
+    /**
+     * Returns the pool for the given settings, which must not be shut down by the client.
+     */
+    public synchronized HttpClientConnectionManager getConnectionManager(SSLContext sslContext, String[] sslProtocols, HostnameVerifier hostnameVerifier, SocketConfig socketConfig) {
+        for (PoolingHttpClientConnectionManager pool : pools.values()) {
+            pool.closeExpiredConnections();
+            pool.closeIdleConnections(MAX_IDLE_TIME_SECONDS, TimeUnit.SECONDS);
+        }
+        return pools.computeIfAbsent(new PoolKey(sslContext, sslProtocols, hostnameVerifier, socketConfig), key -> {
+            PoolingHttpClientConnectionManager pool = new PoolingHttpClientConnectionManager(RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", new SSLConnectionSocketFactory(sslContext, sslProtocols, null, hostnameVerifier))
+                .build());
+            pool.setDefaultSocketConfig(socketConfig);
+            pool.setDefaultMaxPerRoute(MAX_HTTP_CONNECTIONS_PER_ROUTE);
+            pool.setMaxTotal(MAX_HTTP_CONNECTIONS);
+            return pool;
+        });
+    }
+
+    @Override
+    public synchronized void close() {
+        for (PoolingHttpClientConnectionManager pool : pools.values()) {
+            pool.shutdown();
+        }
+        pools.clear();
+    }
+
+    private static class PoolKey {
+        private final SSLContext sslContext;
+        private final String sslProtocols;
+        private final Class<?> hostnameVerifierType;
+        private final int socketTimeout;
+
+        PoolKey(SSLContext sslContext, String[] sslProtocols, HostnameVerifier hostnameVerifier, SocketConfig socketConfig) {
+            this.sslContext = sslContext;
+            this.sslProtocols = sslProtocols == null ? null : String.join(",", sslProtocols);
+            // Hostname verifiers are created per client, but do not have state
+            this.hostnameVerifierType = hostnameVerifier.getClass();
+            this.socketTimeout = socketConfig.getSoTimeout();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            PoolKey other = (PoolKey) o;
+            return sslContext == other.sslContext
+                && Objects.equal(sslProtocols, other.sslProtocols)
+                && hostnameVerifierType == other.hostnameVerifierType
+                && socketTimeout == other.socketTimeout;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(System.identityHashCode(sslContext), sslProtocols, hostnameVerifierType, socketTimeout);
+        }
+    }
+}
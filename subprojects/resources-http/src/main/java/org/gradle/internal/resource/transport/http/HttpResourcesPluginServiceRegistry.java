@@ -43,8 +43,12 @@ SslContextFactory createSslContextFactory() {
             return new DefaultSslContextFactory();
         }
 
-        ResourceConnectorFactory createHttpConnectorFactory(SslContextFactory sslContextFactory) {
-            return new HttpConnectorFactory(sslContextFactory);
+        HttpConnectionPools createHttpConnectionPools() {
+            return new HttpConnectionPools();
+        }
+
+        ResourceConnectorFactory createHttpConnectorFactory(SslContextFactory sslContextFactory, HttpConnectionPools connectionPools) {
+            return new HttpConnectorFactory(sslContextFactory, connectionPools);
         }
     }
 
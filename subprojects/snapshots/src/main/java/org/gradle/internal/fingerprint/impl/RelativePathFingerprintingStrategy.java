@@ -16,6 +16,9 @@
 
 package org.gradle.internal.fingerprint.impl;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Interner;
 import org.gradle.internal.file.FileType;
@@ -27,18 +30,31 @@
 import org.gradle.internal.snapshot.FileSystemSnapshotVisitor;
 import org.gradle.internal.snapshot.RelativePathStringTracker;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Fingerprint {@link org.gradle.api.file.FileCollection}s normalizing the path to the relative path in a hierarchy.
  *
  * File names for root directories are ignored. For root files, the file name is used as normalized path.
+ *
+ * The fingerprints of directories whose snapshot has not changed since they were last fingerprinted are reused,
+ * so only the changed parts of a hierarchy are visited again.
  */
 public class RelativePathFingerprintingStrategy extends AbstractFingerprintingStrategy {
     public static final String IDENTIFIER = "RELATIVE_PATH";
 
     private final Interner<String> stringInterner;
+    // Directory snapshots are immutable and the virtual file system only replaces the ones that changed,
+    // so the fingerprints of an unchanged directory can be reused as long as its snapshot is alive.
+    private final Cache<CompleteDirectorySnapshot, FingerprintedDirectory> fingerprintedDirectories = CacheBuilder.newBuilder()
+        .weakKeys()
+        .build();
 
     public RelativePathFingerprintingStrategy(Interner<String> stringInterner) {
         super(IDENTIFIER);
@@ -61,26 +77,34 @@ public Map<String, FileSystemLocationFingerprint> collectFingerprints(Iterable<?
         for (FileSystemSnapshot root : roots) {
             root.accept(new FileSystemSnapshotVisitor() {
                 private final RelativePathStringTracker relativePathStringTracker = new RelativePathStringTracker();
+                private final Deque<FingerprintedDirectoryBuilder> directories = new ArrayDeque<FingerprintedDirectoryBuilder>();
 
                 @Override
                 public boolean preVisitDirectory(CompleteDirectorySnapshot directorySnapshot) {
                     boolean isRoot = relativePathStringTracker.isRoot();
                     relativePathStringTracker.enter(directorySnapshot);
-                    String absolutePath = directorySnapshot.getAbsolutePath();
-                    if (processedEntries.add(absolutePath)) {
-                        FileSystemLocationFingerprint fingerprint = isRoot ? IgnoredPathFileSystemLocationFingerprint.DIRECTORY : new DefaultFileSystemLocationFingerprint(stringInterner.intern(relativePathStringTracker.getRelativePathString()), directorySnapshot);
-                        builder.put(absolutePath, fingerprint);
+                    String relativePath = isRoot ? "" : relativePathStringTracker.getRelativePathString();
+                    FingerprintedDirectory fingerprintedDirectory = fingerprintedDirectories.getIfPresent(directorySnapshot);
+                    if (fingerprintedDirectory != null && fingerprintedDirectory.relativePath.equals(relativePath)) {
+                        // Nothing changed in this directory since it has been fingerprinted
+                        fingerprintedDirectory.addTo(builder, processedEntries);
+                        addToParent(fingerprintedDirectory);
+                        relativePathStringTracker.leave();
+                        return false;
                     }
+                    FileSystemLocationFingerprint fingerprint = isRoot ? IgnoredPathFileSystemLocationFingerprint.DIRECTORY : new DefaultFileSystemLocationFingerprint(stringInterner.intern(relativePath), directorySnapshot);
+                    FingerprintedEntry entry = new FingerprintedEntry(directorySnapshot.getAbsolutePath(), fingerprint);
+                    entry.addTo(builder, processedEntries);
+                    directories.addLast(new FingerprintedDirectoryBuilder(entry, relativePath));
                     return true;
                 }
 
                 @Override
                 public void visitFile(CompleteFileSystemLocationSnapshot fileSnapshot) {
-                    String absolutePath = fileSnapshot.getAbsolutePath();
-                    if (processedEntries.add(absolutePath)) {
-                        FileSystemLocationFingerprint fingerprint = relativePathStringTracker.isRoot() ? new DefaultFileSystemLocationFingerprint(fileSnapshot.getName(), fileSnapshot) : createFingerprint(fileSnapshot);
-                        builder.put(absolutePath, fingerprint);
-                    }
+                    FileSystemLocationFingerprint fingerprint = relativePathStringTracker.isRoot() ? new DefaultFileSystemLocationFingerprint(fileSnapshot.getName(), fileSnapshot) : createFingerprint(fileSnapshot);
+                    FingerprintedEntry entry = new FingerprintedEntry(fileSnapshot.getAbsolutePath(), fingerprint);
+                    entry.addTo(builder, processedEntries);
+                    addToParent(entry);
                 }
 
                 private FileSystemLocationFingerprint createFingerprint(CompleteFileSystemLocationSnapshot snapshot) {
@@ -93,6 +117,16 @@ private FileSystemLocationFingerprint createFingerprint(CompleteFileSystemLocati
                 @Override
                 public void postVisitDirectory(CompleteDirectorySnapshot directorySnapshot) {
                     relativePathStringTracker.leave();
+                    FingerprintedDirectory fingerprintedDirectory = directories.removeLast().build();
+                    fingerprintedDirectories.put(directorySnapshot, fingerprintedDirectory);
+                    addToParent(fingerprintedDirectory);
+                }
+
+                private void addToParent(FingerprintedEntry entry) {
+                    FingerprintedDirectoryBuilder parent = directories.peekLast();
+                    if (parent != null) {
+                        parent.children.add(entry);
+                    }
                 }
             });
         }
@@ -103,4 +137,57 @@ public void postVisitDirectory(CompleteDirectorySnapshot directorySnapshot) {
     public FingerprintHashingStrategy getHashingStrategy() {
         return FingerprintHashingStrategy.SORT;
     }
+
+    private static class FingerprintedEntry {
+        private final String absolutePath;
+        private final FileSystemLocationFingerprint fingerprint;
+
+        FingerprintedEntry(String absolutePath, FileSystemLocationFingerprint fingerprint) {
+            this.absolutePath = absolutePath;
+            this.fingerprint = fingerprint;
+        }
+
+        void addTo(ImmutableMap.Builder<String, FileSystemLocationFingerprint> builder, Set<String> processedEntries) {
+            if (processedEntries.add(absolutePath)) {
+                builder.put(absolutePath, fingerprint);
+            }
+        }
+    }
+
+    /**
+     * The fingerprints of a directory and everything below it, in the order they are visited.
+     */
+    private static class FingerprintedDirectory extends FingerprintedEntry {
+        private final String relativePath;
+        private final ImmutableList<FingerprintedEntry> children;
+
+        FingerprintedDirectory(FingerprintedEntry entry, String relativePath, ImmutableList<FingerprintedEntry> children) {
+            super(entry.absolutePath, entry.fingerprint);
+            this.relativePath = relativePath;
+            this.children = children;
+        }
+
+        @Override
+        void addTo(ImmutableMap.Builder<String, FileSystemLocationFingerprint> builder, Set<String> processedEntries) {
+            super.addTo(builder, processedEntries);
+            for (FingerprintedEntry child : children) {
+                child.addTo(builder, processedEntries);
+            }
+        }
+    }
+
+    private static class FingerprintedDirectoryBuilder {
+        private final FingerprintedEntry entry;
+        private final String relativePath;
+        private final List<FingerprintedEntry> children = new ArrayList<FingerprintedEntry>();
+
+        FingerprintedDirectoryBuilder(FingerprintedEntry entry, String relativePath) {
+            this.entry = entry;
+            this.relativePath = relativePath;
+        }
+
+        FingerprintedDirectory build() {
+            return new FingerprintedDirectory(entry, relativePath, ImmutableList.copyOf(children));
+        }
+    }
 }
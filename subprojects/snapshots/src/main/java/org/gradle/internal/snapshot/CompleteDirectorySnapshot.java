@@ -36,7 +36,8 @@ public class CompleteDirectorySnapshot extends AbstractCompleteFileSystemLocatio
 
     public CompleteDirectorySnapshot(String absolutePath, String name, List<CompleteFileSystemLocationSnapshot> children, HashCode contentHash) {
         super(absolutePath, name);
-        this.children = children;
+        // An exactly sized immutable copy is cheaper to retain than the list used to collect the children
+        this.children = ImmutableList.copyOf(children);
         this.contentHash = contentHash;
     }
 
@@ -28,12 +28,15 @@
  */
 public class RegularFileSnapshot extends AbstractCompleteFileSystemLocationSnapshot {
     private final HashCode contentHash;
-    private final FileMetadata metadata;
+    // The metadata is kept in fields instead of a FileMetadata instance to reduce the memory retained per file
+    private final long size;
+    private final long lastModified;
 
     public RegularFileSnapshot(String absolutePath, String name, HashCode contentHash, FileMetadata metadata) {
         super(absolutePath, name);
         this.contentHash = contentHash;
-        this.metadata = metadata;
+        this.size = metadata.getSize();
+        this.lastModified = metadata.getLastModified();
     }
 
     @Override
@@ -46,9 +49,21 @@ public HashCode getHash() {
         return contentHash;
     }
 
-    // Used by the Maven caching client. Do not remove
+    public long getSize() {
+        return size;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Used by the Maven caching client. Do not remove.
+     *
+     * Creates a new instance on each call, so prefer {@link #getSize()} and {@link #getLastModified()} on hot paths.
+     */
     public FileMetadata getMetadata() {
-        return metadata;
+        return new FileMetadata(size, lastModified);
     }
 
     @Override
@@ -57,7 +72,9 @@ public boolean isContentAndMetadataUpToDate(CompleteFileSystemLocationSnapshot o
             return false;
         }
         RegularFileSnapshot otherSnapshot = (RegularFileSnapshot) other;
-        return metadata.equals(otherSnapshot.metadata) && contentHash.equals(otherSnapshot.contentHash);
+        return size == otherSnapshot.size
+            && lastModified == otherSnapshot.lastModified
+            && contentHash.equals(otherSnapshot.contentHash);
     }
 
     @Override
@@ -17,6 +17,7 @@
 package org.gradle.internal.snapshot.impl;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Interner;
 import com.google.common.collect.Lists;
@@ -27,6 +28,7 @@
 import org.gradle.internal.snapshot.MerkleDirectorySnapshotBuilder;
 import org.gradle.internal.snapshot.MissingFileSnapshot;
 import org.gradle.internal.snapshot.RegularFileSnapshot;
+import org.gradle.internal.snapshot.RelativePathSegmentsTracker;
 import org.gradle.internal.snapshot.SnapshottingFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,11 +43,15 @@
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 public class DirectorySnapshotter {
     private static final Logger LOGGER = LoggerFactory.getLogger(DirectorySnapshotter.class);
@@ -53,17 +59,32 @@ public class DirectorySnapshotter {
     private final FileHasher hasher;
     private final Interner<String> stringInterner;
     private final DefaultExcludes defaultExcludes;
+    private final Supplier<Executor> hashingExecutor;
 
     public DirectorySnapshotter(FileHasher hasher, Interner<String> stringInterner, String... defaultExcludes) {
+        this(hasher, stringInterner, () -> null, defaultExcludes);
+    }
+
+    /**
+     * Creates a snapshotter which hashes the regular files of a directory on the executor returned by the given supplier while walking the directory.
+     * When the supplier returns {@code null}, files are hashed on the walking thread.
+     * The thread taking the snapshot helps with hashing, so progress is guaranteed even when the executor is busy.
+     */
+    public DirectorySnapshotter(FileHasher hasher, Interner<String> stringInterner, Supplier<Executor> hashingExecutor, String... defaultExcludes) {
         this.hasher = hasher;
         this.stringInterner = stringInterner;
+        this.hashingExecutor = hashingExecutor;
         this.defaultExcludes = new DefaultExcludes(defaultExcludes);
     }
 
     public CompleteFileSystemLocationSnapshot snapshot(String absolutePath, @Nullable SnapshottingFilter.DirectoryWalkerPredicate predicate, final AtomicBoolean hasBeenFiltered) {
         try {
             Path rootPath = Paths.get(absolutePath);
-            PathVisitor visitor = new PathVisitor(predicate, hasBeenFiltered, hasher, stringInterner, defaultExcludes);
+            Executor executor = hashingExecutor.get();
+            SnapshotBuilder builder = executor == null
+                ? new DirectSnapshotBuilder(hasher)
+                : new ConcurrentHashingSnapshotBuilder(hasher, executor);
+            PathVisitor visitor = new PathVisitor(builder, predicate, hasBeenFiltered, stringInterner, defaultExcludes);
             Files.walkFileTree(rootPath, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, visitor);
             return visitor.getResult();
         } catch (IOException e) {
@@ -145,24 +166,22 @@ public boolean test(String element) {
     }
 
     private static class PathVisitor implements java.nio.file.FileVisitor<Path> {
-        private final MerkleDirectorySnapshotBuilder builder;
+        private final SnapshotBuilder builder;
         private final SnapshottingFilter.DirectoryWalkerPredicate predicate;
         private final AtomicBoolean hasBeenFiltered;
-        private final FileHasher hasher;
         private final Interner<String> stringInterner;
         private final DefaultExcludes defaultExcludes;
 
         public PathVisitor(
+            SnapshotBuilder builder,
             @Nullable SnapshottingFilter.DirectoryWalkerPredicate predicate,
             AtomicBoolean hasBeenFiltered,
-            FileHasher hasher,
             Interner<String> stringInterner,
             DefaultExcludes defaultExcludes
         ) {
-            this.builder = MerkleDirectorySnapshotBuilder.sortingRequired();
+            this.builder = builder;
             this.predicate = predicate;
             this.hasBeenFiltered = hasBeenFiltered;
-            this.hasher = hasher;
             this.stringInterner = stringInterner;
             this.defaultExcludes = defaultExcludes;
         }
@@ -189,23 +208,14 @@ private String getFilename(Path dir) {
         public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
             String internedName = intern(file.getFileName().toString());
             if (shouldVisit(file, internedName, false, attrs, builder.getRelativePath())) {
-                builder.visitFile(snapshotFile(file, internedName, attrs));
-            }
-            return FileVisitResult.CONTINUE;
-        }
-
-        private CompleteFileSystemLocationSnapshot snapshotFile(Path absoluteFilePath, String internedName, BasicFileAttributes attrs) {
-            String internedAbsoluteFilePath = intern(absoluteFilePath.toString());
-            if (attrs.isRegularFile()) {
-                try {
-                    HashCode hash = hasher.hash(absoluteFilePath.toFile(), attrs.size(), attrs.lastModifiedTime().toMillis());
-                    FileMetadata metadata = FileMetadata.from(attrs);
-                    return new RegularFileSnapshot(internedAbsoluteFilePath, internedName, hash, metadata);
-                } catch (UncheckedIOException e) {
-                    LOGGER.info("Could not read file path '{}'.", absoluteFilePath, e);
+                String internedAbsoluteFilePath = intern(file.toString());
+                if (attrs.isRegularFile()) {
+                    builder.visitRegularFile(file, internedAbsoluteFilePath, internedName, attrs);
+                } else {
+                    builder.visitFile(new MissingFileSnapshot(internedAbsoluteFilePath, internedName));
                 }
             }
-            return new MissingFileSnapshot(internedAbsoluteFilePath, internedName);
+            return FileVisitResult.CONTINUE;
         }
 
         /** unlistable directories (and maybe some locked files) will stop here */
@@ -274,4 +284,269 @@ public CompleteFileSystemLocationSnapshot getResult() {
             return builder.getResult();
         }
     }
+
+    private static CompleteFileSystemLocationSnapshot snapshotRegularFile(FileHasher hasher, Path absoluteFilePath, String internedAbsoluteFilePath, String internedName, BasicFileAttributes attrs) {
+        try {
+            HashCode hash = hasher.hash(absoluteFilePath.toFile(), attrs.size(), attrs.lastModifiedTime().toMillis());
+            FileMetadata metadata = FileMetadata.from(attrs);
+            return new RegularFileSnapshot(internedAbsoluteFilePath, internedName, hash, metadata);
+        } catch (UncheckedIOException e) {
+            LOGGER.info("Could not read file path '{}'.", absoluteFilePath, e);
+            return new MissingFileSnapshot(internedAbsoluteFilePath, internedName);
+        }
+    }
+
+    private interface SnapshotBuilder {
+        void preVisitDirectory(String absolutePath, String name);
+
+        void visitRegularFile(Path absoluteFilePath, String internedAbsoluteFilePath, String internedName, BasicFileAttributes attrs);
+
+        void visitFile(CompleteFileSystemLocationSnapshot fileSnapshot);
+
+        void postVisitDirectory();
+
+        boolean isRoot();
+
+        Iterable<String> getRelativePath();
+
+        CompleteFileSystemLocationSnapshot getResult();
+    }
+
+    /**
+     * Hashes regular files on the walking thread and directly builds the snapshot.
+     */
+    private static class DirectSnapshotBuilder implements SnapshotBuilder {
+        private final MerkleDirectorySnapshotBuilder builder = MerkleDirectorySnapshotBuilder.sortingRequired();
+        private final FileHasher hasher;
+
+        public DirectSnapshotBuilder(FileHasher hasher) {
+            this.hasher = hasher;
+        }
+
+        @Override
+        public void preVisitDirectory(String absolutePath, String name) {
+            builder.preVisitDirectory(absolutePath, name);
+        }
+
+        @Override
+        public void visitRegularFile(Path absoluteFilePath, String internedAbsoluteFilePath, String internedName, BasicFileAttributes attrs) {
+            builder.visitFile(snapshotRegularFile(hasher, absoluteFilePath, internedAbsoluteFilePath, internedName, attrs));
+        }
+
+        @Override
+        public void visitFile(CompleteFileSystemLocationSnapshot fileSnapshot) {
+            builder.visitFile(fileSnapshot);
+        }
+
+        @Override
+        public void postVisitDirectory() {
+            builder.postVisitDirectory();
+        }
+
+        @Override
+        public boolean isRoot() {
+            return builder.isRoot();
+        }
+
+        @Override
+        public Iterable<String> getRelativePath() {
+            return builder.getRelativePath();
+        }
+
+        @Override
+        public CompleteFileSystemLocationSnapshot getResult() {
+            return builder.getResult();
+        }
+    }
+
+    /**
+     * Hashes regular files on an executor while the directory is being walked.
+     *
+     * The structure of the walked tree is recorded and replayed in walk order into a {@link MerkleDirectorySnapshotBuilder}
+     * once the result is requested, so the resulting snapshot is the same as the one built by {@link DirectSnapshotBuilder}.
+     *
+     * Files which fit into a single read buffer are hashed right away on the walking thread, since handing them off costs about as much as hashing them.
+     * Larger files are collected into batches, and each batch is submitted to the executor as a single task.
+     * While replaying, the calling thread hashes all the batches which have not been picked up by the executor yet.
+     */
+    private static class ConcurrentHashingSnapshotBuilder implements SnapshotBuilder {
+        private static final Object LEAVE_DIRECTORY = new Object();
+        private static final long SMALL_FILE_SIZE = 8 * 1024;
+        private static final int MAX_BATCH_FILES = 64;
+        private static final long MAX_BATCH_BYTES = 4 * 1024 * 1024;
+
+        private final RelativePathSegmentsTracker relativePathSegmentsTracker = new RelativePathSegmentsTracker();
+        private final List<Object> events = new ArrayList<>();
+        private final List<HashingBatch> batches = new ArrayList<>();
+        private final FileHasher hasher;
+        private final Executor hashingExecutor;
+        private HashingBatch currentBatch;
+
+        public ConcurrentHashingSnapshotBuilder(FileHasher hasher, Executor hashingExecutor) {
+            this.hasher = hasher;
+            this.hashingExecutor = hashingExecutor;
+        }
+
+        @Override
+        public void preVisitDirectory(String absolutePath, String name) {
+            relativePathSegmentsTracker.enter(name);
+            events.add(new EnterDirectory(absolutePath, name));
+        }
+
+        @Override
+        public void visitRegularFile(Path absoluteFilePath, String internedAbsoluteFilePath, String internedName, BasicFileAttributes attrs) {
+            if (attrs.size() < SMALL_FILE_SIZE) {
+                events.add(snapshotRegularFile(hasher, absoluteFilePath, internedAbsoluteFilePath, internedName, attrs));
+                return;
+            }
+            if (currentBatch == null) {
+                currentBatch = new HashingBatch(hasher);
+            }
+            // The batch is recorded once per file, and hands out its results in the same order during the replay
+            events.add(currentBatch);
+            currentBatch.add(absoluteFilePath, internedAbsoluteFilePath, internedName, attrs);
+            if (currentBatch.isFull()) {
+                submitCurrentBatch();
+            }
+        }
+
+        private void submitCurrentBatch() {
+            batches.add(currentBatch);
+            hashingExecutor.execute(currentBatch);
+            currentBatch = null;
+        }
+
+        @Override
+        public void visitFile(CompleteFileSystemLocationSnapshot fileSnapshot) {
+            events.add(fileSnapshot);
+        }
+
+        @Override
+        public void postVisitDirectory() {
+            relativePathSegmentsTracker.leave();
+            events.add(LEAVE_DIRECTORY);
+        }
+
+        @Override
+        public boolean isRoot() {
+            return relativePathSegmentsTracker.isRoot();
+        }
+
+        @Override
+        public Iterable<String> getRelativePath() {
+            return relativePathSegmentsTracker.getRelativePath();
+        }
+
+        @Override
+        public CompleteFileSystemLocationSnapshot getResult() {
+            if (currentBatch != null) {
+                // No need to hand off the last batch, we would be waiting for it anyway
+                batches.add(currentBatch);
+                currentBatch = null;
+            }
+            // Run pending batches in reverse order on this thread, so we contend less with the executor which works from the start
+            for (int i = batches.size() - 1; i >= 0; i--) {
+                batches.get(i).run();
+            }
+            MerkleDirectorySnapshotBuilder builder = MerkleDirectorySnapshotBuilder.sortingRequired();
+            for (Object event : events) {
+                if (event == LEAVE_DIRECTORY) {
+                    builder.postVisitDirectory();
+                } else if (event instanceof EnterDirectory) {
+                    EnterDirectory enterDirectory = (EnterDirectory) event;
+                    builder.preVisitDirectory(enterDirectory.absolutePath, enterDirectory.name);
+                } else if (event instanceof HashingBatch) {
+                    builder.visitFile(((HashingBatch) event).nextResult());
+                } else {
+                    builder.visitFile((CompleteFileSystemLocationSnapshot) event);
+                }
+            }
+            return builder.getResult();
+        }
+
+        private static class EnterDirectory {
+            private final String absolutePath;
+            private final String name;
+
+            public EnterDirectory(String absolutePath, String name) {
+                this.absolutePath = absolutePath;
+                this.name = name;
+            }
+        }
+    }
+
+    /**
+     * A batch of regular files to hash. It is run by whichever thread gets to it first, either a thread of the executor or the snapshotting thread.
+     */
+    private static class HashingBatch implements Runnable {
+        private final FileHasher hasher;
+        private final List<Path> absoluteFilePaths = new ArrayList<>(ConcurrentHashingSnapshotBuilder.MAX_BATCH_FILES);
+        private final List<String> internedAbsoluteFilePaths = new ArrayList<>(ConcurrentHashingSnapshotBuilder.MAX_BATCH_FILES);
+        private final List<String> internedNames = new ArrayList<>(ConcurrentHashingSnapshotBuilder.MAX_BATCH_FILES);
+        private final List<BasicFileAttributes> attributes = new ArrayList<>(ConcurrentHashingSnapshotBuilder.MAX_BATCH_FILES);
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private long totalSize;
+        private CompleteFileSystemLocationSnapshot[] results;
+        private Throwable failure;
+        private int nextResult;
+
+        public HashingBatch(FileHasher hasher) {
+            this.hasher = hasher;
+        }
+
+        public void add(Path absoluteFilePath, String internedAbsoluteFilePath, String internedName, BasicFileAttributes attrs) {
+            absoluteFilePaths.add(absoluteFilePath);
+            internedAbsoluteFilePaths.add(internedAbsoluteFilePath);
+            internedNames.add(internedName);
+            attributes.add(attrs);
+            totalSize += attrs.size();
+        }
+
+        public boolean isFull() {
+            return absoluteFilePaths.size() >= ConcurrentHashingSnapshotBuilder.MAX_BATCH_FILES || totalSize >= ConcurrentHashingSnapshotBuilder.MAX_BATCH_BYTES;
+        }
+
+        @Override
+        public void run() {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                int count = absoluteFilePaths.size();
+                CompleteFileSystemLocationSnapshot[] snapshots = new CompleteFileSystemLocationSnapshot[count];
+                for (int i = 0; i < count; i++) {
+                    snapshots[i] = snapshotRegularFile(hasher, absoluteFilePaths.get(i), internedAbsoluteFilePaths.get(i), internedNames.get(i), attributes.get(i));
+                }
+                results = snapshots;
+            } catch (Throwable t) {
+                failure = t;
+            } finally {
+                done.countDown();
+            }
+        }
+
+        /**
+         * Returns the snapshot of the next file of this batch, waiting for the batch to be hashed if necessary.
+         */
+        public CompleteFileSystemLocationSnapshot nextResult() {
+            if (nextResult == 0) {
+                awaitCompletion();
+            }
+            return results[nextResult++];
+        }
+
+        private void awaitCompletion() {
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+            if (failure != null) {
+                Throwables.throwIfUnchecked(failure);
+                throw new RuntimeException(failure);
+            }
+        }
+    }
 }
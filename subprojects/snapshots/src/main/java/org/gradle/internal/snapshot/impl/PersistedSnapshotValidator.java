@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.snapshot.impl;
+
+import org.gradle.internal.file.FileMetadataSnapshot;
+import org.gradle.internal.file.FileType;
+import org.gradle.internal.file.Stat;
+import org.gradle.internal.snapshot.CompleteDirectorySnapshot;
+import org.gradle.internal.snapshot.CompleteFileSystemLocationSnapshot;
+import org.gradle.internal.snapshot.RegularFileSnapshot;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Checks snapshots which have been persisted by an earlier process against the file system.
+ *
+ * Regular files are considered unchanged when their length and last modified time still match,
+ * and they were last modified safely before the snapshot was persisted. A file modified around the time
+ * it was persisted could have been modified again without its timestamp changing, see {@code FileTimeStampInspector}.
+ * Directories are considered unchanged when they still contain exactly the same, unchanged, children,
+ * ignoring entries excluded by the default excludes like {@link DirectorySnapshotter} does.
+ */
+public class PersistedSnapshotValidator {
+    private final Stat stat;
+    private final DirectorySnapshotter.DefaultExcludes defaultExcludes;
+
+    public PersistedSnapshotValidator(Stat stat, String... defaultExcludes) {
+        this.stat = stat;
+        this.defaultExcludes = new DirectorySnapshotter.DefaultExcludes(defaultExcludes);
+    }
+
+    /**
+     * Passes the largest unchanged parts of the given snapshot to the consumer.
+     *
+     * That is the snapshot itself if nothing changed, or the unchanged sub-trees of a changed directory.
+     *
+     * @param modifiedBefore regular files last modified at or after this time are treated as changed.
+     */
+    public void validate(CompleteFileSystemLocationSnapshot snapshot, long modifiedBefore, Consumer<CompleteFileSystemLocationSnapshot> unchangedSnapshots) {
+        if (isUnchanged(snapshot, modifiedBefore, unchangedSnapshots)) {
+            unchangedSnapshots.accept(snapshot);
+        }
+    }
+
+    /**
+     * Returns whether the snapshot is unchanged. If it is not, the unchanged sub-trees have already been passed to the consumer.
+     */
+    private boolean isUnchanged(CompleteFileSystemLocationSnapshot snapshot, long modifiedBefore, Consumer<CompleteFileSystemLocationSnapshot> unchangedSnapshots) {
+        File file = new File(snapshot.getAbsolutePath());
+        FileMetadataSnapshot metadata = stat.stat(file);
+        switch (snapshot.getType()) {
+            case RegularFile:
+                RegularFileSnapshot fileSnapshot = (RegularFileSnapshot) snapshot;
+                return metadata.getType() == FileType.RegularFile
+                    && metadata.getLength() == fileSnapshot.getSize()
+                    && metadata.getLastModified() == fileSnapshot.getLastModified()
+                    && fileSnapshot.getLastModified() < modifiedBefore;
+            case Missing:
+                return metadata.getType() == FileType.Missing;
+            case Directory:
+                return metadata.getType() == FileType.Directory
+                    && isDirectoryUnchanged(file, (CompleteDirectorySnapshot) snapshot, modifiedBefore, unchangedSnapshots);
+            default:
+                throw new AssertionError();
+        }
+    }
+
+    private boolean isDirectoryUnchanged(File directory, CompleteDirectorySnapshot snapshot, long modifiedBefore, Consumer<CompleteFileSystemLocationSnapshot> unchangedSnapshots) {
+        List<CompleteFileSystemLocationSnapshot> unchangedChildren = new ArrayList<>();
+        Set<String> childNames = new HashSet<>();
+        boolean allChildrenUnchanged = true;
+        for (CompleteFileSystemLocationSnapshot child : snapshot.getChildren()) {
+            childNames.add(child.getName());
+            if (isUnchanged(child, modifiedBefore, unchangedChildren::add)) {
+                unchangedChildren.add(child);
+            } else {
+                allChildrenUnchanged = false;
+            }
+        }
+        if (allChildrenUnchanged && hasSameEntries(directory, childNames)) {
+            return true;
+        }
+        unchangedChildren.forEach(unchangedSnapshots);
+        return false;
+    }
+
+    private boolean hasSameEntries(File directory, Set<String> childNames) {
+        String[] entries = directory.list();
+        if (entries == null) {
+            return false;
+        }
+        int knownEntries = 0;
+        for (String entry : entries) {
+            if (childNames.contains(entry)) {
+                knownEntries++;
+            } else if (!isDefaultExcluded(new File(directory, entry))) {
+                return false;
+            }
+        }
+        return knownEntries == childNames.size();
+    }
+
+    private boolean isDefaultExcluded(File file) {
+        String name = file.getName();
+        return stat.stat(file).getType() == FileType.Directory
+            ? defaultExcludes.excludeDir(name)
+            : defaultExcludes.excludeFile(name);
+    }
+}
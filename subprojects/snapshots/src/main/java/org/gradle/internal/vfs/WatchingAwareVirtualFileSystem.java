@@ -16,6 +16,8 @@
 
 package org.gradle.internal.vfs;
 
+import org.gradle.internal.snapshot.SnapshotHierarchy;
+
 import java.io.File;
 import java.util.Collection;
 
@@ -36,4 +38,11 @@ public interface WatchingAwareVirtualFileSystem extends VirtualFileSystem {
      * Called when the build is finished.
      */
     void beforeBuildFinished(boolean watchingEnabled);
+
+    /**
+     * Visits the snapshots which are retained until the next build.
+     *
+     * Nothing is visited when the virtual file system does not retain any state between builds.
+     */
+    void visitRetainedSnapshots(SnapshotHierarchy.SnapshotVisitor visitor);
 }
@@ -16,6 +16,7 @@
 
 package org.gradle.internal.vfs.impl;
 
+import org.gradle.internal.snapshot.SnapshotHierarchy;
 import org.gradle.internal.vfs.WatchingAwareVirtualFileSystem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -50,4 +51,8 @@ public void updateMustWatchDirectories(Collection<File> mustWatchDirectories) {
     public void beforeBuildFinished(boolean watchingEnabled) {
         invalidateAll();
     }
+
+    @Override
+    public void visitRetainedSnapshots(SnapshotHierarchy.SnapshotVisitor visitor) {
+    }
 }
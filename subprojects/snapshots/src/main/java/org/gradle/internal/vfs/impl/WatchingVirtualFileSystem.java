@@ -174,6 +174,11 @@ public void beforeBuildFinished(boolean watchingEnabled) {
         }
     }
 
+    @Override
+    public void visitRetainedSnapshots(SnapshotHierarchy.SnapshotVisitor visitor) {
+        updateWatchRegistry(watchRegistry -> getRoot().get().visitSnapshotRoots(visitor));
+    }
+
     /**
      * Start watching the known areas of the file system for changes.
      */
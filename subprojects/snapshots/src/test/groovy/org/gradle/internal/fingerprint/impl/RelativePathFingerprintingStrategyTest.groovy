@@ -0,0 +1,86 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.fingerprint.impl
+
+import org.gradle.api.internal.cache.StringInterner
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.snapshot.CompleteDirectorySnapshot
+import org.gradle.internal.snapshot.CompleteFileSystemLocationSnapshot
+import org.gradle.internal.snapshot.FileMetadata
+import org.gradle.internal.snapshot.RegularFileSnapshot
+import spock.lang.Specification
+
+class RelativePathFingerprintingStrategyTest extends Specification {
+    def strategy = new RelativePathFingerprintingStrategy(new StringInterner())
+
+    def unchangedFile = file("/root/unchanged/a.txt", 1)
+    def unchanged = directory("/root/unchanged", unchangedFile)
+    def changedFile = file("/root/changed/b.txt", 2)
+    def changed = directory("/root/changed", changedFile)
+
+    def "reuses fingerprints of unchanged directories"() {
+        def root = directory("/root", unchanged, changed)
+        def fingerprints = strategy.collectFingerprints([root])
+
+        when:
+        def modifiedFile = file("/root/changed/b.txt", 3)
+        def modifiedRoot = directory("/root", unchanged, directory("/root/changed", modifiedFile))
+        def modifiedFingerprints = strategy.collectFingerprints([modifiedRoot])
+
+        then:
+        modifiedFingerprints == new RelativePathFingerprintingStrategy(new StringInterner()).collectFingerprints([modifiedRoot])
+        modifiedFingerprints.keySet() as List == fingerprints.keySet() as List
+        modifiedFingerprints[unchanged.absolutePath].is(fingerprints[unchanged.absolutePath])
+        modifiedFingerprints[unchangedFile.absolutePath].is(fingerprints[unchangedFile.absolutePath])
+        modifiedFingerprints[modifiedFile.absolutePath].normalizedContentHash == modifiedFile.hash
+    }
+
+    def "does not reuse fingerprints of directories at a different relative path"() {
+        strategy.collectFingerprints([directory("/root", unchanged)])
+
+        when:
+        def fingerprints = strategy.collectFingerprints([unchanged, directory("/root", unchanged)])
+
+        then:
+        fingerprints[unchanged.absolutePath] instanceof IgnoredPathFileSystemLocationFingerprint
+        fingerprints[unchangedFile.absolutePath].normalizedPath == "a.txt"
+    }
+
+    def "does not add entries visited through an earlier root again"() {
+        def root = directory("/root", unchanged, changed)
+        strategy.collectFingerprints([root])
+
+        when:
+        def fingerprints = strategy.collectFingerprints([root, changed])
+
+        then:
+        fingerprints.keySet() as List == [root, unchanged, unchangedFile, changed, changedFile]*.absolutePath
+        fingerprints[changedFile.absolutePath].normalizedPath == "changed/b.txt"
+    }
+
+    private static RegularFileSnapshot file(String absolutePath, int hash) {
+        new RegularFileSnapshot(absolutePath, name(absolutePath), HashCode.fromInt(hash), new FileMetadata(0, 0))
+    }
+
+    private static CompleteDirectorySnapshot directory(String absolutePath, CompleteFileSystemLocationSnapshot... children) {
+        new CompleteDirectorySnapshot(absolutePath, name(absolutePath), children as List, HashCode.fromInt(children*.hash.hashCode()))
+    }
+
+    private static String name(String absolutePath) {
+        absolutePath.substring(absolutePath.lastIndexOf('/') + 1)
+    }
+}
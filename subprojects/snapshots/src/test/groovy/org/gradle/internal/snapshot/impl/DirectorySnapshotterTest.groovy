@@ -37,7 +37,10 @@ import spock.lang.Issue
 import spock.lang.Specification
 
 import java.nio.file.Paths
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
 import java.util.concurrent.atomic.AtomicBoolean
+import java.util.function.Supplier
 
 @UsesNativeServices
 class DirectorySnapshotterTest extends Specification {
@@ -216,6 +219,66 @@ class DirectorySnapshotterTest extends Specification {
         pipe.delete()
     }
 
+    def "hashing files concurrently produces the same snapshot"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        (1..10).each { dir ->
+            (1..20).each { file ->
+                // Mix small files, which are hashed while walking, with larger ones, which are hashed in batches
+                def content = "content ${dir} ${file}"
+                rootDir.file("dir${dir}/sub${file % 3}/file${file}.txt").text = file % 2 == 0 ? content * 1000 : content
+            }
+        }
+        rootDir.file("a.txt").text = "root file"
+        def executor = Executors.newFixedThreadPool(4)
+        def concurrentSnapshotter = new DirectorySnapshotter(fileHasher, new StringInterner(), { executor } as Supplier<Executor>)
+
+        when:
+        def snapshot = directorySnapshotter.snapshot(rootDir.absolutePath, null, new AtomicBoolean(false))
+        def concurrentSnapshot = concurrentSnapshotter.snapshot(rootDir.absolutePath, null, new AtomicBoolean(false))
+
+        then:
+        concurrentSnapshot.hash == snapshot.hash
+        collectRelativePaths(concurrentSnapshot) == collectRelativePaths(snapshot)
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    def "hashing files concurrently applies filters"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        rootDir.file("a.txt").createFile()
+        rootDir.file("a/b/c.txt").createFile()
+        rootDir.file("a/b/c.html").createFile()
+        def patterns = new PatternSet()
+        patterns.include("**/*.txt")
+        def executor = Executors.newFixedThreadPool(2)
+        def concurrentSnapshotter = new DirectorySnapshotter(fileHasher, new StringInterner(), { executor } as Supplier<Executor>)
+        def actuallyFiltered = new AtomicBoolean(false)
+
+        when:
+        def snapshot = concurrentSnapshotter.snapshot(rootDir.absolutePath, directoryWalkerPredicate(patterns), actuallyFiltered)
+
+        then:
+        actuallyFiltered.get()
+        collectRelativePaths(snapshot) == ['root', 'root/a', 'root/a/b', 'root/a/b/c.txt', 'root/a.txt']
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    private static List<String> collectRelativePaths(CompleteFileSystemLocationSnapshot snapshot) {
+        def relativePaths = []
+        snapshot.accept(new RelativePathTrackingVisitor() {
+            @Override
+            void visit(String absolutePath, Deque<String> relativePath) {
+                relativePaths << relativePath.join("/")
+            }
+        })
+        return relativePaths
+    }
+
     def "default excludes are correctly parsed"() {
         def defaultExcludes = new DirectorySnapshotter.DefaultExcludes(DirectoryScanner.getDefaultExcludes())
 